@@ -1,9 +1,15 @@
 package main;
+
+import main.model.PGNParser.PgnGameTree;
+
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 public final class PGNGenerator {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
     /**
      * Private constructor to prevent instantiation of this utility class.
      */
@@ -19,33 +25,176 @@ public final class PGNGenerator {
      * @return A fully formatted PGN string.
      */
     public static String generate(String whitePlayerName, String blackPlayerName, String result, List<String> moveHistory) {
-        StringBuilder pgn = new StringBuilder();
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+        return generate("Online Chess Match", "1", whitePlayerName, blackPlayerName, result, null, moveHistory);
+    }
+
+    /**
+     * Generates a complete PGN string for a finished game, optionally from a non-standard start position.
+     *
+     * @param event           The Event tag.
+     * @param round           The Round tag.
+     * @param whitePlayerName The name of the white player.
+     * @param blackPlayerName The name of the black player.
+     * @param result          The result of the game ("1-0", "0-1", "1/2-1/2", or "*").
+     * @param startFen        The starting position, or null for the standard one. Adds the SetUp and FEN tags.
+     * @param moveHistory     A list of all moves made in Standard Algebraic Notation (SAN).
+     * @return A fully formatted PGN string.
+     */
+    public static String generate(String event, String round, String whitePlayerName, String blackPlayerName,
+                                  String result, String startFen, List<String> moveHistory) {
+        StringBuilder pgn = new StringBuilder(256 + moveHistory.size() * 8);
 
         // 1. Add PGN headers (the "Seven Tag Roster")
-        pgn.append(String.format("[Event \"Online Chess Match\"]%n"));
-        pgn.append(String.format("[Site \"Java Chess Server\"]%n"));
-        pgn.append(String.format("[Date \"%s\"]%n", today.format(formatter)));
-        pgn.append(String.format("[Round \"1\"]%n"));
-        pgn.append(String.format("[White \"%s\"]%n", whitePlayerName));
-        pgn.append(String.format("[Black \"%s\"]%n", blackPlayerName));
-        pgn.append(String.format("[Result \"%s\"]%n%n", result));
-
-        // 2. Add the move text
-        int moveNumber = 1;
-        for (int i = 0; i < moveHistory.size(); i++) {
-            if (i % 2 == 0) {
-                pgn.append(moveNumber).append(". ");
-                moveNumber++;
-            }
-            pgn.append(moveHistory.get(i)).append(" ");
+        appendTag(pgn, "Event", event);
+        appendTag(pgn, "Site", "Java Chess Server");
+        appendTag(pgn, "Date", LocalDate.now().format(DATE_FORMAT));
+        appendTag(pgn, "Round", round);
+        appendTag(pgn, "White", whitePlayerName);
+        appendTag(pgn, "Black", blackPlayerName);
+        appendTag(pgn, "Result", result);
+        if (startFen != null) {
+            appendTag(pgn, "SetUp", "1");
+            appendTag(pgn, "FEN", startFen);
         }
+        pgn.append(System.lineSeparator());
+
+        // 2. Add the move text, numbered from the start position's side to move and move number
+        appendMoves(pgn, moveHistory, startPly(startFen));
 
         // 3. Add the final result at the end
         pgn.append(result);
 
         return pgn.toString();
     }
-}
 
+    /**
+     * Generates a PGN string that keeps a game's own headers, e.g. one converted from another
+     * storage format. A FEN header, if present, sets the move numbering.
+     *
+     * @param headers     The tag pairs, written in iteration order.
+     * @param moveHistory A list of all moves made in Standard Algebraic Notation (SAN).
+     * @param result      The termination marker, e.g. "1-0" or "*".
+     * @return A fully formatted PGN string.
+     */
+    public static String generate(Map<String, String> headers, List<String> moveHistory, String result) {
+        StringBuilder pgn = new StringBuilder(256 + moveHistory.size() * 8);
+        appendHeaders(pgn, headers);
+        appendMoves(pgn, moveHistory, startPly(headers.get("FEN")));
+        pgn.append(result);
+        return pgn.toString();
+    }
+
+    /**
+     * Generates a PGN string for a game tree, with its variations, comments and NAGs.
+     *
+     * @param tree The game, e.g. read with {@link PgnGameTree#parse}.
+     * @return A fully formatted PGN string.
+     */
+    public static String generate(PgnGameTree tree) {
+        StringBuilder pgn = new StringBuilder(256 + tree.size() * 8);
+        appendHeaders(pgn, tree.getHeaders());
+        String rootComment = tree.comment(PgnGameTree.ROOT);
+        if (rootComment != null) {
+            pgn.append('{').append(rootComment).append("} ");
+        }
+        appendLine(pgn, tree, PgnGameTree.ROOT, startPly(tree.getHeaders().get("FEN")), true);
+        String result = tree.getResult();
+        if (result == null) {
+            result = tree.getHeaders().getOrDefault("Result", "*");
+        }
+        pgn.append(result);
+        return pgn.toString();
+    }
+
+    /** Writes a list of moves with their numbers; a line starting with Black to move opens with "N...". */
+    private static void appendMoves(StringBuilder pgn, List<String> moves, int ply) {
+        if (ply % 2 == 1 && !moves.isEmpty()) {
+            pgn.append(ply / 2 + 1).append("... ");
+        }
+        for (String move : moves) {
+            if (ply % 2 == 0) {
+                pgn.append(ply / 2 + 1).append(". ");
+            }
+            pgn.append(move).append(' ');
+            ply++;
+        }
+    }
+
+    /**
+     * Writes the line that continues from {@code node}, with each move's variations after it.
+     * The main line is walked iteratively; only nested variations recurse.
+     */
+    private static void appendLine(StringBuilder pgn, PgnGameTree tree, int node, int ply, boolean needNumber) {
+        for (int move = tree.firstChild(node); move != PgnGameTree.NONE; move = tree.firstChild(move)) {
+            needNumber = appendMove(pgn, tree, move, ply, needNumber);
+            for (int variation = tree.nextSibling(move); variation != PgnGameTree.NONE; variation = tree.nextSibling(variation)) {
+                pgn.append('(');
+                boolean variationNeedsNumber = appendMove(pgn, tree, variation, ply, true);
+                appendLine(pgn, tree, variation, ply + 1, variationNeedsNumber);
+                pgn.setLength(pgn.length() - 1); // the space after the variation's last move
+                pgn.append(") ");
+                needNumber = true;
+            }
+            ply++;
+        }
+    }
+
+    /** @return Whether the next move needs its number repeated, i.e. after a comment. */
+    private static boolean appendMove(StringBuilder pgn, PgnGameTree tree, int move, int ply, boolean needNumber) {
+        String preComment = tree.preComment(move);
+        if (preComment != null) {
+            pgn.append('{').append(preComment).append("} ");
+            needNumber = true;
+        }
+        if (ply % 2 == 0) {
+            pgn.append(ply / 2 + 1).append(". ");
+        } else if (needNumber) {
+            pgn.append(ply / 2 + 1).append("... ");
+        }
+        pgn.append(tree.san(move)).append(' ');
+        for (int i = 0; i < tree.nagCount(move); i++) {
+            pgn.append('$').append(tree.nag(move, i)).append(' ');
+        }
+        String comment = tree.comment(move);
+        if (comment != null) {
+            pgn.append('{').append(comment).append("} ");
+            return true;
+        }
+        return false;
+    }
+
+    private static void appendHeaders(StringBuilder pgn, Map<String, String> headers) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            pgn.append('[').append(header.getKey()).append(" \"")
+                    .append(header.getValue().replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append("\"]").append(System.lineSeparator());
+        }
+        pgn.append(System.lineSeparator());
+    }
+
+    /** Appends one tag pair as given, without escaping, like the format strings it replaced. */
+    private static void appendTag(StringBuilder pgn, String name, String value) {
+        pgn.append('[').append(name).append(" \"").append(value).append("\"]").append(System.lineSeparator());
+    }
+
+    /**
+     * The ply of the first move, counted from 1. e4 as ply 0, taken from the start position's side
+     * to move and move number.
+     *
+     * @param startFen The FEN of the start position, or null for the standard one.
+     */
+    private static int startPly(String startFen) {
+        if (startFen == null) return 0;
+        String[] fenFields = startFen.trim().split("\\s+");
+        int moveNumber = 1;
+        if (fenFields.length > 5) {
+            try {
+                moveNumber = Math.max(1, Integer.parseInt(fenFields[5]));
+            } catch (NumberFormatException e) {
+                moveNumber = 1;
+            }
+        }
+        boolean blackToMove = fenFields.length > 1 && fenFields[1].equals("b");
+        return (moveNumber - 1) * 2 + (blackToMove ? 1 : 0);
+    }
+}
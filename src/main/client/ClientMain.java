@@ -13,7 +13,11 @@ public class ClientMain {
                 int totalTimeInSeconds = gameSettings.getTotalSeconds();
 
                 // Create the controller with this player's specific settings.
-                new GameController(myPlayerName, totalTimeInSeconds);
+                if (gameSettings.vsComputer) {
+                    new OfflineGameController(myPlayerName, totalTimeInSeconds, gameSettings.playerColour);
+                } else {
+                    new GameController(myPlayerName, totalTimeInSeconds);
+                }
             });
             startMenu.show();
         });
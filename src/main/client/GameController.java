@@ -38,6 +38,7 @@ public class GameController {
 
     private StringBuilder pgnBuilder = null;
     private String finalPgn = null;
+    private String currentFen = null;
 
     public GameController(String myPlayerName, int totalTimeInSeconds) {
         this.view = new GameFrame();
@@ -60,6 +61,7 @@ public class GameController {
         this.view.getNewGameMenuItem().setEnabled(false);
         this.view.getLoadPgnMenuItem().setEnabled(false);
         this.view.addSavePgnListener(e -> handleSavePgn());
+        this.view.addExplorerListener(e -> handleExplorerRequest());
         BoardMouseListener mouseListener = new BoardMouseListener();
         this.view.getChessBoardPanel().addMouseListener(mouseListener);
         this.view.getChessBoardPanel().addMouseMotionListener(mouseListener);
@@ -95,6 +97,8 @@ public class GameController {
                     view.setStatus("Invalid move: " + payload);
                     isMyTurn = true;
                 }
+                case "EXPLORER_MOVES" -> handleExplorerMoves(payload);
+                case "EXPLORER_ERROR" -> view.setStatus("Explorer: " + payload);
                 case "ERROR" -> view.setStatus("Error: " + payload);
             }
         });
@@ -178,6 +182,8 @@ public class GameController {
     }
 
     private void handleUpdateState(String payload) {
+        this.currentFen = payload;
+        view.getExplorerMenuItem().setEnabled(true);
         this.displayBoard.updateFromFen(payload);
         view.getChessBoardPanel().updateBoard(this.displayBoard);
     }
@@ -208,17 +214,52 @@ public class GameController {
         }
     }
 
+    /**
+     * Asks the server which moves the game archive has from the current position. The server
+     * answers at any time, including during the opponent's turn.
+     */
+    private void handleExplorerRequest() {
+        if (currentFen == null) return;
+        networkHandler.sendMessage("EXPLORE " + currentFen);
+    }
+
+    /**
+     * Shows the {@code EXPLORER_MOVES} answer, whose entries look like "e2e4:1520:38.2/31.0/30.8":
+     * the move, the number of games, and the white win, draw and black win percentages.
+     */
+    private void handleExplorerMoves(String payload) {
+        List<String> lines = new ArrayList<>();
+        for (String entry : payload.trim().split(" ")) {
+            String[] fields = entry.split(":");
+            if (fields.length != 3) continue;
+            String[] percents = fields[2].split("/");
+            if (percents.length != 3) continue;
+            lines.add(String.format("%-6s %8s games   +%s%%  =%s%%  -%s%%", fields[0], fields[1], percents[0], percents[1], percents[2]));
+        }
+        if (lines.isEmpty()) {
+            lines.add("No archived games reach this position.");
+        }
+        view.showExplorerMoves(lines);
+    }
+
     // ... other methods (handleSavePgn, BoardMouseListener, etc.) are unchanged ...
     private void handleSavePgn() {
         if (finalPgn == null || finalPgn.isEmpty()) {
             JOptionPane.showMessageDialog(view, "No PGN data available to save. The file might be empty.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Save PGN");
         String white = myColor == Colour.WHITE ? myName : opponentName;
         String black = myColor == Colour.BLACK ? myName : opponentName;
-        fileChooser.setSelectedFile(new File(white + "_vs_" + black + ".pgn"));
+        savePgnToFile(view, finalPgn, white + "_vs_" + black + ".pgn");
+    }
+
+    /**
+     * Asks the user for a file name and writes a finished game's PGN to it.
+     */
+    static void savePgnToFile(GameFrame view, String pgn, String suggestedName) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save PGN");
+        fileChooser.setSelectedFile(new File(suggestedName));
         fileChooser.setFileFilter(new FileNameExtensionFilter("PGN Files (*.pgn)", "pgn"));
         int userSelection = fileChooser.showSaveDialog(view);
         if (userSelection == JFileChooser.APPROVE_OPTION) {
@@ -227,7 +268,7 @@ public class GameController {
                 fileToSave = new File(fileToSave.getAbsolutePath() + ".pgn");
             }
             try (FileWriter writer = new FileWriter(fileToSave)) {
-                writer.write(finalPgn);
+                writer.write(pgn);
                 JOptionPane.showMessageDialog(view, "Game saved successfully to:\n" + fileToSave.getAbsolutePath(), "PGN Saved", JOptionPane.INFORMATION_MESSAGE);
             } catch (IOException e) {
                 JOptionPane.showMessageDialog(view, "Error saving file: " + e.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
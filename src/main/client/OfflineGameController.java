@@ -0,0 +1,376 @@
+package main.client;
+
+import main.PGNGenerator;
+import main.common.Colour;
+import main.common.Square;
+import main.engine.Moves;
+import main.engine.ParallelSearch;
+import main.engine.Search;
+import main.engine.SearchResult;
+import main.engine.TimeManager;
+import main.engine.TranspositionTable;
+import main.engine.Zobrist;
+import main.model.Board.Board;
+import main.model.Clock;
+import main.model.pieces.Pawn;
+import main.model.pieces.Piece;
+import main.view.GameFrame;
+
+import javax.swing.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plays a local game against the built-in engine, without a server.
+ * <p>
+ * Moves are applied directly to {@code displayBoard} on the event dispatch thread. The engine
+ * searches a copy of the position on a background executor with all cores but one, so the
+ * interface keeps a core to itself. Search progress is published to an atomic slot that a
+ * 60 fps Swing timer drains, so a burst of iterations costs at most one status update per frame.
+ * Every new game or takeback bumps a generation counter and stops the search; a result from an
+ * older generation is discarded.
+ */
+public class OfflineGameController {
+
+    private static final int FRAME_MILLIS = 1000 / 60;
+    private static final long UNTIMED_MOVE_MILLIS = 2000;
+    private static final String ENGINE_NAME = "Computer";
+
+    private final GameFrame view;
+    private final String myName;
+    private final Colour myColor;
+    private final int totalTimeInSeconds;
+    private final ParallelSearch engine;
+    private final ExecutorService searchExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicReference<SearchResult> pendingProgress = new AtomicReference<>();
+    private volatile int searchingGeneration = -1;
+
+    // Game state, only touched on the event dispatch thread.
+    private Board displayBoard;
+    private final List<Board> previousPositions = new ArrayList<>();
+    private final List<String> sanMoves = new ArrayList<>();
+    private final List<Long> positionKeys = new ArrayList<>();
+    private final List<Integer> halfmoveClocks = new ArrayList<>();
+    private final Clock whiteClock;
+    private final Clock blackClock;
+    private boolean gameOver;
+    private String finalPgn;
+    private Square selectedSquare = null;
+
+    public OfflineGameController(String myPlayerName, int totalTimeInSeconds, Colour myColor) {
+        this.view = new GameFrame();
+        this.myName = myPlayerName;
+        this.myColor = myColor;
+        this.totalTimeInSeconds = totalTimeInSeconds;
+        this.whiteClock = new Clock(totalTimeInSeconds);
+        this.blackClock = new Clock(totalTimeInSeconds);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.engine = new ParallelSearch(TranspositionTable.DEFAULT_SIZE_MB, threads);
+        this.engine.setListener(this::onSearchProgress);
+        this.searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "engine-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        initListeners();
+        new Timer(FRAME_MILLIS, e -> refreshFrame()).start();
+        new Timer(1000, e -> tickClock()).start();
+        view.setVisible(true);
+        startNewGame();
+    }
+
+    private void initListeners() {
+        view.getReadyButton().setVisible(false);
+        view.addQuitListener(e -> System.exit(0));
+        view.getNewGameMenuItem().addActionListener(e -> startNewGame());
+        view.getLoadPgnMenuItem().setEnabled(false);
+        view.getTakeBackMenuItem().addActionListener(e -> takeBack());
+        view.addSavePgnListener(e -> handleSavePgn());
+        BoardMouseListener mouseListener = new BoardMouseListener();
+        view.getChessBoardPanel().addMouseListener(mouseListener);
+        view.getChessBoardPanel().addMouseMotionListener(mouseListener);
+    }
+
+    private void startNewGame() {
+        cancelSearch();
+        displayBoard = new Board();
+        previousPositions.clear();
+        sanMoves.clear();
+        positionKeys.clear();
+        halfmoveClocks.clear();
+        positionKeys.add(Zobrist.hash(displayBoard));
+        halfmoveClocks.add(0);
+        engine.getTable().clear();
+        whiteClock.stop();
+        blackClock.stop();
+        whiteClock.setTime(0, 0, totalTimeInSeconds);
+        blackClock.setTime(0, 0, totalTimeInSeconds);
+        gameOver = false;
+        finalPgn = null;
+        selectedSquare = null;
+
+        Map<String, String> names = new HashMap<>();
+        names.put("White", myColor == Colour.WHITE ? myName + " (You)" : ENGINE_NAME);
+        names.put("Black", myColor == Colour.BLACK ? myName + " (You)" : ENGINE_NAME);
+        view.updatePlayerInfo(names);
+        view.setTitle("Chess Client - Playing as " + myColor + " against the computer");
+        view.getSavePgnMenuItem().setEnabled(false);
+        view.clearMoveLog();
+        view.getChessBoardPanel().clearHighlights();
+        view.getChessBoardPanel().clearSelection();
+        view.getChessBoardPanel().updateBoard(displayBoard);
+        nextTurn();
+    }
+
+    /**
+     * Undoes the engine's reply and the user's last move, so it is the user's turn again.
+     */
+    private void takeBack() {
+        if (previousPositions.isEmpty()) return;
+        cancelSearch();
+        do {
+            int last = previousPositions.size() - 1;
+            displayBoard = previousPositions.remove(last);
+            sanMoves.remove(last);
+            positionKeys.remove(last + 1);
+            halfmoveClocks.remove(last + 1);
+        } while (displayBoard.getTurn() != myColor && !previousPositions.isEmpty());
+        gameOver = false;
+        finalPgn = null;
+        view.getSavePgnMenuItem().setEnabled(false);
+        view.clearMoveLog();
+        for (int ply = 0; ply < sanMoves.size(); ply++) {
+            view.addMoveToLog(ply / 2 + 1, sanMoves.get(ply), ply % 2 == 0 ? Colour.WHITE : Colour.BLACK);
+        }
+        view.getChessBoardPanel().updateBoard(displayBoard);
+        nextTurn();
+    }
+
+    /** Invalidates the running search, if any; its result will be ignored. */
+    private void cancelSearch() {
+        generation.incrementAndGet();
+        pendingProgress.set(null);
+        engine.stop();
+    }
+
+    /** Ends the game if the position is final, otherwise hands the move to the side to play. */
+    private void nextTurn() {
+        view.getTakeBackMenuItem().setEnabled(!previousPositions.isEmpty());
+        Colour turn = displayBoard.getTurn();
+        String winForOpponent = turn == Colour.WHITE ? "0-1" : "1-0";
+        int legalMoves = Moves.generate(displayBoard, new int[256]);
+        if (legalMoves == 0) {
+            if (displayBoard.isInCheck(turn)) {
+                endGame(winForOpponent, "Checkmate! " + (turn == Colour.WHITE ? "Black" : "White") + " wins.");
+            } else {
+                endGame("1/2-1/2", "Draw by stalemate.");
+            }
+            return;
+        }
+        long key = positionKeys.get(positionKeys.size() - 1);
+        if (positionKeys.stream().filter(k -> k == key).count() >= 3) {
+            endGame("1/2-1/2", "Draw by threefold repetition.");
+            return;
+        }
+        if (halfmoveClocks.get(halfmoveClocks.size() - 1) >= 100) {
+            endGame("1/2-1/2", "Draw by the fifty-move rule.");
+            return;
+        }
+        if (displayBoard.hasInsufficientMaterial()) {
+            endGame("1/2-1/2", "Draw by insufficient material.");
+            return;
+        }
+
+        if (totalTimeInSeconds > 0) {
+            (turn == Colour.WHITE ? blackClock : whiteClock).stop();
+            (turn == Colour.WHITE ? whiteClock : blackClock).start();
+        }
+        if (turn == myColor) {
+            view.setStatus("Your turn.");
+        } else {
+            view.setStatus("Computer is thinking...");
+            startEngineSearch(legalMoves);
+        }
+    }
+
+    private void startEngineSearch(int legalMoves) {
+        int searchGeneration = generation.get();
+        Board root = new Board(displayBoard);
+        long[] history = positionKeys.subList(0, positionKeys.size() - 1).stream().mapToLong(Long::longValue).toArray();
+        TimeManager timeManager = new TimeManager();
+        if (totalTimeInSeconds > 0) {
+            timeManager.start(myColor == Colour.WHITE ? blackClock : whiteClock, 0, legalMoves);
+        } else {
+            timeManager.startFixed(UNTIMED_MOVE_MILLIS);
+        }
+        searchExecutor.submit(() -> {
+            if (generation.get() != searchGeneration) return;
+            searchingGeneration = searchGeneration;
+            engine.setGameHistory(history);
+            try {
+                SearchResult result = engine.search(root, Search.MAX_DEPTH, timeManager);
+                SwingUtilities.invokeLater(() -> onEngineMove(searchGeneration, result));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("Error during engine search: " + e.getMessage());
+            }
+        });
+    }
+
+    // Called on the search thread after every iteration.
+    private void onSearchProgress(SearchResult result) {
+        if (searchingGeneration != generation.get()) {
+            // Cancelled before this search had started; stopping it then would not have stuck.
+            engine.stop();
+            return;
+        }
+        pendingProgress.set(result);
+    }
+
+    private void onEngineMove(int searchGeneration, SearchResult result) {
+        if (searchGeneration != generation.get() || gameOver) return;
+        pendingProgress.set(null);
+        int move = result.bestMove();
+        if (move == Moves.NONE) {
+            int[] moves = new int[256];
+            if (Moves.generate(displayBoard, moves) == 0) return;
+            move = moves[0];
+        }
+        playMove(Moves.start(move), Moves.end(move), Moves.promotion(move));
+    }
+
+    private void attemptUserMove(Square start, Square end) {
+        if (gameOver || displayBoard.getTurn() != myColor) return;
+        Optional<String> promotionChoice = Optional.empty();
+        Piece movingPiece = displayBoard.getPiece(start);
+        if (movingPiece instanceof Pawn && (end.rank() == 0 || end.rank() == 7)) {
+            promotionChoice = Optional.of(view.askPromotionChoice());
+        }
+        playMove(start, end, promotionChoice);
+    }
+
+    /** Applies a legal move to the board and the move log, then passes the turn. */
+    private void playMove(Square start, Square end, Optional<String> promotion) {
+        Colour mover = displayBoard.getTurn();
+        boolean irreversible = displayBoard.getPiece(start) instanceof Pawn || displayBoard.getPiece(end) != null;
+        previousPositions.add(new Board(displayBoard));
+        String san = displayBoard.applyMove(start, end, promotion);
+        sanMoves.add(san);
+        positionKeys.add(Zobrist.hash(displayBoard));
+        halfmoveClocks.add(irreversible ? 0 : halfmoveClocks.get(halfmoveClocks.size() - 1) + 1);
+        view.addMoveToLog((sanMoves.size() + 1) / 2, san, mover);
+        view.getChessBoardPanel().updateBoard(displayBoard);
+        nextTurn();
+    }
+
+    private void endGame(String result, String message) {
+        gameOver = true;
+        cancelSearch();
+        whiteClock.stop();
+        blackClock.stop();
+        String white = myColor == Colour.WHITE ? myName : ENGINE_NAME;
+        String black = myColor == Colour.BLACK ? myName : ENGINE_NAME;
+        finalPgn = PGNGenerator.generate(white, black, result, sanMoves);
+        view.getSavePgnMenuItem().setEnabled(true);
+        view.setStatus("Game over: " + message);
+        view.showGameOverDialog(message, "Game Over");
+    }
+
+    // Runs once per frame on the event dispatch thread.
+    private void refreshFrame() {
+        SearchResult progress = pendingProgress.getAndSet(null);
+        if (progress != null && !gameOver) {
+            view.setStatus(formatProgress(progress));
+        }
+        view.updateClock(Colour.WHITE, whiteClock.getTime());
+        view.updateClock(Colour.BLACK, blackClock.getTime());
+    }
+
+    private void tickClock() {
+        if (gameOver || totalTimeInSeconds == 0) return;
+        Colour turn = displayBoard.getTurn();
+        if ((turn == Colour.WHITE ? whiteClock : blackClock).decrement()) {
+            String winner = turn == Colour.WHITE ? "Black" : "White";
+            endGame(turn == Colour.WHITE ? "0-1" : "1-0", (turn == myColor ? "You" : ENGINE_NAME) + " ran out of time. " + winner + " wins.");
+        }
+    }
+
+    private static String formatProgress(SearchResult result) {
+        String score;
+        if (Search.isMateScore(result.score())) {
+            int movesToMate = (Search.MATE - Math.abs(result.score()) + 1) / 2;
+            score = (result.score() > 0 ? "mates in " : "mated in ") + movesToMate;
+        } else {
+            score = String.format("%+.2f", result.score() / 100.0);
+        }
+        return "Computer is thinking... depth " + result.depth() + ", " + score + ", "
+                + result.nodes() * 1000 / Math.max(1, result.timeMillis()) / 1000 + " kN/s";
+    }
+
+    private void handleSavePgn() {
+        if (finalPgn == null) return;
+        String white = myColor == Colour.WHITE ? myName : ENGINE_NAME;
+        String black = myColor == Colour.BLACK ? myName : ENGINE_NAME;
+        GameController.savePgnToFile(view, finalPgn, white + "_vs_" + black + ".pgn");
+    }
+
+    private class BoardMouseListener extends MouseAdapter {
+        private boolean canMove() {
+            return !gameOver && displayBoard.getTurn() == myColor;
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            if (!canMove()) return;
+            Square clickedSquare = view.getChessBoardPanel().getSquareFromPoint(e.getPoint());
+            if (clickedSquare == null) return;
+            view.getChessBoardPanel().clearHighlights();
+            Piece clickedPiece = displayBoard.getPiece(clickedSquare);
+            if (clickedPiece != null && clickedPiece.getColor() == myColor) {
+                selectedSquare = clickedSquare;
+                view.getChessBoardPanel().selectSquare(selectedSquare);
+                view.getChessBoardPanel().setDraggedPiece(clickedPiece, e.getPoint());
+                Set<Square> legalMoves = new HashSet<>(displayBoard.getLegalMovesForPiece(selectedSquare));
+                view.getChessBoardPanel().highlightLegalMoves(legalMoves);
+            }
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            view.getChessBoardPanel().clearHighlights();
+            view.getChessBoardPanel().clearDraggedPiece();
+            view.getChessBoardPanel().clearSelection();
+            if (selectedSquare == null || !canMove()) {
+                selectedSquare = null;
+                return;
+            }
+            Square releaseSquare = view.getChessBoardPanel().getSquareFromPoint(e.getPoint());
+            Set<Square> legalMoves = new HashSet<>(displayBoard.getLegalMovesForPiece(selectedSquare));
+            Square start = selectedSquare;
+            selectedSquare = null;
+            if (releaseSquare != null && legalMoves.contains(releaseSquare)) {
+                attemptUserMove(start, releaseSquare);
+            }
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            if (selectedSquare != null) {
+                view.getChessBoardPanel().setDraggedPiece(displayBoard.getPiece(selectedSquare), e.getPoint());
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package main.common;
+
+import main.model.Board.Board;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One line of an Extended Position Description (EPD) file: a position and its operations.
+ *
+ * @param fen        The position as a full FEN, using the hmvc/fmvn operations for the move counters if present.
+ * @param operations Operands by opcode, in file order, e.g. "bm" to ["Nf3", "Qxd5"] or "id" to ["WAC.001"].
+ */
+public record EpdRecord(String fen, Map<String, List<String>> operations) {
+
+    /** The operands of an opcode, or an empty list if it is absent. */
+    public List<String> operands(String opcode) {
+        return operations.getOrDefault(opcode, List.of());
+    }
+
+    /** The "bm" (best move) operands in SAN. */
+    public List<String> bestMoves() {
+        return operands("bm");
+    }
+
+    /** The "am" (avoid move) operands in SAN. */
+    public List<String> avoidMoves() {
+        return operands("am");
+    }
+
+    /** The "id" operand, or null. */
+    public String id() {
+        List<String> id = operands("id");
+        return id.isEmpty() ? null : id.get(0);
+    }
+
+    /** Creates a board set up in this position. */
+    public Board toBoard() {
+        Board board = new Board();
+        board.updateFromFen(fen);
+        return board;
+    }
+}
@@ -3,9 +3,14 @@ package main.common;
 import main.model.Board.Board;
 import main.model.pieces.Piece;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * A utility class for converting a Board object to and from
- * Forsyth-Edwards Notation (FEN).
+ * Forsyth-Edwards Notation (FEN), and for reading Extended Position Description (EPD) lines.
  */
 public final class FenUtility {
 
@@ -42,9 +47,14 @@ public final class FenUtility {
         fen.append(' ');
         fen.append(board.getTurn() == Colour.WHITE ? 'w' : 'b');
 
-        // 3. Castling Availability (This is a simplified version)
-        // A full implementation would check board.getCastlingRights()
-        fen.append(" KQkq"); // Placeholder, assuming all rights for now
+        // 3. Castling Availability
+        fen.append(' ');
+        int castlingStart = fen.length();
+        if (board.hasKingsideCastleRight(Colour.WHITE)) fen.append('K');
+        if (board.hasQueensideCastleRight(Colour.WHITE)) fen.append('Q');
+        if (board.hasKingsideCastleRight(Colour.BLACK)) fen.append('k');
+        if (board.hasQueensideCastleRight(Colour.BLACK)) fen.append('q');
+        if (fen.length() == castlingStart) fen.append('-');
 
         // 4. En Passant Target Square
         // --- THIS IS THE CRITICAL FIX ---
@@ -61,4 +71,92 @@ public final class FenUtility {
 
         return fen.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Parses one EPD line: the four FEN position fields followed by operations, each an opcode,
+     * zero or more operands and a semicolon, e.g. {@code ... w - - bm Qd1+; id "WAC.002";}.
+     * Quoted operands may contain spaces and semicolons. A plain FEN line is accepted too.
+     *
+     * @throws IllegalArgumentException if the line has fewer than four fields or an unterminated string.
+     */
+    public static EpdRecord parseEpd(String line) {
+        int length = line.length();
+        int pos = 0;
+        String[] fields = new String[4];
+        for (int f = 0; f < 4; f++) {
+            while (pos < length && Character.isWhitespace(line.charAt(pos))) pos++;
+            int start = pos;
+            while (pos < length && !Character.isWhitespace(line.charAt(pos))) pos++;
+            if (start == pos) {
+                throw new IllegalArgumentException("EPD line needs four position fields: " + line);
+            }
+            fields[f] = line.substring(start, pos);
+        }
+
+        // Words, ";" separators and quoted operands, with the quotes kept to tell them apart.
+        List<String> tokens = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        while (pos < length) {
+            char ch = line.charAt(pos);
+            int start = pos;
+            if (Character.isWhitespace(ch)) {
+                pos++;
+                continue;
+            } else if (ch == ';') {
+                pos++;
+            } else if (ch == '"') {
+                int close = line.indexOf('"', pos + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unterminated EPD string operand at column " + pos + ": " + line);
+                }
+                pos = close + 1;
+            } else {
+                while (pos < length && !Character.isWhitespace(line.charAt(pos)) && line.charAt(pos) != ';' && line.charAt(pos) != '"') pos++;
+            }
+            tokens.add(line.substring(start, pos));
+            columns.add(start);
+        }
+
+        // A plain FEN line ends with the two move counters instead of operations.
+        if (tokens.size() == 2 && isNumber(tokens.get(0)) && isNumber(tokens.get(1))) {
+            String fen = fields[0] + ' ' + fields[1] + ' ' + fields[2] + ' ' + fields[3] + ' ' + tokens.get(0) + ' ' + tokens.get(1);
+            return new EpdRecord(fen, Map.of());
+        }
+
+        Map<String, List<String>> operations = new LinkedHashMap<>();
+        List<String> current = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (token.equals(";")) {
+                current = null;
+            } else if (token.charAt(0) == '"') {
+                if (current == null) {
+                    throw new IllegalArgumentException("Malformed EPD string operand at column " + columns.get(i) + ": " + line);
+                }
+                current.add(token.substring(1, token.length() - 1));
+            } else if (current == null) {
+                current = new ArrayList<>();
+                operations.put(token, current);
+            } else {
+                current.add(token);
+            }
+        }
+
+        String fen = fields[0] + ' ' + fields[1] + ' ' + fields[2] + ' ' + fields[3] + ' '
+                + firstOperand(operations, "hmvc", "0") + ' ' + firstOperand(operations, "fmvn", "1");
+        return new EpdRecord(fen, operations);
+    }
+
+    private static boolean isNumber(String text) {
+        if (text.isEmpty()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static String firstOperand(Map<String, List<String>> operations, String opcode, String fallback) {
+        List<String> operands = operations.get(opcode);
+        return operands == null || operands.isEmpty() ? fallback : operands.get(0);
+    }
+}
@@ -0,0 +1,84 @@
+package main.engine;
+
+import main.common.Colour;
+import main.common.Square;
+import main.model.Board.Board;
+import main.model.pieces.Piece;
+
+/**
+ * A hand-written evaluation: material, a little piece centralisation, and pawn structure.
+ * <p>
+ * Pawn structure terms are looked up in a {@link PawnHashTable} keyed by the pawn skeleton,
+ * so they are only computed once per distinct skeleton. An instance owns its table and is
+ * therefore not thread-safe; give each search thread its own evaluator.
+ */
+public class ClassicalEvaluator implements Evaluator {
+
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0}; // P N B R Q K
+    private static final int[] CENTRALISATION = {0, 4, 2, 0, 1, 0};
+
+    private final PawnHashTable pawnTable;
+
+    public ClassicalEvaluator() {
+        this(new PawnHashTable());
+    }
+
+    public ClassicalEvaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        int score = 0;
+        long whitePawns = 0L;
+        long blackPawns = 0L;
+        long pawnKey = 0L;
+        int whiteKingFile = 4;
+        int blackKingFile = 4;
+        boolean whiteHasQueen = false;
+        boolean blackHasQueen = false;
+
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                Piece piece = board.getPiece(new Square(r, c));
+                if (piece == null) continue;
+                int index = Zobrist.pieceIndex(piece);
+                int type = index % 6;
+                int sq = r * 8 + c;
+                boolean white = piece.getColor() == Colour.WHITE;
+                int centre = 6 - (Math.abs(2 * r - 7) + Math.abs(2 * c - 7)) / 2;
+                int value = PIECE_VALUES[type] + CENTRALISATION[type] * centre;
+                score += white ? value : -value;
+
+                switch (type) {
+                    case 0 -> {
+                        pawnKey ^= Zobrist.pieceKey(index, sq);
+                        if (white) whitePawns |= 1L << sq; else blackPawns |= 1L << sq;
+                    }
+                    case 4 -> {
+                        if (white) whiteHasQueen = true; else blackHasQueen = true;
+                    }
+                    case 5 -> {
+                        if (white) whiteKingFile = c; else blackKingFile = c;
+                    }
+                    default -> { }
+                }
+            }
+        }
+
+        int slot = pawnTable.probe(pawnKey);
+        if (slot < 0) {
+            slot = PawnStructure.evaluate(pawnKey, whitePawns, blackPawns, pawnTable);
+        }
+        score += pawnTable.score(slot);
+        // King shelter only matters while the opponent still has a queen to attack with.
+        if (blackHasQueen) score -= pawnTable.shieldPenalty(slot, Colour.WHITE, whiteKingFile);
+        if (whiteHasQueen) score += pawnTable.shieldPenalty(slot, Colour.BLACK, blackKingFile);
+
+        return board.getTurn() == Colour.WHITE ? score : -score;
+    }
+
+    public PawnHashTable getPawnHashTable() {
+        return pawnTable;
+    }
+}
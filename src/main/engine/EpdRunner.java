@@ -0,0 +1,248 @@
+package main.engine;
+
+import main.common.EpdRecord;
+import main.common.FenUtility;
+import main.model.Board.Board;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs an EPD test suite: every position is searched with a fixed time or depth budget and
+ * checked against its {@code bm} (best move) and {@code am} (avoid move) operations.
+ * <p>
+ * Positions are spread over a thread pool, one single-threaded search per worker, so a suite
+ * measures tactical strength and speed using every core. A position counts as solved when the
+ * final best move satisfies the operations; time to solution is when the search settled on a
+ * correct move and kept it until the end.
+ * <p>
+ * Usage: java main.engine.EpdRunner &lt;suite.epd&gt; [movetime=1000 | depth=N] [threads=cores] [hash=16]
+ */
+public class EpdRunner {
+
+    private final long moveTimeMillis;
+    private final int depth;
+    private final int hashMb;
+    private final ThreadLocal<Search> searches;
+
+    /**
+     * @param moveTimeMillis Time per position, or 0 to search by depth only.
+     * @param depth          Depth per position; {@link Search#MAX_DEPTH} to search by time only.
+     * @param hashMb         Transposition table size of each worker.
+     */
+    public EpdRunner(long moveTimeMillis, int depth, int hashMb) {
+        this.moveTimeMillis = moveTimeMillis;
+        this.depth = depth;
+        this.hashMb = hashMb;
+        this.searches = ThreadLocal.withInitial(() -> new Search(new TranspositionTable(this.hashMb), new ClassicalEvaluator()));
+    }
+
+    /**
+     * The outcome of one position.
+     *
+     * @param id                  The position's id operation, or its line number.
+     * @param move                The engine's move in SAN.
+     * @param solved              Whether the move satisfies the bm/am operations.
+     * @param timeToSolutionMillis When the search settled on a correct move, or -1 if unsolved.
+     * @param nodes               Nodes searched.
+     * @param timeMillis          Total search time.
+     */
+    public record PositionResult(String id, String move, boolean solved, long timeToSolutionMillis,
+                                 long nodes, long timeMillis) {
+
+        public long nodesPerSecond() {
+            return nodes * 1000 / Math.max(1, timeMillis);
+        }
+    }
+
+    /**
+     * Searches one position on the calling thread.
+     */
+    public PositionResult solve(EpdRecord record, String fallbackId) {
+        Board board = record.toBoard();
+        Map<Integer, String> sanByMove = sanByMove(board);
+        List<String> best = normalize(record.bestMoves());
+        List<String> avoid = normalize(record.avoidMoves());
+
+        Search search = searches.get();
+        search.getTable().clear();
+        long[] solvedSince = {-1};
+        search.setListener(iteration -> {
+            boolean correct = isCorrect(sanByMove.get(iteration.bestMove()), best, avoid);
+            if (!correct) solvedSince[0] = -1;
+            else if (solvedSince[0] < 0) solvedSince[0] = iteration.timeMillis();
+        });
+        TimeManager timeManager = new TimeManager();
+        if (moveTimeMillis > 0) {
+            timeManager.startFixed(moveTimeMillis);
+        } else {
+            timeManager.startInfinite();
+        }
+        SearchResult result = search.search(board, depth, timeManager);
+        search.setListener(null);
+
+        String san = sanByMove.getOrDefault(result.bestMove(), "-");
+        boolean solved = isCorrect(san, best, avoid);
+        String id = record.id() != null ? record.id() : fallbackId;
+        return new PositionResult(id, san, solved, solved ? Math.max(0, solvedSince[0]) : -1, result.nodes(), result.timeMillis());
+    }
+
+    /**
+     * Runs every position of a suite on {@code threads} workers and prints one line per position
+     * in suite order, followed by a summary.
+     *
+     * @return The results in suite order.
+     */
+    public List<PositionResult> run(List<EpdRecord> suite, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<PositionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < suite.size(); i++) {
+            EpdRecord record = suite.get(i);
+            String fallbackId = "#" + (i + 1);
+            futures.add(pool.submit(() -> solve(record, fallbackId)));
+        }
+        List<PositionResult> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                PositionResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    System.err.println("Error solving position " + (i + 1) + ": " + e.getCause());
+                    continue;
+                }
+                results.add(result);
+                System.out.printf("%-16s %-8s %-8s %8s ms %10d nodes %8d nps%n", result.id(), result.move(),
+                        result.solved() ? "solved" : "failed",
+                        result.solved() ? String.valueOf(result.timeToSolutionMillis()) : "-",
+                        result.nodes(), result.nodesPerSecond());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long wallMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        long solved = results.stream().filter(PositionResult::solved).count();
+        long nodes = results.stream().mapToLong(PositionResult::nodes).sum();
+        System.out.println("===========================");
+        System.out.println("Solved         : " + solved + "/" + suite.size());
+        System.out.println("Threads        : " + threads);
+        System.out.println("Wall time (ms) : " + wallMillis);
+        System.out.println("Nodes searched : " + nodes);
+        System.out.println("Nodes/second   : " + nodes * 1000 / wallMillis);
+        return results;
+    }
+
+    /**
+     * Reads an EPD file; blank lines and lines starting with '#' are skipped.
+     */
+    public static List<EpdRecord> readSuite(Path path) throws IOException {
+        List<EpdRecord> suite = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                suite.add(FenUtility.parseEpd(trimmed));
+            }
+        }
+        return suite;
+    }
+
+    private static boolean isCorrect(String san, List<String> best, List<String> avoid) {
+        if (san == null) return false;
+        String move = normalize(san);
+        return (best.isEmpty() || best.contains(move)) && !avoid.contains(move);
+    }
+
+    // The SAN of every legal move, as Board writes it.
+    private static Map<Integer, String> sanByMove(Board board) {
+        int[] moves = new int[256];
+        int count = Moves.generate(board, moves);
+        Map<Integer, String> san = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            san.put(moves[i], new Board(board).applyMove(Moves.start(moves[i]), Moves.end(moves[i]), Moves.promotion(moves[i])));
+        }
+        return san;
+    }
+
+    private static List<String> normalize(List<String> sanMoves) {
+        List<String> normalized = new ArrayList<>(sanMoves.size());
+        for (String san : sanMoves) {
+            normalized.add(normalize(san));
+        }
+        return normalized;
+    }
+
+    /** Drops check marks, annotations and the promotion '=' and spells castling with letter O. */
+    private static String normalize(String san) {
+        StringBuilder normalized = new StringBuilder(san.length());
+        for (int i = 0; i < san.length(); i++) {
+            char ch = san.charAt(i);
+            if (ch == '0') normalized.append('O');
+            else if (ch != '+' && ch != '#' && ch != '!' && ch != '?' && ch != '=') normalized.append(ch);
+        }
+        return normalized.toString();
+    }
+
+    private static final String USAGE =
+            "Usage: java main.engine.EpdRunner <suite.epd> [movetime=1000 | depth=N] [threads=cores] [hash=16]";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println(USAGE);
+            return;
+        }
+        long moveTime = 1000;
+        int depth = Search.MAX_DEPTH;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMb = TranspositionTable.DEFAULT_SIZE_MB;
+        for (int i = 1; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            int value;
+            try {
+                value = Integer.parseInt(option.length > 1 ? option[1] : "");
+            } catch (NumberFormatException e) {
+                value = -1;
+            }
+            // A movetime of 0 means no time limit, allowed only with a depth; everything else must be positive.
+            if (value < (option[0].equals("movetime") ? 0 : 1)) {
+                System.err.println("Error: invalid option " + args[i]);
+                System.err.println(USAGE);
+                return;
+            }
+            switch (option[0]) {
+                case "movetime" -> moveTime = value;
+                case "depth" -> {
+                    depth = Math.min(value, Search.MAX_DEPTH);
+                    if (!containsOption(args, "movetime")) moveTime = 0;
+                }
+                case "threads" -> threads = value;
+                case "hash" -> hashMb = value;
+                default -> System.err.println("Ignoring unknown option: " + args[i]);
+            }
+        }
+        if (moveTime == 0 && !containsOption(args, "depth")) {
+            // Without a depth limit either, every position would be searched forever.
+            System.err.println("Error: movetime=0 needs depth=N");
+            System.err.println(USAGE);
+            return;
+        }
+        new EpdRunner(moveTime, depth, hashMb).run(readSuite(Path.of(args[0])), threads);
+    }
+
+    private static boolean containsOption(String[] args, String name) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package main.engine;
+
+import main.common.Square;
+import main.model.Board.Board;
+
+import java.util.Optional;
+
+/**
+ * A static evaluation function for positions held in a {@link Board}.
+ */
+public interface Evaluator {
+
+    /**
+     * Scores the position in centipawns from the point of view of the side to move.
+     */
+    int evaluate(Board board);
+
+    /**
+     * Called by a search before it starts, with its root position.
+     */
+    default void reset(Board root) {}
+
+    /**
+     * Called by a search just before a move is applied to {@code board}, so evaluators
+     * with incremental state can update it. The board still holds the position before the move.
+     */
+    default void makeMove(Board board, Square start, Square end, Optional<String> promotionPiece) {}
+
+    /**
+     * Called by a search after taking back the move most recently passed to {@link #makeMove}.
+     */
+    default void unmakeMove() {}
+}
@@ -0,0 +1,23 @@
+package main.engine;
+
+/**
+ * The outcome of a {@link MateSolver} run.
+ *
+ * @param status     Whether a mate was proven, disproven or the limits ran out first.
+ * @param mateIn     The number of attacker moves in the proven mate, or 0.
+ * @param line       The mating line, attacker's moves first, packed as in {@link Moves}. May stop
+ *                   short of mate if parts of the proof were evicted from the node table.
+ * @param nodes      Nodes expanded.
+ * @param timeMillis Time spent.
+ */
+public record MateResult(Status status, int mateIn, int[] line, long nodes, long timeMillis) {
+
+    public enum Status {
+        /** The side to move mates in {@code mateIn} moves against any defence. */
+        MATE,
+        /** There is no forced mate within the requested number of moves. */
+        NO_MATE,
+        /** The node or time limit was reached before the question was settled. */
+        UNKNOWN
+    }
+}
@@ -0,0 +1,322 @@
+package main.engine;
+
+import main.model.Board.Board;
+
+import java.util.Arrays;
+
+/**
+ * Proves or disproves forced mates with depth-first proof-number search (df-pn).
+ * <p>
+ * Proof-number search grows the game tree toward the moves that are cheapest to prove or refute,
+ * so narrow forcing lines are followed deep without the full-width cost alpha-beta pays at
+ * every ply. Proof and disproof numbers are kept in a fixed-size table with four-way buckets;
+ * when a bucket is full the entry whose subtree took the least work to compute is replaced, so
+ * memory stays bounded however long the search runs.
+ * <p>
+ * Table keys combine the position hash with the number of attacker moves left and the
+ * checks-only mode, so the move-limited tree has no cycles, and the same position searched at
+ * different remaining depths or in the other mode never shares an entry.
+ * <p>
+ * Solve speed is bounded by {@link Moves#generate} and {@link Board} copies, at roughly 10,000 to
+ * 50,000 nodes a second. Full width, that proves mates of four or five moves in seconds, and mates
+ * of six to nine moves in tens of seconds or more, depending on the material: the KQK mate in 9
+ * from the centre takes about 15s. With {@link #setChecksOnly}, mates by continuous checks of
+ * about seven moves, the usual puzzle case, take seconds. Mates of 15 or more moves are out of
+ * reach until the board representation gets faster, so size the node and time limits to match.
+ * <p>
+ * Usage: java main.engine.MateSolver "&lt;fen&gt;" [maxMoves=5] [nodeLimit] [timeLimitMillis]
+ */
+public class MateSolver {
+
+    public static final int DEFAULT_TABLE_MB = 32;
+
+    private static final int INF = 100_000_000;
+    private static final int BUCKET = 4;
+    private static final int ENTRY_BYTES = 24;
+    private static final long MOVES_LEFT_KEY = 0x9E3779B97F4A7C15L;
+    private static final long CHECKS_ONLY_KEY = 0xC2B2AE3D27D4EB4FL;
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final long[] work;
+    private final int mask;
+
+    private long nodeLimit = Long.MAX_VALUE;
+    private long timeLimitMillis = Long.MAX_VALUE;
+    private boolean checksOnly;
+
+    private long nodes;
+    private long deadline;
+    private boolean aborted;
+
+    public MateSolver() {
+        this(DEFAULT_TABLE_MB);
+    }
+
+    /**
+     * @param tableMb Size of the node table in megabytes.
+     */
+    public MateSolver(int tableMb) {
+        long entries = Math.max(1024, (long) Math.max(1, tableMb) * 1024 * 1024 / ENTRY_BYTES);
+        int size = (int) Math.min(1 << 28, Long.highestOneBit(entries));
+        keys = new long[size];
+        proofs = new int[size];
+        disproofs = new int[size];
+        work = new long[size];
+        mask = size - 1;
+    }
+
+    /** Stops a solve after this many expanded nodes; the result is then {@link MateResult.Status#UNKNOWN}. */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /** Stops a solve after this much time; the result is then {@link MateResult.Status#UNKNOWN}. */
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Restricts the attacker to checking moves. Much faster for the usual puzzle mates, but a
+     * {@link MateResult.Status#NO_MATE} result then only rules out mates by continuous checks.
+     * The mode is part of the table key, so switching it needs no {@link #clear}: a disproof
+     * found with checks only is never taken for a full-width one.
+     */
+    public void setChecksOnly(boolean checksOnly) {
+        this.checksOnly = checksOnly;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(work, 0L);
+    }
+
+    /**
+     * Looks for the shortest forced mate by the side to move within {@code maxMoves} moves.
+     * Mates in 1, 2, ... are tried in turn, so a proven mate is also the shortest.
+     */
+    public MateResult solve(Board root, int maxMoves) {
+        long start = System.nanoTime();
+        nodes = 0;
+        aborted = false;
+        deadline = timeLimitMillis == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimitMillis * 1_000_000;
+        long rootHash = Zobrist.hash(root);
+
+        for (int movesLeft = 1; movesLeft <= maxMoves; movesLeft++) {
+            long key = tableKey(rootHash, movesLeft);
+            int slot;
+            while ((slot = probe(key)) < 0 || proofs[slot] != 0 && disproofs[slot] != 0) {
+                expand(root, key, movesLeft, true, INF, INF);
+                if (aborted) {
+                    return new MateResult(MateResult.Status.UNKNOWN, 0, new int[0], nodes, elapsedMillis(start));
+                }
+            }
+            if (proofs[slot] == 0) {
+                int[] line = mainLine(root, movesLeft);
+                return new MateResult(MateResult.Status.MATE, movesLeft, line, nodes, elapsedMillis(start));
+            }
+        }
+        return new MateResult(MateResult.Status.NO_MATE, 0, new int[0], nodes, elapsedMillis(start));
+    }
+
+    /**
+     * Multiple-iterative deepening: expands the node until its proof number reaches
+     * {@code thresholdProof} or its disproof number reaches {@code thresholdDisproof}.
+     * Numbers are always from the attacker's point of view; attacker nodes are OR nodes.
+     */
+    private void expand(Board board, long key, int movesLeft, boolean attacker, int thresholdProof, int thresholdDisproof) {
+        long startNodes = nodes++;
+        if (nodes >= nodeLimit || (nodes & 1023) == 0 && System.nanoTime() >= deadline) {
+            aborted = true;
+            return;
+        }
+        if (attacker && movesLeft == 0) {
+            store(key, INF, 0, 1);
+            return;
+        }
+        int[] moves = new int[256];
+        int count = Moves.generate(board, moves);
+        if (count == 0 || !attacker && movesLeft == 0) {
+            boolean mated = count == 0 && !attacker && board.isInCheck(board.getTurn());
+            store(key, mated ? 0 : INF, mated ? INF : 0, 1);
+            return;
+        }
+
+        Board[] children = new Board[count];
+        long[] childKeys = new long[count];
+        int[] initialProof = new int[count];
+        int childMovesLeft = attacker ? movesLeft - 1 : movesLeft;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            Board child = new Board(board);
+            child.makeMove(Moves.start(moves[i]), Moves.end(moves[i]), Moves.promotion(moves[i]));
+            boolean check = child.getKingInCheckSquare() != null;
+            if (attacker && checksOnly && !check) continue;
+            children[kept] = child;
+            childKeys[kept] = tableKey(Zobrist.hash(child), childMovesLeft);
+            // Checks leave the defender few replies, so they are tried first.
+            initialProof[kept] = attacker && !check ? 2 : 1;
+            kept++;
+        }
+        if (kept == 0) {
+            store(key, INF, 0, 1);
+            return;
+        }
+
+        int proof;
+        int disproof;
+        while (true) {
+            // Combine the children: OR nodes need one proof, AND nodes need all of them.
+            int best = 0;
+            int bestValue = INF + 1;
+            int secondValue = INF;
+            long sum = 0;
+            int bestChildProof = 0;
+            int bestChildDisproof = 0;
+            for (int i = 0; i < kept; i++) {
+                int slot = probe(childKeys[i]);
+                int childProof = slot < 0 ? initialProof[i] : proofs[slot];
+                int childDisproof = slot < 0 ? 1 : disproofs[slot];
+                int selectValue = attacker ? childProof : childDisproof;
+                sum += attacker ? childDisproof : childProof;
+                if (selectValue < bestValue) {
+                    secondValue = bestValue;
+                    bestValue = selectValue;
+                    best = i;
+                    bestChildProof = childProof;
+                    bestChildDisproof = childDisproof;
+                } else if (selectValue < secondValue) {
+                    secondValue = selectValue;
+                }
+            }
+            int sumValue = (int) Math.min(INF, sum);
+            proof = attacker ? bestValue : sumValue;
+            disproof = attacker ? sumValue : bestValue;
+            if (proof >= thresholdProof || disproof >= thresholdDisproof || aborted) {
+                break;
+            }
+            // The 1 + 1/4 factor lets the child run a little past its sibling before switching back.
+            int secondBound = (int) Math.min(INF, secondValue + 1L + secondValue / 4);
+            int childProofThreshold;
+            int childDisproofThreshold;
+            if (attacker) {
+                childProofThreshold = Math.min(thresholdProof, secondBound);
+                childDisproofThreshold = clamp((long) thresholdDisproof - disproof + bestChildDisproof);
+            } else {
+                childDisproofThreshold = Math.min(thresholdDisproof, secondBound);
+                childProofThreshold = clamp((long) thresholdProof - proof + bestChildProof);
+            }
+            expand(children[best], childKeys[best], childMovesLeft, !attacker, childProofThreshold, childDisproofThreshold);
+        }
+        if (!aborted) {
+            store(key, proof, disproof, nodes - startNodes);
+        }
+    }
+
+    /**
+     * Follows the proof. Each child is ranked by the fewest attacker moves it has been proven
+     * with: the attacker plays the quickest mate and the defender the slowest one. Ties go to the
+     * move whose proof took the least work for the attacker and the most for the defender.
+     */
+    private int[] mainLine(Board root, int mateIn) {
+        int[] line = new int[2 * mateIn];
+        int length = 0;
+        Board board = root;
+        int movesLeft = mateIn;
+        boolean attacker = true;
+        int[] moves = new int[256];
+        while (length < line.length) {
+            int count = Moves.generate(board, moves);
+            int maxChildMovesLeft = attacker ? movesLeft - 1 : movesLeft;
+            int chosen = Moves.NONE;
+            Board chosenBoard = null;
+            int chosenMovesLeft = 0;
+            long chosenWork = 0;
+            for (int i = 0; i < count; i++) {
+                Board child = new Board(board);
+                child.makeMove(Moves.start(moves[i]), Moves.end(moves[i]), Moves.promotion(moves[i]));
+                long hash = Zobrist.hash(child);
+                for (int m = 0; m <= maxChildMovesLeft; m++) {
+                    int slot = probe(tableKey(hash, m));
+                    if (slot < 0 || proofs[slot] != 0) continue;
+                    boolean better = chosen == Moves.NONE
+                            || (attacker ? m < chosenMovesLeft : m > chosenMovesLeft)
+                            || m == chosenMovesLeft && (attacker ? work[slot] < chosenWork : work[slot] > chosenWork);
+                    if (better) {
+                        chosen = moves[i];
+                        chosenBoard = child;
+                        chosenMovesLeft = m;
+                        chosenWork = work[slot];
+                    }
+                    break;
+                }
+            }
+            if (chosen == Moves.NONE) {
+                break;
+            }
+            line[length++] = chosen;
+            board = chosenBoard;
+            movesLeft = chosenMovesLeft;
+            attacker = !attacker;
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    private int probe(long key) {
+        int base = (int) key & mask & -BUCKET;
+        for (int i = base; i < base + BUCKET; i++) {
+            if (keys[i] == key && work[i] != 0) return i;
+        }
+        return -1;
+    }
+
+    private void store(long key, int proof, int disproof, long subtreeWork) {
+        int base = (int) key & mask & -BUCKET;
+        int slot = base;
+        for (int i = base; i < base + BUCKET; i++) {
+            if (keys[i] == key || work[i] == 0) {
+                slot = i;
+                break;
+            }
+            if (work[i] < work[slot]) slot = i;
+        }
+        keys[slot] = key;
+        proofs[slot] = proof;
+        disproofs[slot] = disproof;
+        work[slot] = Math.max(1, subtreeWork);
+    }
+
+    private long tableKey(long hash, int movesLeft) {
+        return hash ^ movesLeft * MOVES_LEFT_KEY ^ (checksOnly ? CHECKS_ONLY_KEY : 0);
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.max(0, Math.min(INF, value));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java main.engine.MateSolver \"<fen>\" [maxMoves=5] [nodeLimit] [timeLimitMillis]");
+            return;
+        }
+        Board board = new Board();
+        board.updateFromFen(args[0]);
+        int maxMoves = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        MateSolver solver = new MateSolver();
+        if (args.length > 2) solver.setNodeLimit(Long.parseLong(args[2]));
+        if (args.length > 3) solver.setTimeLimitMillis(Long.parseLong(args[3]));
+
+        MateResult result = solver.solve(board, maxMoves);
+        StringBuilder line = new StringBuilder();
+        for (int move : result.line()) {
+            line.append(' ').append(Moves.toUci(move));
+        }
+        System.out.println(result.status() + (result.status() == MateResult.Status.MATE ? " in " + result.mateIn() : "")
+                + " nodes " + result.nodes() + " time " + result.timeMillis() + "ms" + line);
+    }
+}
@@ -0,0 +1,107 @@
+package main.engine;
+
+import main.common.Colour;
+import main.common.Square;
+import main.model.Board.Board;
+import main.model.pieces.Pawn;
+import main.model.pieces.Piece;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Packs moves into ints so engines, books and tables can store them without objects.
+ * <p>
+ * Layout: bits 0-5 start square, bits 6-11 end square (rank * 8 + file, as in {@link Board}),
+ * bits 12-14 promotion (0 none, 1 N, 2 B, 3 R, 4 Q). {@link #NONE} is never a legal move.
+ */
+public final class Moves {
+
+    public static final int NONE = 0;
+
+    private static final String PROMOTIONS = " NBRQ";
+
+    private Moves() {}
+
+    public static int encode(Square start, Square end, char promotion) {
+        int promo = Math.max(0, PROMOTIONS.indexOf(Character.toUpperCase(promotion)));
+        return index(start) | index(end) << 6 | promo << 12;
+    }
+
+    public static int encode(Square start, Square end, Optional<String> promotionPiece) {
+        return encode(start, end, promotionPiece.map(p -> p.charAt(0)).orElse(' '));
+    }
+
+    public static Square start(int move) {
+        return square(move & 63);
+    }
+
+    public static Square end(int move) {
+        return square((move >>> 6) & 63);
+    }
+
+    /** The promotion piece as the letter {@link Board} expects ("Q", "R", ...), if any. */
+    public static Optional<String> promotion(int move) {
+        int promo = (move >>> 12) & 7;
+        return promo == 0 ? Optional.empty() : Optional.of(String.valueOf(PROMOTIONS.charAt(promo)));
+    }
+
+    /** Long algebraic notation as used by UCI, e.g. "e2e4" or "e7e8q". */
+    public static String toUci(int move) {
+        if (move == NONE) return "0000";
+        String uci = start(move).toAlgebraic() + end(move).toAlgebraic();
+        return promotion(move).map(p -> uci + p.toLowerCase()).orElse(uci);
+    }
+
+    /**
+     * Parses long algebraic notation ("e2e4", "e7e8q").
+     *
+     * @throws IllegalArgumentException if the text is not a well-formed move.
+     */
+    public static int fromUci(String uci) {
+        if (uci.length() != 4 && uci.length() != 5) {
+            throw new IllegalArgumentException("Invalid UCI move: " + uci);
+        }
+        char promotion = uci.length() == 5 ? uci.charAt(4) : ' ';
+        return encode(Square.fromAlgebraic(uci.substring(0, 2)), Square.fromAlgebraic(uci.substring(2, 4)), promotion);
+    }
+
+    /**
+     * Generates every legal move for the side to move, in board scan order (a8 to h1 by start
+     * square, then by destination). Each pawn move to the last rank appears once per promotion
+     * piece, queen first. The order is deterministic and stable between versions.
+     *
+     * @return The number of moves written into {@code moves}, which must hold at least 256 entries.
+     */
+    public static int generate(Board board, int[] moves) {
+        int count = 0;
+        Colour turn = board.getTurn();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                Square start = new Square(r, c);
+                Piece piece = board.getPiece(start);
+                if (piece == null || piece.getColor() != turn) continue;
+                List<Square> targets = board.getLegalMovesForPiece(start);
+                for (Square end : targets) {
+                    if (piece instanceof Pawn && (end.rank() == 0 || end.rank() == 7)) {
+                        moves[count++] = encode(start, end, 'Q');
+                        moves[count++] = encode(start, end, 'R');
+                        moves[count++] = encode(start, end, 'B');
+                        moves[count++] = encode(start, end, 'N');
+                    } else {
+                        moves[count++] = encode(start, end, ' ');
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int index(Square square) {
+        return square.rank() * 8 + square.file();
+    }
+
+    private static Square square(int index) {
+        return new Square(index / 8, index % 8);
+    }
+}
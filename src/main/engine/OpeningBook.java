@@ -0,0 +1,125 @@
+package main.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only opening book memory-mapped from disk.
+ * <p>
+ * The file is a 16-byte header (magic {@code "CBK1"}, int version, long entry count) followed by
+ * fixed 24-byte entries sorted by position hash and then by descending weight:
+ * long {@link Zobrist#hash} key, short packed {@link Moves} move, unsigned short weight,
+ * int white wins, int draws, int black wins.
+ * <p>
+ * Lookups binary-search the mapping directly and allocate nothing, and since the file is only
+ * ever mapped read-only the operating system shares its pages between every process using it.
+ * Instances are safe to share between threads.
+ */
+public final class OpeningBook implements Closeable {
+
+    public static final int MAGIC = 0x43424B31; // "CBK1"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int ENTRY_SIZE = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+
+    private OpeningBook(FileChannel channel, MappedByteBuffer buffer, int entryCount) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.entryCount = entryCount;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Unsupported opening book size: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            long count = buffer.getLong(8);
+            if (HEADER_SIZE + count * ENTRY_SIZE != size) {
+                throw new IOException("Corrupt opening book: " + path);
+            }
+            return new OpeningBook(channel, buffer, (int) count);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Finds the first entry for a position.
+     *
+     * @return The entry index, or -1 if the position is not in the book. Further moves for the
+     *         same position follow at consecutive indices while {@link #key} matches.
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < entryCount && key(low) == key ? low : -1;
+    }
+
+    /**
+     * Returns the highest-weighted book move for a position, or {@link Moves#NONE}.
+     */
+    public int bestMove(long key) {
+        int index = find(key);
+        return index < 0 ? Moves.NONE : move(index);
+    }
+
+    public long key(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    public int move(int index) {
+        return buffer.getShort(offset(index) + 8) & 0xFFFF;
+    }
+
+    public int weight(int index) {
+        return buffer.getShort(offset(index) + 10) & 0xFFFF;
+    }
+
+    public int whiteWins(int index) {
+        return buffer.getInt(offset(index) + 12);
+    }
+
+    public int draws(int index) {
+        return buffer.getInt(offset(index) + 16);
+    }
+
+    public int blackWins(int index) {
+        return buffer.getInt(offset(index) + 20);
+    }
+
+    private static int offset(int index) {
+        return HEADER_SIZE + index * ENTRY_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
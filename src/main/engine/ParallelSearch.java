@@ -0,0 +1,202 @@
+package main.engine;
+
+import main.model.Board.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a {@link Search} on several threads that share one {@link TranspositionTable} ("Lazy SMP").
+ * <p>
+ * The calling thread runs the main search, which owns the time limits and reports iterations.
+ * Helper threads search the same root without limits and only feed the shared table; they are
+ * stopped as soon as the main search returns. With one thread this is a plain {@link Search}.
+ */
+public class ParallelSearch {
+
+    private final TranspositionTable table;
+    private final Supplier<Evaluator> evaluatorFactory;
+    private Search[] searches;
+    private ExecutorService helperPool;
+    private SearchListener listener;
+    private long[] gameHistory = new long[0];
+    private boolean statisticsEnabled;
+
+    public ParallelSearch(int hashMb, int threads) {
+        this(hashMb, threads, ClassicalEvaluator::new);
+    }
+
+    /**
+     * @param hashMb           Size of the shared transposition table in megabytes.
+     * @param threads          Number of search threads, including the caller's.
+     * @param evaluatorFactory Creates one evaluator per thread; evaluators keep per-thread state.
+     */
+    public ParallelSearch(int hashMb, int threads, Supplier<Evaluator> evaluatorFactory) {
+        this.table = new TranspositionTable(hashMb);
+        this.evaluatorFactory = evaluatorFactory;
+        setThreads(threads);
+    }
+
+    /**
+     * Changes the number of search threads. Must not be called while a search is running.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table, evaluatorFactory.get());
+            searches[i].setGameHistory(gameHistory);
+            searches[i].setStatistics(statisticsEnabled ? new SearchStatistics() : null);
+        }
+        helperPool = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        setListener(listener);
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    /**
+     * Resizes the shared table, discarding its contents. Must not be called while a search is running.
+     */
+    public void setHashMb(int sizeMb) {
+        table.resize(sizeMb);
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Sets the listener notified after each iteration of the main search. Reported node
+     * counts cover all threads.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+        searches[0].setListener(listener == null ? null : result -> listener.onIteration(
+                new SearchResult(result.bestMove(), result.ponderMove(), result.score(), result.depth(),
+                        getNodes(), result.timeMillis(), result.pv())));
+    }
+
+    /**
+     * Turns statistics collection on or off. Each thread counts into its own
+     * {@link SearchStatistics}; enabling starts every thread from zero. Must not be called while a
+     * search is running.
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        this.statisticsEnabled = enabled;
+        for (Search search : searches) {
+            search.setStatistics(enabled ? new SearchStatistics() : null);
+        }
+    }
+
+    /**
+     * Merges the threads' statistics collected since they were enabled: node and cutoff counts of
+     * all threads, iteration times of the main search. Call between searches.
+     *
+     * @return A new merged instance, or null if statistics are disabled.
+     */
+    public SearchStatistics getStatistics() {
+        if (!statisticsEnabled) return null;
+        SearchStatistics merged = new SearchStatistics();
+        merged.merge(searches[0].getStatistics());
+        for (int i = 1; i < searches.length; i++) {
+            merged.mergeCounters(searches[i].getStatistics());
+        }
+        return merged;
+    }
+
+    /** See {@link Search#setGameHistory}. */
+    public void setGameHistory(long[] hashes) {
+        this.gameHistory = hashes.clone();
+        for (Search search : searches) {
+            search.setGameHistory(gameHistory);
+        }
+    }
+
+    /** Replaces the time limits of the running main search, e.g. on a ponder hit. */
+    public void setTimeManager(TimeManager timeManager) {
+        searches[0].setTimeManager(timeManager);
+    }
+
+    /** Asks all threads to stop as soon as possible. */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /** Total nodes searched by all threads in the current or last search. */
+    public long getNodes() {
+        long nodes = 0;
+        for (Search search : searches) {
+            nodes += search.getNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * Searches the position on all threads. Blocks the caller, which runs the main search.
+     *
+     * @return The main search's result, with the node count of all threads.
+     */
+    public SearchResult search(Board root, int maxDepth, TimeManager timeManager) throws InterruptedException {
+        Search[] workers = this.searches;
+        List<Future<SearchResult>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Search helper = workers[i];
+            Board copy = new Board(root);
+            TimeManager unlimited = new TimeManager();
+            unlimited.startInfinite();
+            helpers.add(helperPool.submit(() -> helper.search(copy, maxDepth, unlimited)));
+        }
+        SearchResult result;
+        try {
+            result = workers[0].search(root, maxDepth, timeManager);
+        } finally {
+            for (int i = 1; i < workers.length; i++) {
+                stopAndWait(workers[i], helpers.get(i - 1));
+            }
+        }
+        return new SearchResult(result.bestMove(), result.ponderMove(), result.score(), result.depth(),
+                getNodes(), result.timeMillis(), result.pv());
+    }
+
+    // A helper that had not started yet when stopped would clear the flag and run on; keep stopping until done.
+    private static void stopAndWait(Search search, Future<SearchResult> task) throws InterruptedException {
+        while (true) {
+            search.stop();
+            try {
+                task.get(1, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                // still unwinding
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper search failed", e.getCause());
+            }
+        }
+    }
+
+    /** Stops the helper threads; the instance cannot search on more than one thread afterwards. */
+    public void close() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+}
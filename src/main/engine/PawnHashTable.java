@@ -0,0 +1,110 @@
+package main.engine;
+
+import main.common.Colour;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size cache of pawn structure evaluations keyed by {@link Zobrist#pawnKey}.
+ * <p>
+ * All entries live in parallel primitive arrays, so probing never allocates. A table
+ * is not thread-safe; each search thread is expected to own its own instance.
+ */
+public final class PawnHashTable {
+
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final boolean[] used;
+    private final int[] scores;
+    private final long[] whitePassed;
+    private final long[] blackPassed;
+    private final long[] shields;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    public PawnHashTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /**
+     * @param entries The requested number of entries, rounded up to a power of two.
+     */
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries - 1) << 1);
+        this.keys = new long[size];
+        this.used = new boolean[size];
+        this.scores = new int[size];
+        this.whitePassed = new long[size];
+        this.blackPassed = new long[size];
+        this.shields = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up a pawn key.
+     *
+     * @return The slot holding the entry, or -1 if the structure has not been evaluated yet.
+     */
+    public int probe(long key) {
+        probes++;
+        int slot = (int) key & mask;
+        if (used[slot] && keys[slot] == key) {
+            hits++;
+            return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores an evaluated pawn structure, replacing whatever occupied the slot.
+     *
+     * @return The slot the entry was written to.
+     */
+    public int store(long key, int score, long whitePassedPawns, long blackPassedPawns, long packedShields) {
+        int slot = (int) key & mask;
+        keys[slot] = key;
+        used[slot] = true;
+        scores[slot] = score;
+        whitePassed[slot] = whitePassedPawns;
+        blackPassed[slot] = blackPassedPawns;
+        shields[slot] = packedShields;
+        return slot;
+    }
+
+    /** The structure score of a slot in centipawns, from White's point of view. */
+    public int score(int slot) {
+        return scores[slot];
+    }
+
+    /** The passed pawns of one side as a square bitmask (bit = rank * 8 + file). */
+    public long passedPawns(int slot, Colour colour) {
+        return colour == Colour.WHITE ? whitePassed[slot] : blackPassed[slot];
+    }
+
+    /** The pawn shield penalty for a king of the given colour standing on the given file. */
+    public int shieldPenalty(int slot, Colour colour, int kingFile) {
+        return PawnStructure.unpackShield(shields[slot], colour, kingFile);
+    }
+
+    public long getProbes() { return probes; }
+    public long getHits() { return hits; }
+    public int getCapacity() { return keys.length; }
+
+    /** The fraction of probes that found their entry, between 0 and 1. */
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        resetStatistics();
+    }
+}
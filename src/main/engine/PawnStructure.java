@@ -0,0 +1,152 @@
+package main.engine;
+
+import main.common.Colour;
+
+/**
+ * Evaluates pawn skeletons held as square bitmasks (bit = rank * 8 + file, rank 0 being
+ * the eighth rank as in {@link main.model.Board.Board}).
+ * <p>
+ * The terms here only depend on pawn placement, which is what makes them cacheable in a
+ * {@link PawnHashTable}.
+ */
+public final class PawnStructure {
+
+    private static final int DOUBLED_PENALTY = 15;
+    private static final int ISOLATED_PENALTY = 12;
+    private static final int BACKWARD_PENALTY = 8;
+    private static final int[] PASSED_BONUS = {0, 5, 10, 20, 35, 60, 100, 0};
+
+    private static final int SHIELD_ADVANCED_PENALTY = 10;
+    private static final int SHIELD_MISSING_PENALTY = 25;
+    private static final int[][] WING_FILES = {{0, 1, 2}, {3, 4}, {5, 6, 7}};
+
+    private static final long[] FILE_MASKS = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long[] WHITE_PASSED_SPAN = new long[64];
+    private static final long[] BLACK_PASSED_SPAN = new long[64];
+    private static final long[] WHITE_SUPPORT_SPAN = new long[64];
+    private static final long[] BLACK_SUPPORT_SPAN = new long[64];
+
+    static {
+        for (int f = 0; f < 8; f++) {
+            FILE_MASKS[f] = 0x0101010101010101L << f;
+        }
+        for (int f = 0; f < 8; f++) {
+            ADJACENT_FILES[f] = (f > 0 ? FILE_MASKS[f - 1] : 0L) | (f < 7 ? FILE_MASKS[f + 1] : 0L);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int rank = sq / 8;
+            long span = FILE_MASKS[sq % 8] | ADJACENT_FILES[sq % 8];
+            long ahead = 0L;
+            long behind = 0L;
+            for (int r = 0; r < 8; r++) {
+                long rankMask = 0xFFL << (r * 8);
+                if (r < rank) ahead |= rankMask;
+                if (r > rank) behind |= rankMask;
+            }
+            long sameRank = 0xFFL << (rank * 8);
+            // White moves towards rank 0, Black towards rank 7.
+            WHITE_PASSED_SPAN[sq] = span & ahead;
+            BLACK_PASSED_SPAN[sq] = span & behind;
+            WHITE_SUPPORT_SPAN[sq] = ADJACENT_FILES[sq % 8] & (behind | sameRank);
+            BLACK_SUPPORT_SPAN[sq] = ADJACENT_FILES[sq % 8] & (ahead | sameRank);
+        }
+    }
+
+    private PawnStructure() {}
+
+    /**
+     * Evaluates a pawn skeleton and stores the result in the table.
+     *
+     * @return The slot the evaluation was stored in.
+     */
+    public static int evaluate(long key, long whitePawns, long blackPawns, PawnHashTable table) {
+        long whitePassed = passedPawns(whitePawns, blackPawns, Colour.WHITE);
+        long blackPassed = passedPawns(blackPawns, whitePawns, Colour.BLACK);
+        int score = sideScore(whitePawns, blackPawns, whitePassed, Colour.WHITE)
+                - sideScore(blackPawns, whitePawns, blackPassed, Colour.BLACK);
+        long packedShields = 0L;
+        for (int wing = 0; wing < WING_FILES.length; wing++) {
+            packedShields |= (long) shield(whitePawns, Colour.WHITE, wing) << (wing * 8);
+            packedShields |= (long) shield(blackPawns, Colour.BLACK, wing) << (24 + wing * 8);
+        }
+        return table.store(key, score, whitePassed, blackPassed, packedShields);
+    }
+
+    /**
+     * Extracts the shield penalty for a king on the given file from a packed shield word.
+     */
+    static int unpackShield(long packedShields, Colour colour, int kingFile) {
+        int wing = kingFile <= 2 ? 0 : (kingFile <= 4 ? 1 : 2);
+        int shift = (colour == Colour.WHITE ? 0 : 24) + wing * 8;
+        return (int) ((packedShields >>> shift) & 0xFF);
+    }
+
+    private static long passedPawns(long own, long enemy, Colour colour) {
+        long passed = 0L;
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long span = colour == Colour.WHITE ? WHITE_PASSED_SPAN[sq] : BLACK_PASSED_SPAN[sq];
+            if ((enemy & span) == 0) {
+                passed |= 1L << sq;
+            }
+        }
+        return passed;
+    }
+
+    private static int sideScore(long own, long enemy, long passed, Colour colour) {
+        int score = 0;
+        for (int f = 0; f < 8; f++) {
+            int onFile = Long.bitCount(own & FILE_MASKS[f]);
+            if (onFile > 1) {
+                score -= DOUBLED_PENALTY * (onFile - 1);
+            }
+            if (onFile > 0 && (own & ADJACENT_FILES[f]) == 0) {
+                score -= ISOLATED_PENALTY * onFile;
+            }
+        }
+
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int rank = sq / 8;
+            int file = sq % 8;
+            int advancement = colour == Colour.WHITE ? 6 - rank : rank - 1;
+            if ((passed & (1L << sq)) != 0) {
+                score += PASSED_BONUS[Math.max(0, Math.min(7, advancement))];
+                continue;
+            }
+            long support = colour == Colour.WHITE ? WHITE_SUPPORT_SPAN[sq] : BLACK_SUPPORT_SPAN[sq];
+            if ((own & support) == 0 && (own & ADJACENT_FILES[file]) != 0 && isStopSquareAttacked(enemy, rank, file, colour)) {
+                score -= BACKWARD_PENALTY;
+            }
+        }
+        return score;
+    }
+
+    private static boolean isStopSquareAttacked(long enemy, int rank, int file, Colour colour) {
+        // An enemy pawn attacks the stop square from two ranks further up the board.
+        int attackerRank = colour == Colour.WHITE ? rank - 2 : rank + 2;
+        if (attackerRank < 0 || attackerRank > 7) {
+            return false;
+        }
+        long attackers = (0xFFL << (attackerRank * 8)) & ADJACENT_FILES[file];
+        return (enemy & attackers) != 0;
+    }
+
+    private static int shield(long own, Colour colour, int wing) {
+        int homeRank = colour == Colour.WHITE ? 6 : 1;
+        int nextRank = colour == Colour.WHITE ? 5 : 2;
+        int penalty = 0;
+        for (int file : WING_FILES[wing]) {
+            if ((own & (1L << (homeRank * 8 + file))) != 0) {
+                continue;
+            }
+            penalty += (own & (1L << (nextRank * 8 + file))) != 0 ? SHIELD_ADVANCED_PENALTY : SHIELD_MISSING_PENALTY;
+        }
+        return penalty;
+    }
+}
@@ -0,0 +1,157 @@
+package main.engine;
+
+import main.model.Board.Board;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thinks on the opponent's time.
+ * <p>
+ * After the engine moves, {@link #start} searches the position reached by the expected reply
+ * (the second move of the principal variation) without a deadline. When the opponent's actual
+ * move arrives, {@link #resolve} either lets that search continue under the engine's own time
+ * limits (a ponder hit) or stops it (a miss). Either way the shared transposition table has been
+ * warmed for the positions that follow.
+ * <p>
+ * Ponder searches run on a caller-supplied executor, normally a fixed pool shared by every game,
+ * so the total CPU used for pondering is bounded by the pool size no matter how many games run.
+ * A ponder task that never got a thread before the opponent moved is simply dropped.
+ */
+public class Ponderer {
+
+    /** Default cap on the time spent pondering a single opponent move. */
+    public static final long DEFAULT_MAX_PONDER_MILLIS = 60_000;
+
+    private final Search search;
+    private final ExecutorService executor;
+    private final long maxPonderMillis;
+
+    private Future<SearchResult> task;
+    private AtomicBoolean started;
+    private int expectedMove = Moves.NONE;
+
+    public Ponderer(Search search, ExecutorService executor) {
+        this(search, executor, DEFAULT_MAX_PONDER_MILLIS);
+    }
+
+    public Ponderer(Search search, ExecutorService executor, long maxPonderMillis) {
+        this.search = search;
+        this.executor = executor;
+        this.maxPonderMillis = maxPonderMillis;
+    }
+
+    /**
+     * Starts pondering.
+     *
+     * @param position     The position after the engine's own move, with the opponent to move.
+     * @param expectedMove The reply to ponder on, packed as in {@link Moves}.
+     * @return false if there is nothing to ponder on.
+     */
+    public synchronized boolean start(Board position, int expectedMove) {
+        cancel();
+        if (expectedMove == Moves.NONE || !position.isLegalMove(Moves.start(expectedMove), Moves.end(expectedMove))) {
+            return false;
+        }
+        Board afterReply = new Board(position);
+        afterReply.makeMove(Moves.start(expectedMove), Moves.end(expectedMove), Moves.promotion(expectedMove));
+
+        TimeManager ponderLimit = new TimeManager(0);
+        ponderLimit.startFixed(maxPonderMillis);
+        AtomicBoolean taskStarted = new AtomicBoolean(false);
+        this.started = taskStarted;
+        this.expectedMove = expectedMove;
+        this.task = executor.submit(() -> {
+            // Claim the task; if the opponent already moved, the canceller got here first.
+            if (!taskStarted.compareAndSet(false, true)) {
+                return null;
+            }
+            return search.search(afterReply, Search.MAX_DEPTH, ponderLimit);
+        });
+        return true;
+    }
+
+    public synchronized boolean isPondering() {
+        return task != null && !task.isDone();
+    }
+
+    /**
+     * Handles the opponent's actual move.
+     *
+     * @param actualMove  The move the opponent played.
+     * @param timeManager Already started with the engine's time for its next move; used on a hit.
+     * @return The finished search result on a ponder hit, or null if the caller must search itself.
+     */
+    public synchronized SearchResult resolve(int actualMove, TimeManager timeManager) throws InterruptedException {
+        if (task == null) {
+            return null;
+        }
+        Future<SearchResult> current = task;
+        boolean hit = actualMove == expectedMove;
+        task = null;
+        expectedMove = Moves.NONE;
+        if (!hit) {
+            stopAndWait(current);
+            return null;
+        }
+        if (started.compareAndSet(false, true)) {
+            // A hit on a search that never got a thread. Drop it rather than wait for the shared
+            // pool to dequeue it; the caller searches afresh on its own clock.
+            current.cancel(false);
+            return null;
+        }
+        // Hand over our own deadlines. Re-apply them while waiting in case the task is only now
+        // entering the search and installing its ponder limit. A search that already finished
+        // (e.g. it found a mate) still has a valid result.
+        while (true) {
+            search.setTimeManager(timeManager);
+            try {
+                return current.get(1, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // still searching
+            } catch (ExecutionException | CancellationException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Stops any ponder search and waits until its thread is free again.
+     */
+    public synchronized void cancel() {
+        if (task != null) {
+            Future<SearchResult> current = task;
+            task = null;
+            expectedMove = Moves.NONE;
+            try {
+                stopAndWait(current);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void stopAndWait(Future<SearchResult> current) throws InterruptedException {
+        if (started.compareAndSet(false, true)) {
+            current.cancel(false); // never started, and now it never will
+            return;
+        }
+        // Keep signalling until the task ends: a search that is just starting clears earlier stop requests.
+        while (true) {
+            search.stop();
+            try {
+                current.get(1, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                // still unwinding
+            } catch (ExecutionException | CancellationException e) {
+                return; // the result of an abandoned ponder search is of no interest
+            }
+        }
+    }
+}
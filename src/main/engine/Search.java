@@ -0,0 +1,410 @@
+package main.engine;
+
+import main.common.Square;
+import main.engine.endgame.Bitbases;
+import main.model.Board.Board;
+import main.model.pieces.Pawn;
+import main.model.pieces.Piece;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * An iterative-deepening alpha-beta search over {@link Board} positions, with a
+ * {@link TranspositionTable}, check extensions and a capture-only quiescence search.
+ * <p>
+ * A search instance is used by one thread at a time; {@link #stop()} and
+ * {@link #setTimeManager} may be called from any thread while it runs. The transposition
+ * table survives between searches, so consecutive searches of related positions (the next
+ * move of a game, or a ponder search that turns into the real one) start warm.
+ * <p>
+ * Positions covered by the {@link Bitbases} are scored from them instead of being searched:
+ * draws always, and wins and losses when the root is not covered yet. Once the root itself is
+ * covered, won positions are only scored at the leaves, so the search still looks for the mate.
+ * The number of men is tracked from ply to ply, so positions with more men than the largest
+ * loaded table are never probed.
+ */
+public class Search {
+
+    public static final int INFINITY = 32000;
+    public static final int MATE = 30000;
+    public static final int MAX_PLY = 64;
+    public static final int MAX_DEPTH = MAX_PLY - 1;
+    /** Score of a position the bitbases prove won, before the evaluation is added; below any mate score. */
+    public static final int KNOWN_WIN = 10000;
+
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 20000};
+
+    private final TranspositionTable table;
+    private final Evaluator evaluator;
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][256];
+    private final int[][] scoreBuffers = new int[MAX_PLY + 1][256];
+    private final long[] keyStack = new long[MAX_PLY + 1];
+    private final int[] menStack = new int[MAX_PLY + 1];
+
+    private long[] gameHistory = new long[0];
+    private volatile TimeManager timeManager = new TimeManager();
+    private volatile boolean stopRequested;
+    private SearchListener listener;
+    private SearchStatistics statistics;
+    private Bitbases bitbases = Bitbases.getDefault();
+    private long nodes;
+    private long startNanos;
+
+    public Search(TranspositionTable table, Evaluator evaluator) {
+        this.table = table;
+        this.evaluator = evaluator;
+    }
+
+    /** Replaces the {@link Bitbases#getDefault() default} bitbases, e.g. with an empty set to disable them. */
+    public void setBitbases(Bitbases bitbases) {
+        this.bitbases = bitbases;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Enables collecting {@link SearchStatistics} into the given instance, or disables it with null.
+     * The instance must not be shared with another search thread.
+     */
+    public void setStatistics(SearchStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets the hashes ({@link Zobrist#hash}) of the positions that occurred earlier in the game,
+     * oldest first, so repetitions of them are scored as draws.
+     */
+    public void setGameHistory(long[] hashes) {
+        this.gameHistory = hashes.clone();
+    }
+
+    /**
+     * Replaces the time limits of a running search, e.g. when a ponder search becomes the real one.
+     */
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    /** Asks a running search to stop as soon as possible. */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Searches the position until {@code maxDepth} is completed, the time manager says stop,
+     * or {@link #stop()} is called.
+     *
+     * @return The result of the deepest completed iteration (at least depth 1 unless stopped immediately).
+     */
+    public SearchResult search(Board root, int maxDepth, TimeManager timeManager) {
+        this.timeManager = timeManager;
+        this.stopRequested = false;
+        this.nodes = 0;
+        this.startNanos = System.nanoTime();
+        evaluator.reset(root);
+
+        long rootKey = Zobrist.hash(root);
+        keyStack[0] = rootKey;
+        menStack[0] = countMen(root);
+        int[] rootMoves = new int[256];
+        int rootCount = Moves.generate(root, rootMoves);
+        SearchResult best = new SearchResult(rootCount > 0 ? rootMoves[0] : Moves.NONE, Moves.NONE,
+                0, 0, 0, 0, new int[0]);
+        if (rootCount == 0) {
+            return best;
+        }
+
+        SearchStatistics stats = this.statistics;
+        if (stats != null) stats.beginSearch();
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+            if (stats != null) stats.beginIteration(depth);
+            int score = alphaBeta(root, depth, -INFINITY, INFINITY, 0);
+            if (stats != null) stats.endIteration();
+            if (stopRequested) {
+                break;
+            }
+            int[] pv = principalVariation(root, depth);
+            int bestMove = pv.length > 0 ? pv[0] : best.bestMove();
+            best = new SearchResult(bestMove, pv.length > 1 ? pv[1] : Moves.NONE, score, depth, nodes, elapsedMillis(), pv);
+            if (listener != null) {
+                listener.onIteration(best);
+            }
+            TimeManager tm = this.timeManager;
+            tm.onIterationComplete(bestMove, score);
+            if (tm.shouldStop() || isMateScore(score) && MATE - Math.abs(score) <= depth) {
+                break;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.ponderMove(), best.score(), best.depth(), nodes, elapsedMillis(), best.pv());
+    }
+
+    private int alphaBeta(Board board, int depth, int alpha, int beta, int ply) {
+        if (shouldAbort()) return 0;
+        long key = keyStack[ply];
+        if (ply > 0 && isRepetition(key, ply)) return 0;
+        if (ply > 0 && menStack[ply] <= bitbases.getMaxMen()) {
+            int wdl = bitbases.probe(board);
+            boolean rootCovered = menStack[0] <= bitbases.getMaxMen();
+            if (wdl != Bitbases.UNKNOWN && (wdl == Bitbases.DRAW || depth <= 0 || !rootCovered)) {
+                int score = bitbaseScore(board, wdl, ply);
+                // A draw holds at any depth; a win's score is a heuristic for this depth only.
+                table.store(key, Moves.NONE, toTable(score, ply), wdl == Bitbases.DRAW ? MAX_DEPTH : Math.max(depth, 0),
+                        TranspositionTable.BOUND_EXACT);
+                return score;
+            }
+        }
+        if (depth <= 0 || ply >= MAX_PLY) return quiescence(board, alpha, beta, ply);
+        nodes++;
+        SearchStatistics stats = this.statistics;
+        if (stats != null) {
+            stats.nodes[stats.depth]++;
+            stats.ttProbes[stats.depth]++;
+        }
+
+        long entry = table.probe(key);
+        int ttMove = Moves.NONE;
+        if (entry != 0L) {
+            if (stats != null) stats.ttHits[stats.depth]++;
+            ttMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int ttScore = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || bound == TranspositionTable.BOUND_LOWER && ttScore >= beta
+                        || bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha) {
+                    if (stats != null) stats.ttCutoffs[stats.depth]++;
+                    return ttScore;
+                }
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = Moves.generate(board, moves);
+        if (count == 0) {
+            return board.isInCheck(board.getTurn()) ? -MATE + ply : 0;
+        }
+        orderMoves(board, moves, count, ttMove, scoreBuffers[ply]);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Moves.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            Board child = makeMove(board, move, ply);
+            int extension = child.getKingInCheckSquare() != null ? 1 : 0;
+            int score = -alphaBeta(child, depth - 1 + extension, -beta, -alpha, ply + 1);
+            evaluator.unmakeMove();
+            if (stopRequested) return 0;
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (stats != null) {
+                            stats.betaCutoffs[stats.depth]++;
+                            if (i == 0) stats.firstMoveCutoffs[stats.depth]++;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Scores a position with a known bitbase result. Draws score 0 and an actual mate keeps its
+     * mate score. A win scores {@link #KNOWN_WIN} plus the static evaluation plus a bonus for
+     * driving the losing king to the edge and bringing the winning king close, so the search
+     * makes progress towards mate.
+     */
+    private int bitbaseScore(Board board, int wdl, int ply) {
+        if (wdl == Bitbases.DRAW) return 0;
+        if (Moves.generate(board, moveBuffers[ply]) == 0) {
+            return board.isInCheck(board.getTurn()) ? -MATE + ply : 0;
+        }
+        int evaluation = Math.max(-KNOWN_WIN / 4, Math.min(KNOWN_WIN / 4, evaluator.evaluate(board)));
+        int ownKing = 0;
+        int otherKing = 0;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getPiece(square >> 3, square & 7);
+            if (piece != null && piece.getSymbol() == 'K') {
+                if (piece.getColor() == board.getTurn()) ownKing = square; else otherKing = square;
+            }
+        }
+        int loser = wdl == Bitbases.WIN ? otherKing : ownKing;
+        int centreDistance = Math.max(3 - (loser >> 3), (loser >> 3) - 4) + Math.max(3 - (loser & 7), (loser & 7) - 4);
+        int kingDistance = Math.max(Math.abs((ownKing >> 3) - (otherKing >> 3)), Math.abs((ownKing & 7) - (otherKing & 7)));
+        int mopUp = 20 * centreDistance + 10 * (7 - kingDistance);
+        return wdl == Bitbases.WIN ? KNOWN_WIN + evaluation + mopUp - ply : -KNOWN_WIN + evaluation - mopUp + ply;
+    }
+
+    private int quiescence(Board board, int alpha, int beta, int ply) {
+        if (shouldAbort()) return 0;
+        nodes++;
+        if (statistics != null) statistics.quiescenceNodes[statistics.depth]++;
+        int standPat = evaluator.evaluate(board);
+        if (standPat >= beta || ply >= MAX_PLY) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int count = Moves.generate(board, moves);
+        if (count == 0) {
+            return board.isInCheck(board.getTurn()) ? -MATE + ply : 0;
+        }
+        orderMoves(board, moves, count, Moves.NONE, scores);
+        for (int i = 0; i < count; i++) {
+            if (scores[i] <= 0) break; // captures and promotions are ordered first
+            Board child = makeMove(board, moves[i], ply);
+            int score = -quiescence(child, -beta, -alpha, ply + 1);
+            evaluator.unmakeMove();
+            if (stopRequested) return 0;
+            if (score >= beta) return score;
+            if (score > alpha) alpha = score;
+        }
+        return alpha;
+    }
+
+    private Board makeMove(Board board, int move, int ply) {
+        Square start = Moves.start(move);
+        Square end = Moves.end(move);
+        Optional<String> promotion = Moves.promotion(move);
+        evaluator.makeMove(board, start, end, promotion);
+        Board child = new Board(board);
+        Piece captured = child.makeMove(start, end, promotion);
+        keyStack[ply + 1] = Zobrist.hash(child);
+        menStack[ply + 1] = captured != null ? menStack[ply] - 1 : menStack[ply];
+        return child;
+    }
+
+    private static int countMen(Board board) {
+        int men = 0;
+        for (int rank = 0; rank < 8; rank++) {
+            for (int file = 0; file < 8; file++) {
+                if (board.getPiece(rank, file) != null) men++;
+            }
+        }
+        return men;
+    }
+
+    /**
+     * Sorts moves in place: hash move first, then captures by most valuable victim and least
+     * valuable attacker, then promotions, then quiet moves in generation order. Captures and
+     * promotions get positive scores, quiet moves zero.
+     */
+    private void orderMoves(Board board, int[] moves, int count, int ttMove, int[] scores) {
+        Square ep = board.getEnPassantTargetSquare();
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            Piece attacker = board.getPiece(Moves.start(move));
+            Piece victim = board.getPiece(Moves.end(move));
+            int score = 0;
+            if (move == ttMove) {
+                score = 1_000_000;
+            } else if (victim != null) {
+                score = 10 * PIECE_VALUES[Zobrist.pieceIndex(victim) % 6] - PIECE_VALUES[Zobrist.pieceIndex(attacker) % 6] / 10 + 1000;
+            } else if (attacker instanceof Pawn && Moves.end(move).equals(ep)) {
+                score = 10 * PIECE_VALUES[0] - PIECE_VALUES[0] / 10 + 1000;
+            }
+            if (Moves.promotion(move).isPresent()) {
+                score += Moves.promotion(move).get().equals("Q") ? 900 : 1;
+            }
+            scores[i] = score;
+        }
+        // Insertion sort: move lists are short and mostly need only a few swaps.
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    private int[] principalVariation(Board root, int maxLength) {
+        int[] pv = new int[maxLength];
+        int length = 0;
+        Board board = root;
+        long[] seen = new long[maxLength + 1];
+        seen[0] = Zobrist.hash(board);
+        while (length < maxLength) {
+            long entry = table.probe(seen[length]);
+            int move = entry == 0L ? Moves.NONE : TranspositionTable.move(entry);
+            if (move == Moves.NONE || !board.isLegalMove(Moves.start(move), Moves.end(move))) break;
+            board = new Board(board);
+            board.makeMove(Moves.start(move), Moves.end(move), Moves.promotion(move));
+            pv[length++] = move;
+            seen[length] = Zobrist.hash(board);
+            boolean repeated = false;
+            for (int i = 0; i < length; i++) repeated |= seen[i] == seen[length];
+            if (repeated) break;
+        }
+        return Arrays.copyOf(pv, length);
+    }
+
+    private boolean isRepetition(long key, int ply) {
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (keyStack[i] == key) return true;
+        }
+        for (long previous : gameHistory) {
+            if (previous == key) return true;
+        }
+        return false;
+    }
+
+    private boolean shouldAbort() {
+        if (stopRequested) return true;
+        if ((nodes & 255) == 0 && timeManager.isHardLimitReached()) {
+            stopRequested = true;
+        }
+        return stopRequested;
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /** Whether a score means a forced mate for either side. */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    // Mate scores are stored relative to the node so they stay correct when found via another path.
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+}
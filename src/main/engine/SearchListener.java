@@ -0,0 +1,11 @@
+package main.engine;
+
+/**
+ * Receives progress from a running {@link Search}. Called on the search thread, so
+ * implementations should hand the data off rather than block.
+ */
+@FunctionalInterface
+public interface SearchListener {
+
+    void onIteration(SearchResult result);
+}
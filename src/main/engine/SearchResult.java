@@ -0,0 +1,41 @@
+package main.engine;
+
+/**
+ * The outcome of a search, or of one completed iteration of it.
+ *
+ * @param bestMove   The best move found, packed as in {@link Moves}, or {@link Moves#NONE}.
+ * @param ponderMove The expected reply from the principal variation, or {@link Moves#NONE}.
+ * @param score      Centipawns from the side to move's point of view; see {@link Search#isMateScore}.
+ * @param depth      The deepest completed iteration.
+ * @param nodes      Nodes searched so far.
+ * @param timeMillis Time spent so far.
+ * @param pv         The principal variation.
+ */
+public record SearchResult(int bestMove, int ponderMove, int score, int depth, long nodes, long timeMillis, int[] pv) {
+
+    /**
+     * Formats the result as UCI info fields, e.g.
+     * {@code depth 5 score cp 31 nodes 1200 nps 6000 time 200 pv e2e4 e7e5}. Mate scores are given
+     * as {@code score mate N} in moves, negative when the side to move is getting mated.
+     */
+    public String toInfoString() {
+        StringBuilder info = new StringBuilder(128);
+        info.append("depth ").append(depth);
+        if (Search.isMateScore(score)) {
+            int movesToMate = (Search.MATE - Math.abs(score) + 1) / 2;
+            info.append(" score mate ").append(score > 0 ? movesToMate : -movesToMate);
+        } else {
+            info.append(" score cp ").append(score);
+        }
+        info.append(" nodes ").append(nodes)
+                .append(" nps ").append(nodes * 1000 / Math.max(1, timeMillis))
+                .append(" time ").append(timeMillis);
+        if (pv.length > 0) {
+            info.append(" pv");
+            for (int move : pv) {
+                info.append(' ').append(Moves.toUci(move));
+            }
+        }
+        return info.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package main.engine;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Opt-in counters describing where a search spends its nodes, kept per iteration depth: main and
+ * quiescence nodes, transposition table probes, hits and cutoffs, beta cutoffs and how many of
+ * them came from the first move searched, and time per iteration.
+ * <p>
+ * Each {@link Search} writes to its own instance, so counting needs no synchronization and threads
+ * never write to a shared cache line. Per-thread instances are combined with {@link #merge} or
+ * {@link #mergeCounters} once the searches have returned. Counters accumulate over consecutive
+ * searches until {@link #reset()}, so a whole test suite can be summarized at once.
+ */
+public final class SearchStatistics {
+
+    private static final int DEPTHS = Search.MAX_DEPTH + 1;
+
+    final long[] nodes = new long[DEPTHS];
+    final long[] quiescenceNodes = new long[DEPTHS];
+    final long[] ttProbes = new long[DEPTHS];
+    final long[] ttHits = new long[DEPTHS];
+    final long[] ttCutoffs = new long[DEPTHS];
+    final long[] betaCutoffs = new long[DEPTHS];
+    final long[] firstMoveCutoffs = new long[DEPTHS];
+    private final long[] iterationNanos = new long[DEPTHS];
+    private final long[] iterations = new long[DEPTHS];
+    private int searches;
+
+    /** The iteration being counted; the search indexes the arrays above with it directly. */
+    int depth;
+    private long iterationStartNanos;
+
+    void beginSearch() {
+        searches++;
+    }
+
+    void beginIteration(int depth) {
+        this.depth = depth;
+        this.iterationStartNanos = System.nanoTime();
+    }
+
+    /** Records the iteration's time, whether it completed or was stopped. */
+    void endIteration() {
+        iterationNanos[depth] += System.nanoTime() - iterationStartNanos;
+        iterations[depth]++;
+    }
+
+    public void reset() {
+        for (long[] counters : new long[][]{nodes, quiescenceNodes, ttProbes, ttHits, ttCutoffs,
+                betaCutoffs, firstMoveCutoffs, iterationNanos, iterations}) {
+            Arrays.fill(counters, 0);
+        }
+        searches = 0;
+    }
+
+    /** Adds another instance's counters and times to this one, e.g. the next search of a suite. */
+    public void merge(SearchStatistics other) {
+        mergeCounters(other);
+        add(iterationNanos, other.iterationNanos);
+        add(iterations, other.iterations);
+        searches += other.searches;
+    }
+
+    /**
+     * Adds another instance's node and cutoff counters but not its times or search count. Used for
+     * helper threads, whose unbounded iterations run alongside the main thread's.
+     */
+    public void mergeCounters(SearchStatistics other) {
+        add(nodes, other.nodes);
+        add(quiescenceNodes, other.quiescenceNodes);
+        add(ttProbes, other.ttProbes);
+        add(ttHits, other.ttHits);
+        add(ttCutoffs, other.ttCutoffs);
+        add(betaCutoffs, other.betaCutoffs);
+        add(firstMoveCutoffs, other.firstMoveCutoffs);
+    }
+
+    /** The deepest iteration that searched any node. */
+    public int getMaxDepth() {
+        for (int d = DEPTHS - 1; d > 0; d--) {
+            if (nodes[d] + quiescenceNodes[d] > 0) return d;
+        }
+        return 0;
+    }
+
+    /** Main and quiescence nodes of the iteration at {@code depth}. */
+    public long getTotalNodes(int depth) {
+        return nodes[depth] + quiescenceNodes[depth];
+    }
+
+    public long getTotalNodes() {
+        return sum(nodes) + sum(quiescenceNodes);
+    }
+
+    /**
+     * Nodes of the iteration at {@code depth} divided by those of the one before it, or 0 when
+     * there is no earlier iteration.
+     */
+    public double getEffectiveBranchingFactor(int depth) {
+        return depth > 1 ? ratio(getTotalNodes(depth), getTotalNodes(depth - 1)) : 0;
+    }
+
+    public double getTtHitRate() {
+        return ratio(sum(ttHits), sum(ttProbes));
+    }
+
+    public double getTtCutoffRate() {
+        return ratio(sum(ttCutoffs), sum(ttProbes));
+    }
+
+    /** The share of beta cutoffs caused by the first move searched; a measure of move ordering. */
+    public double getFirstMoveCutoffRate() {
+        return ratio(sum(firstMoveCutoffs), sum(betaCutoffs));
+    }
+
+    /**
+     * Writes the statistics as a JSON object: totals plus one entry per iteration depth.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256 + 320 * getMaxDepth());
+        json.append("{\"searches\":").append(searches)
+                .append(",\"nodes\":").append(sum(nodes))
+                .append(",\"quiescenceNodes\":").append(sum(quiescenceNodes))
+                .append(",\"ttProbes\":").append(sum(ttProbes))
+                .append(",\"ttHitRate\":").append(format(getTtHitRate()))
+                .append(",\"ttCutoffRate\":").append(format(getTtCutoffRate()))
+                .append(",\"betaCutoffs\":").append(sum(betaCutoffs))
+                .append(",\"firstMoveCutoffRate\":").append(format(getFirstMoveCutoffRate()))
+                .append(",\"iterations\":[");
+        for (int d = 1; d <= getMaxDepth(); d++) {
+            if (d > 1) json.append(',');
+            json.append("{\"depth\":").append(d)
+                    .append(",\"nodes\":").append(nodes[d])
+                    .append(",\"quiescenceNodes\":").append(quiescenceNodes[d])
+                    .append(",\"effectiveBranchingFactor\":").append(format(getEffectiveBranchingFactor(d)))
+                    .append(",\"ttProbes\":").append(ttProbes[d])
+                    .append(",\"ttHits\":").append(ttHits[d])
+                    .append(",\"ttCutoffs\":").append(ttCutoffs[d])
+                    .append(",\"betaCutoffs\":").append(betaCutoffs[d])
+                    .append(",\"firstMoveCutoffs\":").append(firstMoveCutoffs[d])
+                    .append(",\"iterations\":").append(iterations[d])
+                    .append(",\"timeMillis\":").append(format(iterationNanos[d] / 1e6))
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    @Override
+    public String toString() {
+        int maxDepth = getMaxDepth();
+        return String.format(Locale.ROOT, "nodes %d (quiescence %.1f%%), EBF %.2f, TT hits %.1f%% cutoffs %.1f%%, first-move cutoffs %.1f%%",
+                getTotalNodes(), 100 * ratio(sum(quiescenceNodes), getTotalNodes()), getEffectiveBranchingFactor(maxDepth),
+                100 * getTtHitRate(), 100 * getTtCutoffRate(), 100 * getFirstMoveCutoffRate());
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    private static long sum(long[] counters) {
+        long total = 0;
+        for (long counter : counters) {
+            total += counter;
+        }
+        return total;
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator == 0 ? 0 : (double) numerator / denominator;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+}
@@ -0,0 +1,167 @@
+package main.engine;
+
+import main.model.Clock;
+
+/**
+ * Decides how long an engine may think about one move.
+ * <p>
+ * {@link #start} derives two deadlines from the remaining time and increment: a soft limit,
+ * checked between iterations of an iterative-deepening search, and a hard limit, which the
+ * search polls while running and must never exceed. The soft limit is stretched when the best
+ * move keeps changing or the score drops, shrunk while the best move is stable, and a move
+ * with only one legal reply stops after the first completed iteration.
+ */
+public class TimeManager {
+
+    /** Reserved per move for network latency and bookkeeping. */
+    public static final long DEFAULT_MOVE_OVERHEAD_MILLIS = 50;
+    /** Assumed number of moves left when the time control does not say. */
+    public static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private static final int SCORE_DROP_SMALL = 30;
+    private static final int SCORE_DROP_LARGE = 80;
+    private static final double MAX_EXTENSION = 2.5;
+
+    private final long moveOverheadMillis;
+
+    private long startNanos;
+    private long softMillis;
+    private long hardMillis;
+    private boolean forced;
+    private boolean infinite;
+    private boolean fixed;
+
+    private double instability;
+    private double scoreFactor;
+    private int lastBestMove;
+    private int lastScore;
+    private int completedIterations;
+    private int stableIterations;
+
+    public TimeManager() {
+        this(DEFAULT_MOVE_OVERHEAD_MILLIS);
+    }
+
+    public TimeManager(long moveOverheadMillis) {
+        this.moveOverheadMillis = moveOverheadMillis;
+        startInfinite();
+    }
+
+    /**
+     * Starts timing a move using the remaining time and increment of the engine's clock.
+     *
+     * @param movesToGo  Moves until the next time control, or 0 for sudden death.
+     * @param legalMoves The number of legal moves in the root position.
+     */
+    public void start(Clock clock, int movesToGo, int legalMoves) {
+        start(clock.getRemainingMillis(), clock.getIncrementMillis(), movesToGo, legalMoves);
+    }
+
+    /**
+     * Starts timing a move from raw clock values in milliseconds.
+     */
+    public void start(long remainingMillis, long incrementMillis, int movesToGo, int legalMoves) {
+        reset();
+        long available = Math.max(1, remainingMillis - moveOverheadMillis);
+        int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+        long base = available / moves + incrementMillis * 3 / 4;
+
+        // Never plan to use more than a third of the clock, nor be forced past three quarters of it.
+        softMillis = Math.max(1, Math.min(base, available / 3));
+        hardMillis = Math.max(softMillis, Math.min(base * 5, available * 3 / 4));
+        forced = legalMoves == 1;
+        if (forced) {
+            softMillis = Math.min(softMillis, 10);
+        }
+    }
+
+    /**
+     * Starts timing a move with a fixed budget, as for UCI {@code go movetime}.
+     */
+    public void startFixed(long moveTimeMillis) {
+        reset();
+        softMillis = hardMillis = Math.max(1, moveTimeMillis - moveOverheadMillis);
+        fixed = true;
+    }
+
+    /**
+     * Starts timing without limits, as for analysis or pondering.
+     */
+    public void startInfinite() {
+        reset();
+        infinite = true;
+    }
+
+    private void reset() {
+        startNanos = System.nanoTime();
+        softMillis = Long.MAX_VALUE;
+        hardMillis = Long.MAX_VALUE;
+        forced = false;
+        infinite = false;
+        fixed = false;
+        instability = 1.0;
+        scoreFactor = 1.0;
+        lastBestMove = Moves.NONE;
+        lastScore = 0;
+        completedIterations = 0;
+        stableIterations = 0;
+    }
+
+    /**
+     * Reports a completed iteration of the search so the soft limit can adapt.
+     *
+     * @param bestMove The best move found by the iteration, packed as in {@link Moves}.
+     * @param score    Its score in centipawns from the engine's point of view.
+     */
+    public void onIterationComplete(int bestMove, int score) {
+        if (completedIterations > 0) {
+            if (bestMove != lastBestMove) {
+                instability = Math.min(MAX_EXTENSION, instability * 1.5);
+                stableIterations = 0;
+            } else {
+                instability = Math.max(1.0, instability * 0.85);
+                stableIterations++;
+            }
+            int drop = lastScore - score;
+            scoreFactor = drop >= SCORE_DROP_LARGE ? 2.0 : drop >= SCORE_DROP_SMALL ? 1.5 : 1.0;
+        }
+        lastBestMove = bestMove;
+        lastScore = score;
+        completedIterations++;
+    }
+
+    /**
+     * Whether the search should stop instead of starting another iteration.
+     */
+    public boolean shouldStop() {
+        if (infinite) return false;
+        if (fixed) return isHardLimitReached();
+        if (forced && completedIterations > 0) return true;
+        double factor = Math.min(MAX_EXTENSION, instability * scoreFactor);
+        if (stableIterations >= 4) {
+            factor *= 0.7;
+        }
+        long budget = Math.min(hardMillis, (long) (softMillis * factor));
+        // An iteration usually takes longer than all previous ones together, so don't start one that cannot finish.
+        return elapsedMillis() >= budget / 2;
+    }
+
+    /**
+     * Whether the hard deadline has passed; searches poll this and abort immediately.
+     */
+    public boolean isHardLimitReached() {
+        return !infinite && elapsedMillis() >= hardMillis;
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public long getSoftMillis() {
+        return softMillis;
+    }
+
+    public long getHardMillis() {
+        return hardMillis;
+    }
+}
@@ -0,0 +1,105 @@
+package main.engine;
+
+import java.util.Arrays;
+
+/**
+ * A shared hash table of search results, stored in two parallel {@code long} arrays.
+ * <p>
+ * Each entry packs move, score, depth and bound into one word, and the key is stored
+ * XOR-ed with that word. A torn write from a concurrent thread therefore fails the key check
+ * instead of returning a corrupt entry, which lets several search threads share one table
+ * without locks.
+ */
+public final class TranspositionTable {
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private long[] keys;
+    private long[] data;
+    private int mask;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    /**
+     * Reallocates the table, discarding its contents. Must not be called during a search.
+     */
+    public void resize(int sizeMb) {
+        long entries = Math.max(1024, (long) Math.max(1, sizeMb) * 1024 * 1024 / ENTRY_BYTES);
+        int size = (int) Math.min(1 << 30, Long.highestOneBit(entries));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * @return The packed entry for the key, or 0 if there is none.
+     */
+    public long probe(long key) {
+        int slot = (int) key & mask;
+        long entry = data[slot];
+        return (keys[slot] ^ entry) == key ? entry : 0L;
+    }
+
+    /**
+     * Stores a result, replacing the slot's entry unless it holds a deeper search of the same position.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int slot = (int) key & mask;
+        long existing = data[slot];
+        if ((keys[slot] ^ existing) == key && depth(existing) > depth && bound != BOUND_EXACT) {
+            return;
+        }
+        if (move == Moves.NONE && (keys[slot] ^ existing) == key) {
+            move = move(existing); // keep the known best move
+        }
+        long entry = (move & 0x7FFFL)
+                | ((long) (score & 0xFFFF) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40);
+        data[slot] = entry;
+        keys[slot] = key ^ entry;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0x7FFF);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 32) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 40) & 3);
+    }
+
+    /** Permille of the first thousand slots in use, as reported by UCI {@code hashfull}. */
+    public int hashfull() {
+        int used = 0;
+        int sample = Math.min(1000, data.length);
+        for (int i = 0; i < sample; i++) {
+            if (data[i] != 0L) used++;
+        }
+        return used * 1000 / sample;
+    }
+}
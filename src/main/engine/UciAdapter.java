@@ -0,0 +1,401 @@
+package main.engine;
+
+import main.common.Colour;
+import main.model.Board.Board;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Speaks the Universal Chess Interface on standard input/output so the engine can be run
+ * headless by GUIs, match runners and testing frameworks.
+ * <p>
+ * Commands are read on the main thread while searches run on a separate thread, so
+ * {@code stop} is answered immediately with the best move of the last completed iteration and
+ * the search is then unwound in the background. {@code position} commands that extend the
+ * previous one (the usual case during a game) only apply the new moves.
+ * <p>
+ * Usage: java main.engine.UciAdapter
+ */
+public class UciAdapter {
+
+    public static final String ENGINE_NAME = "Chess";
+    public static final String ENGINE_AUTHOR = "thecooked1";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 64;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ParallelSearch engine;
+
+    // Current position: the base it was set up from, the moves applied since, and the hash before each move.
+    private Board board = new Board();
+    private String positionBase = "startpos";
+    private int[] appliedMoves = new int[64];
+    private long[] historyKeys = new long[64];
+    private int appliedCount;
+
+    // State of the current "go"; guarded by this.
+    private Thread searchThread;
+    private SearchResult lastIteration;
+    private SearchResult finalResult;
+    private boolean waitForStop;
+    private boolean bestMoveSent = true;
+    private GoParameters ponderParameters;
+    private int rootLegalMoves;
+
+    public UciAdapter(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        this.engine = new ParallelSearch(TranspositionTable.DEFAULT_SIZE_MB, 1);
+        this.engine.setListener(this::onIteration);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new UciAdapter(in, out).run();
+    }
+
+    /**
+     * Processes commands until {@code quit} or end of input.
+     */
+    public void run() throws IOException, InterruptedException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            try {
+                if (!handle(line)) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // One malformed command from the GUI must not end the session.
+                out.println("info string Error handling '" + line + "': " + e);
+            }
+        }
+        stopSearch();
+        engine.close();
+    }
+
+    /**
+     * Handles one command line.
+     *
+     * @return false if the adapter should exit.
+     */
+    boolean handle(String line) throws InterruptedException {
+        List<String> tokens = tokenize(line);
+        if (tokens.isEmpty()) {
+            return true;
+        }
+        switch (tokens.get(0)) {
+            case "uci" -> {
+                out.println("id name " + ENGINE_NAME);
+                out.println("id author " + ENGINE_AUTHOR);
+                out.println("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB
+                        + " min 1 max " + MAX_HASH_MB);
+                out.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                out.println("option name Ponder type check default false");
+                out.println("uciok");
+            }
+            case "isready" -> out.println("readyok");
+            case "setoption" -> setOption(tokens);
+            case "ucinewgame" -> {
+                stopSearch();
+                engine.getTable().clear();
+                setPosition("startpos", new ArrayList<>());
+            }
+            case "position" -> position(tokens);
+            case "go" -> go(tokens);
+            case "stop" -> {
+                sendBestMove();
+                stopSearch();
+            }
+            case "ponderhit" -> ponderHit();
+            case "bench" -> {
+                // non-standard: bench [depth] [threads]
+                stopSearch();
+                try {
+                    int depth = tokens.size() > 1 ? Integer.parseInt(tokens.get(1)) : Bench.DEFAULT_DEPTH;
+                    int threads = tokens.size() > 2 ? Integer.parseInt(tokens.get(2)) : engine.getThreads();
+                    Bench.run(clamp(depth, 1, Search.MAX_DEPTH), clamp(threads, 1, MAX_THREADS),
+                            TranspositionTable.DEFAULT_SIZE_MB, out);
+                } catch (NumberFormatException e) {
+                    out.println("info string Usage: bench [depth] [threads]");
+                }
+            }
+            case "quit" -> {
+                return false;
+            }
+            default -> out.println("info string Unknown command: " + tokens.get(0));
+        }
+        return true;
+    }
+
+    private void setOption(List<String> tokens) throws InterruptedException {
+        // setoption name <id> [value <x>]; option names may contain spaces
+        int valueAt = tokens.indexOf("value");
+        int nameEnd = valueAt < 0 ? tokens.size() : valueAt;
+        String name = String.join(" ", tokens.subList(Math.min(2, nameEnd), nameEnd));
+        String value = valueAt < 0 ? "" : String.join(" ", tokens.subList(valueAt + 1, tokens.size()));
+        stopSearch();
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                engine.setHashMb(clamp(Integer.parseInt(value), 1, MAX_HASH_MB));
+            } else if (name.equalsIgnoreCase("Threads")) {
+                engine.setThreads(clamp(Integer.parseInt(value), 1, MAX_THREADS));
+            } else if (!name.equalsIgnoreCase("Ponder")) {
+                out.println("info string Unknown option: " + name);
+            }
+        } catch (NumberFormatException e) {
+            out.println("info string Invalid value for " + name + ": " + value);
+        }
+    }
+
+    private void position(List<String> tokens) throws InterruptedException {
+        int i = 1;
+        String base;
+        if (i < tokens.size() && tokens.get(i).equals("startpos")) {
+            base = "startpos";
+            i++;
+        } else if (i < tokens.size() && tokens.get(i).equals("fen")) {
+            int fenStart = ++i;
+            while (i < tokens.size() && !tokens.get(i).equals("moves")) i++;
+            base = String.join(" ", tokens.subList(fenStart, i));
+        } else {
+            out.println("info string Malformed position command");
+            return;
+        }
+        List<String> moves = new ArrayList<>();
+        if (i < tokens.size() && tokens.get(i).equals("moves")) {
+            moves.addAll(tokens.subList(i + 1, tokens.size()));
+        }
+        stopSearch();
+        setPosition(base, moves);
+    }
+
+    private void setPosition(String base, List<String> moves) {
+        int[] parsed = new int[moves.size()];
+        for (int m = 0; m < parsed.length; m++) {
+            try {
+                parsed[m] = Moves.fromUci(moves.get(m));
+            } catch (IllegalArgumentException e) {
+                out.println("info string " + e.getMessage());
+                parsed = Arrays.copyOf(parsed, m);
+                break;
+            }
+        }
+
+        // Reuse the current board if the new position is the old one plus further moves.
+        int common = 0;
+        if (base.equals(positionBase) && parsed.length >= appliedCount) {
+            while (common < appliedCount && parsed[common] == appliedMoves[common]) common++;
+        }
+        if (!base.equals(positionBase) || common < appliedCount) {
+            // Parse into a fresh board so a bad FEN leaves the current position intact.
+            Board parsedBase = new Board();
+            if (!base.equals("startpos")) {
+                try {
+                    parsedBase.updateFromFen(base);
+                } catch (RuntimeException e) {
+                    out.println("info string Invalid FEN: " + base + " (" + e.getMessage() + ")");
+                    return;
+                }
+            }
+            board = parsedBase;
+            positionBase = base;
+            appliedCount = 0;
+        }
+        for (int m = appliedCount; m < parsed.length; m++) {
+            int move = parsed[m];
+            if (!board.isLegalMove(Moves.start(move), Moves.end(move))) {
+                out.println("info string Illegal move: " + Moves.toUci(move));
+                break;
+            }
+            if (appliedCount == appliedMoves.length) {
+                appliedMoves = Arrays.copyOf(appliedMoves, appliedCount * 2);
+                historyKeys = Arrays.copyOf(historyKeys, appliedCount * 2);
+            }
+            historyKeys[appliedCount] = Zobrist.hash(board);
+            appliedMoves[appliedCount++] = move;
+            board.makeMove(Moves.start(move), Moves.end(move), Moves.promotion(move));
+        }
+        engine.setGameHistory(Arrays.copyOf(historyKeys, appliedCount));
+    }
+
+    private void go(List<String> tokens) throws InterruptedException {
+        stopSearch();
+        GoParameters params = GoParameters.parse(tokens);
+        int[] moves = new int[256];
+        int legalMoves = Moves.generate(board, moves);
+        TimeManager timeManager = new TimeManager();
+        if (params.ponder || params.infinite) {
+            timeManager.startInfinite();
+        } else {
+            params.startTimeManager(timeManager, board, legalMoves);
+        }
+
+        Board root = new Board(board);
+        synchronized (this) {
+            lastIteration = legalMoves > 0
+                    ? new SearchResult(moves[0], Moves.NONE, 0, 0, 0, 0, new int[0]) : null;
+            finalResult = null;
+            waitForStop = params.ponder || params.infinite;
+            ponderParameters = params.ponder ? params : null;
+            rootLegalMoves = legalMoves;
+            bestMoveSent = false;
+        }
+        searchThread = new Thread(() -> {
+            SearchResult result;
+            try {
+                result = engine.search(root, params.depth, timeManager);
+            } catch (InterruptedException e) {
+                return;
+            }
+            onSearchFinished(result);
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    private synchronized void ponderHit() {
+        if (ponderParameters == null) {
+            return;
+        }
+        TimeManager timeManager = new TimeManager();
+        ponderParameters.startTimeManager(timeManager, board, rootLegalMoves);
+        engine.setTimeManager(timeManager);
+        waitForStop = ponderParameters.infinite;
+        ponderParameters = null;
+        if (finalResult != null && !waitForStop) {
+            sendBestMove();
+        }
+    }
+
+    private synchronized void onIteration(SearchResult result) {
+        if (bestMoveSent) {
+            return;
+        }
+        lastIteration = result;
+        out.println("info hashfull " + engine.getTable().hashfull() + " " + result.toInfoString());
+    }
+
+    private synchronized void onSearchFinished(SearchResult result) {
+        finalResult = result;
+        if (result.bestMove() != Moves.NONE && result.depth() > 0) {
+            lastIteration = result;
+        }
+        if (!waitForStop) {
+            sendBestMove();
+        }
+    }
+
+    /** Prints the best move of the last completed iteration, once per "go". */
+    private synchronized void sendBestMove() {
+        if (bestMoveSent) {
+            return;
+        }
+        bestMoveSent = true;
+        ponderParameters = null;
+        if (lastIteration == null || lastIteration.bestMove() == Moves.NONE) {
+            out.println("bestmove 0000");
+        } else if (lastIteration.ponderMove() != Moves.NONE) {
+            out.println("bestmove " + Moves.toUci(lastIteration.bestMove())
+                    + " ponder " + Moves.toUci(lastIteration.ponderMove()));
+        } else {
+            out.println("bestmove " + Moves.toUci(lastIteration.bestMove()));
+        }
+    }
+
+    // The search may not have noticed a stop issued before it started; keep stopping until it exits.
+    private void stopSearch() throws InterruptedException {
+        Thread thread = searchThread;
+        if (thread == null) {
+            return;
+        }
+        synchronized (this) {
+            bestMoveSent = true; // a search abandoned without "stop" reports nothing
+        }
+        while (thread.isAlive()) {
+            engine.stop();
+            thread.join(1);
+        }
+        searchThread = null;
+    }
+
+    /** Splits a command line on whitespace. */
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) i++;
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) i++;
+            if (i > start) {
+                tokens.add(line.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /** The limits given to a "go" command. Times are in milliseconds; -1 means not given. */
+    private static final class GoParameters {
+        long whiteTime = -1;
+        long blackTime = -1;
+        long whiteIncrement;
+        long blackIncrement;
+        int movesToGo;
+        long moveTime = -1;
+        int depth = Search.MAX_DEPTH;
+        boolean infinite;
+        boolean ponder;
+
+        static GoParameters parse(List<String> tokens) {
+            GoParameters params = new GoParameters();
+            for (int i = 1; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                String next = i + 1 < tokens.size() ? tokens.get(i + 1) : "";
+                try {
+                    switch (token) {
+                        case "wtime" -> { params.whiteTime = Long.parseLong(next); i++; }
+                        case "btime" -> { params.blackTime = Long.parseLong(next); i++; }
+                        case "winc" -> { params.whiteIncrement = Long.parseLong(next); i++; }
+                        case "binc" -> { params.blackIncrement = Long.parseLong(next); i++; }
+                        case "movestogo" -> { params.movesToGo = Integer.parseInt(next); i++; }
+                        case "movetime" -> { params.moveTime = Long.parseLong(next); i++; }
+                        case "depth" -> { params.depth = clamp(Integer.parseInt(next), 1, Search.MAX_DEPTH); i++; }
+                        case "infinite" -> params.infinite = true;
+                        case "ponder" -> params.ponder = true;
+                        default -> { } // searchmoves, nodes and mate are not supported
+                    }
+                } catch (NumberFormatException e) {
+                    // ignore a malformed value and keep parsing
+                }
+            }
+            return params;
+        }
+
+        /** Starts the time manager for a normal (not pondering) search of the given position. */
+        void startTimeManager(TimeManager timeManager, Board board, int legalMoves) {
+            boolean white = board.getTurn() == Colour.WHITE;
+            long remaining = white ? whiteTime : blackTime;
+            if (infinite) {
+                timeManager.startInfinite();
+            } else if (moveTime >= 0) {
+                timeManager.startFixed(moveTime);
+            } else if (remaining >= 0) {
+                timeManager.start(remaining, white ? whiteIncrement : blackIncrement, movesToGo, legalMoves);
+            } else {
+                timeManager.startInfinite(); // "go depth N" or a bare "go"
+            }
+        }
+    }
+}
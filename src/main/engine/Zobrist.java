@@ -0,0 +1,110 @@
+package main.engine;
+
+import main.common.Colour;
+import main.common.Square;
+import main.model.Board.Board;
+import main.model.pieces.Piece;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing keys for positions held in a {@link Board}.
+ * The keys are generated from a fixed seed so hashes are stable between runs
+ * and can safely be written to disk.
+ */
+public final class Zobrist {
+
+    /** Piece order used to index the key tables: white pieces 0-5, black pieces 6-11. */
+    public static final String PIECE_ORDER = "PNBRQK";
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long[] CASTLING_KEYS = new long[4];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int p = 0; p < 12; p++) {
+            for (int sq = 0; sq < 64; sq++) {
+                PIECE_KEYS[p][sq] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING_KEYS.length; i++) CASTLING_KEYS[i] = random.nextLong();
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) EN_PASSANT_KEYS[i] = random.nextLong();
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * Returns the key table index of a piece, or -1 for an empty square.
+     */
+    public static int pieceIndex(Piece piece) {
+        if (piece == null) return -1;
+        int index = PIECE_ORDER.indexOf(piece.getSymbol());
+        return piece.getColor() == Colour.WHITE ? index : index + 6;
+    }
+
+    /**
+     * Returns the key for a piece index (see {@link #pieceIndex}) on a square index (rank * 8 + file).
+     */
+    public static long pieceKey(int pieceIndex, int square) {
+        return PIECE_KEYS[pieceIndex][square];
+    }
+
+    /**
+     * Computes a hash of the pawn placement only. Positions with the same pawn
+     * skeleton share this key regardless of where the other pieces stand.
+     */
+    public static long pawnKey(Board board) {
+        long key = 0L;
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                int index = pieceIndex(board.getPiece(new Square(r, c)));
+                if (index == 0 || index == 6) {
+                    key ^= PIECE_KEYS[index][r * 8 + c];
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Computes the full position hash: pieces, side to move, castling rights and the
+     * en passant file. The en passant file only counts when a pawn can actually capture
+     * there, so transpositions that differ only by an unusable target hash the same.
+     */
+    public static long hash(Board board) {
+        long key = 0L;
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                int index = pieceIndex(board.getPiece(new Square(r, c)));
+                if (index >= 0) {
+                    key ^= PIECE_KEYS[index][r * 8 + c];
+                }
+            }
+        }
+        Colour turn = board.getTurn();
+        if (turn == Colour.BLACK) key ^= BLACK_TO_MOVE_KEY;
+        if (board.hasKingsideCastleRight(Colour.WHITE)) key ^= CASTLING_KEYS[0];
+        if (board.hasQueensideCastleRight(Colour.WHITE)) key ^= CASTLING_KEYS[1];
+        if (board.hasKingsideCastleRight(Colour.BLACK)) key ^= CASTLING_KEYS[2];
+        if (board.hasQueensideCastleRight(Colour.BLACK)) key ^= CASTLING_KEYS[3];
+
+        Square ep = board.getEnPassantTargetSquare();
+        if (ep != null) {
+            // The capturing pawn stands on the rank the double-pushed pawn landed on.
+            int pawnRank = turn == Colour.WHITE ? ep.rank() + 1 : ep.rank() - 1;
+            int ownPawn = turn == Colour.WHITE ? 0 : 6;
+            for (int df = -1; df <= 1; df += 2) {
+                Square sq = new Square(pawnRank, ep.file() + df);
+                if (sq.isValid() && pieceIndex(board.getPiece(sq)) == ownPawn) {
+                    key ^= EN_PASSANT_KEYS[ep.file()];
+                    break;
+                }
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,129 @@
+package main.engine.endgame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Win/draw information for one material configuration with a lone defending king,
+ * e.g. "KQK" or "KRNK". Positions are normalised so the stronger side is White and
+ * indexed as {@code ((strongKing * 64 + piece1) * 64 + ...) * 64 + weakKing}, with squares
+ * numbered rank * 8 + file exactly as in {@link main.model.Board.Board}.
+ * <p>
+ * One bit per position and side to move: set if the stronger side wins with best play.
+ * A lone king can never win, so a clear bit means a draw (or an illegal position).
+ */
+public final class Bitbase {
+
+    static final int MAGIC = 0x43424231; // "CBB1"
+    static final String PIECE_ORDER = "QRBNP";
+
+    private final String config;
+    private final int pieceCount;
+    final long[] strongToMove;
+    final long[] weakToMove;
+
+    Bitbase(String config, long[] strongToMove, long[] weakToMove) {
+        this.config = config;
+        this.pieceCount = config.length();
+        this.strongToMove = strongToMove;
+        this.weakToMove = weakToMove;
+    }
+
+    /** The configuration name, e.g. "KPK". */
+    public String getConfig() {
+        return config;
+    }
+
+    /** The number of men on the board, kings included. */
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    /**
+     * Looks up a normalised position.
+     *
+     * @param squares        Strong king, the other strong pieces in configuration order, then the weak king.
+     * @param strongSideToMove Whether the stronger side is to move.
+     * @return true if the stronger side wins.
+     */
+    public boolean isWin(int[] squares, boolean strongSideToMove) {
+        int index = 0;
+        for (int i = 0; i < pieceCount; i++) {
+            index = (index << 6) | squares[i];
+        }
+        return isWin(index, strongSideToMove);
+    }
+
+    boolean isWin(int index, boolean strongSideToMove) {
+        long[] bits = strongSideToMove ? strongToMove : weakToMove;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /** The number of positions won by the stronger side; a checksum for reproducibility. */
+    public long countWins(boolean strongSideToMove) {
+        long count = 0;
+        for (long word : strongSideToMove ? strongToMove : weakToMove) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the canonical name of a configuration: the stronger side's pieces between the
+     * two kings, ordered Q, R, B, N, P.
+     */
+    public static String canonicalName(String pieces) {
+        StringBuilder name = new StringBuilder("K");
+        for (char piece : PIECE_ORDER.toCharArray()) {
+            for (char c : pieces.toUpperCase().toCharArray()) {
+                if (c == piece) name.append(c);
+            }
+        }
+        return name.append('K').toString();
+    }
+
+    public void write(Path path) throws IOException {
+        try (OutputStream os = Files.newOutputStream(path)) {
+            write(os);
+        }
+    }
+
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeUTF(config);
+        for (long word : strongToMove) out.writeLong(word);
+        for (long word : weakToMove) out.writeLong(word);
+        out.flush();
+    }
+
+    public static Bitbase read(Path path) throws IOException {
+        try (InputStream is = Files.newInputStream(path)) {
+            return read(is);
+        }
+    }
+
+    public static Bitbase read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a bitbase file.");
+        }
+        String config = in.readUTF();
+        if (config.length() < 3 || config.length() > 5 || !config.equals(canonicalName(config.substring(1, config.length() - 1)))) {
+            throw new IOException("Unsupported bitbase configuration: " + config);
+        }
+        int words = 1 << (6 * config.length() - 6);
+        long[] strong = new long[words];
+        long[] weak = new long[words];
+        for (int i = 0; i < words; i++) strong[i] = in.readLong();
+        for (int i = 0; i < words; i++) weak[i] = in.readLong();
+        return new Bitbase(config, strong, weak);
+    }
+}
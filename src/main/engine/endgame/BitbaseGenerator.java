@@ -0,0 +1,365 @@
+package main.engine.endgame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Generates {@link Bitbase}s by retrograde analysis.
+ * <p>
+ * Each pass alternates two sweeps over the whole index space: positions with the stronger
+ * side to move become wins if some move reaches a lost position for the defender, and
+ * positions with the defender to move become losses if every king move reaches a won position
+ * (or the king is mated). Passes repeat until nothing changes. Each sweep only writes one of
+ * the two bit arrays while reading the other, and the index space is split into 64-aligned
+ * chunks, so the sweeps run in parallel without locking and the output is identical however
+ * many threads are used.
+ * <p>
+ * Usage: {@code BitbaseGenerator [outputDir=bitbases] [threads=all cores] [config...]};
+ * the default configurations are KQK, KRK, KBK, KNK and KPK. Four-man configurations without
+ * pawns (e.g. KBNK, KRNK) are supported too but take considerably longer.
+ */
+public class BitbaseGenerator {
+
+    private static final String[] DEFAULT_CONFIGS = {"KQK", "KRK", "KBK", "KNK", "KPK"};
+    private static final int CHUNK = 1 << 12;
+
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {-1, 2}, {-2, 1}, {1, -2}, {2, -1}, {-1, -2}, {-2, -1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int r = sq >> 3;
+            int f = sq & 7;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int df = -1; df <= 1; df++) {
+                    if ((dr != 0 || df != 0) && onBoard(r + dr, f + df)) {
+                        KING_ATTACKS[sq] |= 1L << ((r + dr) * 8 + f + df);
+                    }
+                }
+            }
+            for (int[] step : knightSteps) {
+                if (onBoard(r + step[0], f + step[1])) {
+                    KNIGHT_ATTACKS[sq] |= 1L << ((r + step[0]) * 8 + f + step[1]);
+                }
+            }
+        }
+    }
+
+    private final Bitbases available;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param available Already generated bitbases, used when a capture or promotion changes the material.
+     * @param threads   Number of worker threads.
+     */
+    public BitbaseGenerator(Bitbases available, int threads) {
+        this.available = available;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : "bitbases");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String[] configs = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : DEFAULT_CONFIGS;
+        Files.createDirectories(output);
+
+        Bitbases bitbases = new Bitbases();
+        BitbaseGenerator generator = new BitbaseGenerator(bitbases, threads);
+        try {
+            for (String config : configs) {
+                long start = System.nanoTime();
+                Bitbase bitbase = generator.generate(config);
+                bitbases.add(bitbase);
+                bitbase.write(output.resolve(bitbase.getConfig() + Bitbases.FILE_EXTENSION));
+                System.out.printf("%-6s wins (strong/weak to move): %d / %d   %.1f s%n", bitbase.getConfig(),
+                        bitbase.countWins(true), bitbase.countWins(false), (System.nanoTime() - start) / 1e9);
+            }
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    /**
+     * Generates one configuration. Any configuration it can reach by a capture or promotion
+     * must already be in the {@code available} set, or those positions are treated as draws.
+     *
+     * @throws IllegalArgumentException if the configuration is not supported.
+     */
+    public Bitbase generate(String config) {
+        String name = config.toUpperCase();
+        if (name.length() < 3 || name.charAt(0) != 'K' || name.charAt(name.length() - 1) != 'K') {
+            throw new IllegalArgumentException("Configuration must look like KXK: " + config);
+        }
+        String pieces = name.substring(1, name.length() - 1);
+        name = Bitbase.canonicalName(pieces);
+        pieces = name.substring(1, name.length() - 1);
+        if (pieces.isEmpty() || pieces.length() > 2 || (pieces.length() > 1 && pieces.indexOf('P') >= 0)) {
+            throw new IllegalArgumentException("Unsupported configuration: " + config);
+        }
+        for (char c : pieces.toCharArray()) {
+            if (Bitbase.PIECE_ORDER.indexOf(c) < 0) {
+                throw new IllegalArgumentException("Unknown piece in configuration: " + config);
+            }
+        }
+
+        Job job = new Job(pieces.toCharArray());
+        boolean changed;
+        do {
+            changed = job.sweep(true) | job.sweep(false);
+        } while (changed);
+        return new Bitbase(name, job.strongWins, job.weakLosses);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static boolean onBoard(int rank, int file) {
+        return rank >= 0 && rank < 8 && file >= 0 && file < 8;
+    }
+
+    /**
+     * The state of one generation run.
+     */
+    private final class Job {
+        private final char[] pieces;
+        private final int men;
+        private final int size;
+        final long[] strongWins;
+        final long[] weakLosses;
+
+        Job(char[] pieces) {
+            this.pieces = pieces;
+            this.men = pieces.length + 2;
+            this.size = 1 << (6 * men);
+            this.strongWins = new long[size >>> 6];
+            this.weakLosses = new long[size >>> 6];
+        }
+
+        boolean sweep(boolean strongToMove) {
+            AtomicBoolean changed = new AtomicBoolean(false);
+            pool.submit(() -> IntStream.range(0, size / CHUNK).parallel().forEach(chunk -> {
+                int[] squares = new int[men];
+                int[] scratch = new int[men];
+                boolean any = false;
+                for (int index = chunk * CHUNK; index < (chunk + 1) * CHUNK; index++) {
+                    any |= strongToMove ? updateStrong(index, squares, scratch) : updateWeak(index, squares, scratch);
+                }
+                if (any) changed.set(true);
+            })).join();
+            return changed.get();
+        }
+
+        private boolean updateStrong(int index, int[] squares, int[] scratch) {
+            if (isSet(strongWins, index)) return false;
+            decode(index, squares);
+            if (!isValid(squares) || isAttackedByStrong(squares, squares[men - 1], -1, occupancy(squares))) {
+                return false;
+            }
+            if (strongHasWinningMove(squares, scratch)) {
+                set(strongWins, index);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean updateWeak(int index, int[] squares, int[] scratch) {
+            if (isSet(weakLosses, index)) return false;
+            decode(index, squares);
+            if (!isValid(squares)) return false;
+
+            int weakKing = squares[men - 1];
+            long occupied = occupancy(squares) & ~(1L << weakKing);
+            boolean hasMove = false;
+            long targets = KING_ATTACKS[weakKing];
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int captured = pieceOn(squares, to);
+                if (captured == 0) continue; // the strong king
+                if (isAttackedByStrong(squares, to, captured, occupied)) continue;
+                hasMove = true;
+                System.arraycopy(squares, 0, scratch, 0, men);
+                scratch[men - 1] = to;
+                if (captured > 0) {
+                    if (!reducedIsWin(scratch, captured)) return false;
+                } else if (!isSet(strongWins, encode(scratch))) {
+                    return false;
+                }
+            }
+            if (!hasMove && !isAttackedByStrong(squares, weakKing, -1, occupied)) {
+                return false; // stalemate
+            }
+            set(weakLosses, index);
+            return true;
+        }
+
+        private boolean strongHasWinningMove(int[] squares, int[] scratch) {
+            long occupied = occupancy(squares);
+            int weakKing = squares[men - 1];
+            for (int i = 0; i < men - 1; i++) {
+                int from = squares[i];
+                long targets;
+                char type = i == 0 ? 'K' : pieces[i - 1];
+                if (type == 'P') {
+                    if (pawnMoves(squares, i, occupied, scratch)) return true;
+                    continue;
+                }
+                targets = attacks(type, from, occupied) & ~occupied;
+                if (type == 'K') targets &= ~KING_ATTACKS[weakKing];
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    System.arraycopy(squares, 0, scratch, 0, men);
+                    scratch[i] = to;
+                    if (isSet(weakLosses, encode(scratch))) return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean pawnMoves(int[] squares, int i, long occupied, int[] scratch) {
+            int from = squares[i];
+            int oneStep = from - 8; // the stronger side always moves towards rank index 0
+            if ((occupied & (1L << oneStep)) != 0) return false;
+            System.arraycopy(squares, 0, scratch, 0, men);
+            scratch[i] = oneStep;
+            if ((oneStep >> 3) == 0) {
+                // Promotion: the result lives in the bitbase with the new piece instead of the pawn.
+                for (char promotion : new char[]{'Q', 'R'}) {
+                    Bitbase target = available.get(Bitbase.canonicalName(String.valueOf(promotion)));
+                    if (target != null && target.isWin(scratch, false)) return true;
+                }
+                return false;
+            }
+            if (isSet(weakLosses, encode(scratch))) return true;
+            int twoSteps = from - 16;
+            if ((from >> 3) == 6 && (occupied & (1L << twoSteps)) == 0) {
+                scratch[i] = twoSteps;
+                return isSet(weakLosses, encode(scratch));
+            }
+            return false;
+        }
+
+        private boolean reducedIsWin(int[] squares, int captured) {
+            if (men == 3) return false; // bare kings
+            StringBuilder remaining = new StringBuilder();
+            int[] reduced = new int[men - 1];
+            int n = 0;
+            for (int i = 0; i < men; i++) {
+                if (i == captured) continue;
+                reduced[n++] = squares[i];
+                if (i > 0 && i < men - 1) remaining.append(pieces[i - 1]);
+            }
+            Bitbase target = available.get(Bitbase.canonicalName(remaining.toString()));
+            return target != null && target.isWin(reduced, true);
+        }
+
+        /**
+         * @param ignore Index of a strong piece that has just been captured, or -1.
+         */
+        private boolean isAttackedByStrong(int[] squares, int target, int ignore, long occupied) {
+            if ((KING_ATTACKS[squares[0]] & (1L << target)) != 0) return true;
+            for (int i = 1; i < men - 1; i++) {
+                if (i == ignore) continue;
+                char type = pieces[i - 1];
+                long attacked = type == 'P' ? pawnAttacks(squares[i]) : attacks(type, squares[i], occupied);
+                if ((attacked & (1L << target)) != 0) return true;
+            }
+            return false;
+        }
+
+        private int pieceOn(int[] squares, int square) {
+            for (int i = 0; i < men - 1; i++) {
+                if (squares[i] == square) return i;
+            }
+            return -1;
+        }
+
+        private boolean isValid(int[] squares) {
+            long seen = 0L;
+            for (int i = 0; i < men; i++) {
+                long bit = 1L << squares[i];
+                if ((seen & bit) != 0) return false;
+                seen |= bit;
+                if (i > 0 && i < men - 1 && pieces[i - 1] == 'P') {
+                    int rank = squares[i] >> 3;
+                    if (rank == 0 || rank == 7) return false;
+                }
+            }
+            return (KING_ATTACKS[squares[0]] & (1L << squares[men - 1])) == 0;
+        }
+
+        private long occupancy(int[] squares) {
+            long occupied = 0L;
+            for (int i = 0; i < men; i++) occupied |= 1L << squares[i];
+            return occupied;
+        }
+
+        private void decode(int index, int[] squares) {
+            for (int i = men - 1; i >= 0; i--) {
+                squares[i] = index & 63;
+                index >>>= 6;
+            }
+        }
+
+        private int encode(int[] squares) {
+            int index = 0;
+            for (int i = 0; i < men; i++) index = (index << 6) | squares[i];
+            return index;
+        }
+    }
+
+    private static long attacks(char type, int from, long occupied) {
+        return switch (type) {
+            case 'K' -> KING_ATTACKS[from];
+            case 'N' -> KNIGHT_ATTACKS[from];
+            case 'B' -> slide(from, occupied, BISHOP_DIRECTIONS);
+            case 'R' -> slide(from, occupied, ROOK_DIRECTIONS);
+            case 'Q' -> slide(from, occupied, BISHOP_DIRECTIONS) | slide(from, occupied, ROOK_DIRECTIONS);
+            default -> 0L;
+        };
+    }
+
+    private static long pawnAttacks(int from) {
+        int r = (from >> 3) - 1;
+        int f = from & 7;
+        long attacked = 0L;
+        if (onBoard(r, f - 1)) attacked |= 1L << (r * 8 + f - 1);
+        if (onBoard(r, f + 1)) attacked |= 1L << (r * 8 + f + 1);
+        return attacked;
+    }
+
+    private static long slide(int from, long occupied, int[][] directions) {
+        long attacked = 0L;
+        for (int[] d : directions) {
+            int r = (from >> 3) + d[0];
+            int f = (from & 7) + d[1];
+            while (onBoard(r, f)) {
+                int sq = r * 8 + f;
+                attacked |= 1L << sq;
+                if ((occupied & (1L << sq)) != 0) break;
+                r += d[0];
+                f += d[1];
+            }
+        }
+        return attacked;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+}
@@ -0,0 +1,177 @@
+package main.engine.endgame;
+
+import main.common.Colour;
+import main.model.Board.Board;
+import main.model.pieces.Piece;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of loaded {@link Bitbase}s that can be probed with any {@link Board}. Safe to share
+ * between threads once loaded.
+ * <p>
+ * A probe makes one pass over the board without allocating and finds the table through a
+ * material key, an index into an array built when the tables are added.
+ */
+public class Bitbases {
+
+    public static final int LOSS = -1;
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    /** Returned when no loaded bitbase covers the position. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    public static final String FILE_EXTENSION = ".bb";
+    /** System property naming the directory {@link #getDefault} loads from. */
+    public static final String DIRECTORY_PROPERTY = "chess.bitbases";
+
+    /** Bits per piece type in a material key: up to 7 pieces of each of the five types. */
+    private static final int KEY_BITS = 3;
+
+    private final Map<String, Bitbase> tables = new HashMap<>();
+    private final Bitbase[] byMaterial = new Bitbase[1 << (KEY_BITS * Bitbase.PIECE_ORDER.length())];
+    private int maxMen;
+
+    public void add(Bitbase bitbase) {
+        tables.put(bitbase.getConfig(), bitbase);
+        String config = bitbase.getConfig();
+        int key = 0;
+        for (int i = 1; i < config.length() - 1; i++) {
+            key += 1 << (KEY_BITS * Bitbase.PIECE_ORDER.indexOf(config.charAt(i)));
+        }
+        byMaterial[key] = bitbase;
+        maxMen = Math.max(maxMen, bitbase.getPieceCount());
+    }
+
+    public Bitbase get(String config) {
+        return tables.get(config);
+    }
+
+    /**
+     * The number of men, kings included, in the largest loaded configuration, or 0 if none are
+     * loaded. Positions with more men need not be probed.
+     */
+    public int getMaxMen() {
+        return maxMen;
+    }
+
+    /**
+     * Loads every {@code *.bb} file in a directory.
+     */
+    public static Bitbases load(Path directory) throws IOException {
+        Bitbases bitbases = new Bitbases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for (Path file : files) {
+                bitbases.add(Bitbase.read(file));
+            }
+        }
+        return bitbases;
+    }
+
+    /**
+     * The bitbases used by searches and match adjudication unless others are set: those in the
+     * directory named by {@value #DIRECTORY_PROPERTY}, by default {@code bitbases} (where
+     * {@link BitbaseGenerator} writes them). Empty if the directory does not exist.
+     */
+    public static Bitbases getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        static final Bitbases INSTANCE = loadDefault();
+
+        private static Bitbases loadDefault() {
+            Path directory = Path.of(System.getProperty(DIRECTORY_PROPERTY, "bitbases"));
+            if (!Files.isDirectory(directory)) {
+                return new Bitbases();
+            }
+            try {
+                return load(directory);
+            } catch (IOException e) {
+                System.err.println("Error loading bitbases from " + directory + ": " + e.getMessage());
+                return new Bitbases();
+            }
+        }
+    }
+
+    /**
+     * Probes the position on the board.
+     *
+     * @return {@link #WIN}, {@link #DRAW} or {@link #LOSS} from the side to move's point of view,
+     *         or {@link #UNKNOWN} if the material is not covered.
+     */
+    public int probe(Board board) {
+        // One pass: find the kings and note up to three other men as colour << 9 | type << 6 | square.
+        int whiteMen = 0;
+        int blackMen = 0;
+        int whiteKing = 0;
+        int blackKing = 0;
+        int others = 0;
+        int man0 = 0, man1 = 0, man2 = 0;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getPiece(square >> 3, square & 7);
+            if (piece == null) continue;
+            boolean white = piece.getColor() == Colour.WHITE;
+            if (white) whiteMen++; else blackMen++;
+            char symbol = piece.getSymbol();
+            if (symbol == 'K') {
+                if (white) whiteKing = square; else blackKing = square;
+                continue;
+            }
+            int man = (white ? 0 : 1 << 9) | Bitbase.PIECE_ORDER.indexOf(symbol) << 6 | square;
+            switch (others++) {
+                case 0 -> man0 = man;
+                case 1 -> man1 = man;
+                case 2 -> man2 = man;
+                default -> {
+                    return UNKNOWN; // more than five men
+                }
+            }
+        }
+        if (whiteMen > 1 && blackMen > 1) {
+            return UNKNOWN;
+        }
+        if (others == 0) {
+            return DRAW; // bare kings
+        }
+        boolean strongIsWhite = whiteMen >= blackMen;
+
+        // All other men are the stronger side's; put them in configuration order (by type, then
+        // board order) with a three-element sorting network. Unused slots sort last.
+        int unused = Integer.MAX_VALUE;
+        if (others < 3) man2 = unused;
+        if (others < 2) man1 = unused;
+        if (man0 > man1) { int t = man0; man0 = man1; man1 = t; }
+        if (man1 > man2) { int t = man1; man1 = man2; man2 = t; }
+        if (man0 > man1) { int t = man0; man0 = man1; man1 = t; }
+
+        int key = 0;
+        int index = normalise(strongIsWhite ? whiteKing : blackKing, strongIsWhite);
+        for (int i = 0; i < others; i++) {
+            int man = i == 0 ? man0 : i == 1 ? man1 : man2;
+            key += 1 << (KEY_BITS * ((man >> 6) & 7));
+            index = index << 6 | normalise(man & 63, strongIsWhite);
+        }
+        Bitbase bitbase = byMaterial[key];
+        if (bitbase == null) {
+            return UNKNOWN;
+        }
+        index = index << 6 | normalise(strongIsWhite ? blackKing : whiteKing, strongIsWhite);
+
+        boolean strongToMove = (board.getTurn() == Colour.WHITE) == strongIsWhite;
+        if (!bitbase.isWin(index, strongToMove)) {
+            return DRAW;
+        }
+        return strongToMove ? WIN : LOSS;
+    }
+
+    /** Mirrors Black onto White's side of the board. */
+    private static int normalise(int square, boolean strongIsWhite) {
+        return strongIsWhite ? square : square ^ 56;
+    }
+}
@@ -0,0 +1,341 @@
+package main.engine.match;
+
+import main.PGNGenerator;
+import main.common.Colour;
+import main.common.FenUtility;
+import main.common.Square;
+import main.engine.ClassicalEvaluator;
+import main.engine.Evaluator;
+import main.engine.Moves;
+import main.engine.Search;
+import main.engine.SearchResult;
+import main.engine.TimeManager;
+import main.engine.TranspositionTable;
+import main.engine.Zobrist;
+import main.engine.endgame.Bitbases;
+import main.engine.nnue.NnueEvaluator;
+import main.engine.nnue.NnueNetwork;
+import main.model.Board.Board;
+import main.model.pieces.Pawn;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays engine-vs-engine games between two configurations, one game per core, and stops as soon
+ * as a sequential probability ratio test decides whether the first engine is stronger.
+ * <p>
+ * Each opening is played twice with colours reversed. Games are adjudicated with {@link Board}
+ * (mate, stalemate, threefold repetition, fifty moves, insufficient material), by the
+ * {@link Bitbases#getDefault() default bitbases} once they cover the position, and by agreement
+ * when both engines see a decisive score for several moves. Nothing here touches the network.
+ * <p>
+ * Usage: java main.engine.match.MatchRunner [engine1=classical] [engine2=classical]
+ * [openings=file.epd] [games=1000] [tc=10+0.1 | movetime=100] [concurrency=cores] [hash=16]
+ * [elo0=0] [elo1=5] [alpha=0.05] [beta=0.05] [pgn=match.pgn]
+ * <p>
+ * An engine is {@code classical} or the path of an NNUE network file. The time control is
+ * seconds per game plus seconds per move, or a fixed time per move in milliseconds.
+ */
+public class MatchRunner {
+
+    private static final int MAX_PLIES = 400;
+    private static final int ADJUDICATE_SCORE = 1000;
+    private static final int ADJUDICATE_PLIES = 8;
+    private static final int REPORT_INTERVAL = 10;
+
+    private final EngineConfig first;
+    private final EngineConfig second;
+    private final List<String> openings;
+    private final long baseMillis;
+    private final long incrementMillis;
+    private final long moveTimeMillis;
+    private final MatchStatistics statistics;
+    private final AtomicBoolean decided = new AtomicBoolean();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private BufferedWriter pgnOut;
+
+    /**
+     * An engine configuration under test.
+     *
+     * @param name       Name written to the PGN.
+     * @param evaluators Creates an evaluator per game; evaluators are not thread-safe.
+     * @param hashMb     Transposition table size per game.
+     */
+    public record EngineConfig(String name, Supplier<Evaluator> evaluators, int hashMb) {
+    }
+
+    /**
+     * @param moveTimeMillis Fixed time per move, or 0 to play with game clocks of {@code baseMillis}
+     *                       plus {@code incrementMillis} per move.
+     */
+    public MatchRunner(EngineConfig first, EngineConfig second, List<String> openings,
+                       long baseMillis, long incrementMillis, long moveTimeMillis, MatchStatistics statistics) {
+        this.first = first;
+        this.second = second;
+        this.openings = openings;
+        this.baseMillis = baseMillis;
+        this.incrementMillis = incrementMillis;
+        this.moveTimeMillis = moveTimeMillis;
+        this.statistics = statistics;
+    }
+
+    /** Writes every finished game to this file as PGN. */
+    public void setPgnOutput(Path path) throws IOException {
+        pgnOut = Files.newBufferedWriter(path);
+    }
+
+    /**
+     * Plays up to {@code maxGames} games on {@code concurrency} threads, stopping early once the SPRT is decided.
+     */
+    public void run(int maxGames, int concurrency) throws InterruptedException, IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < maxGames; i++) {
+            int game = i;
+            pool.submit(() -> {
+                if (decided.get()) return;
+                try {
+                    playAndRecord(game, start);
+                } catch (RuntimeException | IOException e) {
+                    System.err.println("Error in game " + (game + 1) + ": " + e.getMessage());
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        if (pgnOut != null) {
+            pgnOut.close();
+        }
+        System.out.println("Finished: " + statistics);
+        printThroughput(start);
+    }
+
+    private void playAndRecord(int game, long matchStart) throws IOException {
+        String opening = openings.get(game / 2 % openings.size());
+        boolean firstIsWhite = game % 2 == 0;
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        GameRecord record = play(opening, firstIsWhite ? first : second, firstIsWhite ? second : first);
+        cpuNanos.addAndGet(threads.getCurrentThreadCpuTime() - cpuBefore);
+
+        double whiteScore = switch (record.result()) {
+            case "1-0" -> 1;
+            case "0-1" -> 0;
+            default -> 0.5;
+        };
+        statistics.add(firstIsWhite ? whiteScore : 1 - whiteScore);
+        if (pgnOut != null) {
+            String pgn = PGNGenerator.generate("Engine Match", String.valueOf(game + 1),
+                    record.white(), record.black(), record.result(), opening, record.moves());
+            synchronized (this) {
+                pgnOut.write(pgn);
+                pgnOut.write(System.lineSeparator() + System.lineSeparator());
+                pgnOut.flush();
+            }
+        }
+        if (statistics.isDecided()) {
+            decided.set(true);
+        }
+        int games = statistics.getGames();
+        if (games % REPORT_INTERVAL == 0 || statistics.isDecided()) {
+            System.out.println(statistics);
+            printThroughput(matchStart);
+        }
+    }
+
+    private record GameRecord(String white, String black, String result, List<String> moves) {
+    }
+
+    /**
+     * Plays one game from the given position and adjudicates it.
+     */
+    private GameRecord play(String startFen, EngineConfig white, EngineConfig black) {
+        Board board = new Board();
+        board.updateFromFen(startFen);
+        Search whiteSearch = new Search(new TranspositionTable(white.hashMb()), white.evaluators().get());
+        Search blackSearch = new Search(new TranspositionTable(black.hashMb()), black.evaluators().get());
+        long[] remaining = {baseMillis, baseMillis};
+        List<String> sanMoves = new ArrayList<>();
+        List<Long> history = new ArrayList<>();
+        Map<Long, Integer> occurrences = new HashMap<>();
+        int[] moves = new int[256];
+        int halfmoveClock = halfmoveClock(startFen);
+        Colour adjudicatedWinner = null;
+        int adjudicationStreak = 0;
+
+        while (true) {
+            Colour turn = board.getTurn();
+            String lossForMover = turn == Colour.WHITE ? "0-1" : "1-0";
+            long key = Zobrist.hash(board);
+            int seen = occurrences.merge(key, 1, Integer::sum);
+            int legalMoves = Moves.generate(board, moves);
+            if (legalMoves == 0) {
+                return board.isInCheck(turn)
+                        ? finish(white, black, lossForMover, sanMoves)
+                        : finish(white, black, "1/2-1/2", sanMoves);
+            }
+            if (seen >= 3) return finish(white, black, "1/2-1/2", sanMoves);
+            if (halfmoveClock >= 100) return finish(white, black, "1/2-1/2", sanMoves);
+            if (board.hasInsufficientMaterial()) return finish(white, black, "1/2-1/2", sanMoves);
+            int wdl = Bitbases.getDefault().probe(board);
+            if (wdl != Bitbases.UNKNOWN) {
+                String result = wdl == Bitbases.DRAW ? "1/2-1/2" : wdl == Bitbases.LOSS ? lossForMover
+                        : turn == Colour.WHITE ? "1-0" : "0-1";
+                return finish(white, black, result, sanMoves);
+            }
+            if (sanMoves.size() >= MAX_PLIES) return finish(white, black, "1/2-1/2", sanMoves);
+
+            Search search = turn == Colour.WHITE ? whiteSearch : blackSearch;
+            search.setGameHistory(history.stream().mapToLong(Long::longValue).toArray());
+            int side = turn == Colour.WHITE ? 0 : 1;
+            TimeManager timeManager = new TimeManager();
+            if (moveTimeMillis > 0) {
+                timeManager.startFixed(moveTimeMillis);
+            } else {
+                timeManager.start(remaining[side], incrementMillis, 0, legalMoves);
+            }
+            long started = System.nanoTime();
+            SearchResult result = search.search(new Board(board), Search.MAX_DEPTH, timeManager);
+            if (moveTimeMillis == 0) {
+                remaining[side] -= (System.nanoTime() - started) / 1_000_000;
+                if (remaining[side] < 0) {
+                    return finish(white, black, lossForMover, sanMoves);
+                }
+                remaining[side] += incrementMillis;
+            }
+
+            // Adjudicate when both engines agree on a decisive score for several plies in a row.
+            Colour winner = result.score() >= ADJUDICATE_SCORE ? turn
+                    : result.score() <= -ADJUDICATE_SCORE ? (turn == Colour.WHITE ? Colour.BLACK : Colour.WHITE) : null;
+            adjudicationStreak = winner != null && winner == adjudicatedWinner ? adjudicationStreak + 1 : winner != null ? 1 : 0;
+            adjudicatedWinner = winner;
+            if (adjudicationStreak >= ADJUDICATE_PLIES) {
+                return finish(white, black, winner == Colour.WHITE ? "1-0" : "0-1", sanMoves);
+            }
+
+            int move = result.bestMove() != Moves.NONE ? result.bestMove() : moves[0];
+            Square start = Moves.start(move);
+            Square end = Moves.end(move);
+            boolean irreversible = board.getPiece(start) instanceof Pawn || board.getPiece(end) != null;
+            halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+            history.add(key);
+            sanMoves.add(board.applyMove(start, end, Moves.promotion(move)));
+        }
+    }
+
+    private static GameRecord finish(EngineConfig white, EngineConfig black, String result, List<String> moves) {
+        return new GameRecord(white.name(), black.name(), result, moves);
+    }
+
+    private static int halfmoveClock(String fen) {
+        String[] fields = fen.trim().split(" ");
+        try {
+            return fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void printThroughput(long matchStart) {
+        int games = statistics.getGames();
+        double minutes = (System.nanoTime() - matchStart) / 60e9;
+        System.out.printf("Throughput: %.1f games/min, %.0f ms CPU per game%n",
+                games / Math.max(minutes, 1e-9), games == 0 ? 0.0 : cpuNanos.get() / 1e6 / games);
+    }
+
+    /**
+     * Reads an opening suite: one FEN or EPD per line; blank lines and lines starting with '#' are skipped.
+     * EPD operations other than the move counters are ignored.
+     */
+    public static List<String> readOpenings(Path path) throws IOException {
+        List<String> openings = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                openings.add(FenUtility.parseEpd(trimmed).fen());
+            }
+        }
+        return openings;
+    }
+
+    /** Parses {@code classical} or the path of an NNUE network file. */
+    static EngineConfig parseEngine(String spec, int hashMb) throws IOException {
+        if (spec.equals("classical")) {
+            return new EngineConfig("classical", ClassicalEvaluator::new, hashMb);
+        }
+        NnueNetwork network;
+        try (InputStream in = Files.newInputStream(Path.of(spec))) {
+            network = NnueNetwork.load(in);
+        }
+        String name = Path.of(spec).getFileName().toString();
+        return new EngineConfig(name, () -> new NnueEvaluator(network), hashMb);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                System.err.println("Ignoring argument without '=': " + arg);
+                continue;
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int hashMb = Integer.parseInt(options.getOrDefault("hash", String.valueOf(TranspositionTable.DEFAULT_SIZE_MB)));
+        EngineConfig first = parseEngine(options.getOrDefault("engine1", "classical"), hashMb);
+        EngineConfig second = parseEngine(options.getOrDefault("engine2", "classical"), hashMb);
+        if (first.name().equals(second.name())) {
+            first = new EngineConfig(first.name() + "-1", first.evaluators(), hashMb);
+            second = new EngineConfig(second.name() + "-2", second.evaluators(), hashMb);
+        }
+        List<String> openings = options.containsKey("openings")
+                ? readOpenings(Path.of(options.get("openings")))
+                : List.of("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        if (openings.isEmpty()) {
+            System.err.println("Error reading openings: no positions found");
+            return;
+        }
+
+        long moveTime = Long.parseLong(options.getOrDefault("movetime", "0"));
+        long base = 10_000;
+        long increment = 100;
+        if (options.containsKey("tc")) {
+            String tc = options.get("tc");
+            int plus = tc.indexOf('+');
+            base = Math.round(Double.parseDouble(plus < 0 ? tc : tc.substring(0, plus)) * 1000);
+            increment = plus < 0 ? 0 : Math.round(Double.parseDouble(tc.substring(plus + 1)) * 1000);
+        }
+        MatchStatistics statistics = new MatchStatistics(
+                Double.parseDouble(options.getOrDefault("elo0", "0")),
+                Double.parseDouble(options.getOrDefault("elo1", "5")),
+                Double.parseDouble(options.getOrDefault("alpha", "0.05")),
+                Double.parseDouble(options.getOrDefault("beta", "0.05")));
+
+        MatchRunner runner = new MatchRunner(first, second, openings, base, increment, moveTime, statistics);
+        if (options.containsKey("pgn")) {
+            runner.setPgnOutput(Path.of(options.get("pgn")));
+        }
+        int games = Integer.parseInt(options.getOrDefault("games", "1000"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        System.out.println("Match " + first.name() + " vs " + second.name() + ", " + openings.size()
+                + " openings, up to " + games + " games on " + concurrency + " threads");
+        runner.run(games, concurrency);
+    }
+}
@@ -0,0 +1,136 @@
+package main.engine.match;
+
+/**
+ * Win/draw/loss totals of a match from the first engine's point of view, with the Elo estimate
+ * and a sequential probability ratio test (SPRT) on them.
+ * <p>
+ * The SPRT tests H0: elo = elo0 against H1: elo = elo1 using the normal approximation to the
+ * log-likelihood ratio of the game scores. It accepts a hypothesis as soon as the ratio leaves the
+ * bounds set by the error rates, so clear results stop a match long before a fixed game count.
+ */
+public class MatchStatistics {
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * @param elo0  Elo difference under the null hypothesis, typically 0.
+     * @param elo1  Elo difference under the alternative hypothesis, e.g. 5.
+     * @param alpha Probability of accepting H1 when H0 holds.
+     * @param beta  Probability of accepting H0 when H1 holds.
+     */
+    public MatchStatistics(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Records a game result from the first engine's point of view: 1, 0.5 or 0.
+     */
+    public synchronized void add(double score) {
+        if (score > 0.75) wins++;
+        else if (score > 0.25) draws++;
+        else losses++;
+    }
+
+    public synchronized int getGames() {
+        return wins + draws + losses;
+    }
+
+    public synchronized int getWins() {
+        return wins;
+    }
+
+    public synchronized int getDraws() {
+        return draws;
+    }
+
+    public synchronized int getLosses() {
+        return losses;
+    }
+
+    /** The first engine's mean score per game, between 0 and 1. */
+    public synchronized double getScore() {
+        int games = getGames();
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    /** The Elo difference implied by the score. */
+    public synchronized double getElo() {
+        return scoreToElo(getScore());
+    }
+
+    /**
+     * Half the width of the 95% confidence interval of the Elo difference.
+     */
+    public synchronized double getEloError95() {
+        int games = getGames();
+        if (games == 0) return Double.POSITIVE_INFINITY;
+        double score = getScore();
+        double error = 1.959964 * Math.sqrt(variance(score) / games);
+        return (scoreToElo(score + error) - scoreToElo(score - error)) / 2;
+    }
+
+    /** The log-likelihood ratio of H1 against H0. */
+    public synchronized double getLlr() {
+        int games = getGames();
+        if (games == 0) return 0;
+        double score = getScore();
+        double variance = variance(score);
+        if (variance == 0) return 0;
+        double s0 = eloToScore(elo0);
+        double s1 = eloToScore(elo1);
+        return games * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /** Whether the SPRT has accepted either hypothesis. */
+    public synchronized boolean isDecided() {
+        double llr = getLlr();
+        return llr <= lowerBound || llr >= upperBound;
+    }
+
+    /** "H1 accepted" or "H0 accepted" once decided, otherwise "undecided". */
+    public synchronized String getVerdict() {
+        double llr = getLlr();
+        return llr >= upperBound ? "H1 accepted" : llr <= lowerBound ? "H0 accepted" : "undecided";
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Games %d: +%d =%d -%d, Elo %+.1f +/- %.1f, LLR %.2f [%.2f, %.2f] %s",
+                getGames(), wins, draws, losses, getElo(), getEloError95(), getLlr(), lowerBound, upperBound, getVerdict());
+    }
+
+    private double variance(double score) {
+        int games = getGames();
+        return (wins * sq(1 - score) + draws * sq(0.5 - score) + losses * sq(score)) / games;
+    }
+
+    private static double sq(double x) {
+        return x * x;
+    }
+
+    private static double eloToScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    private static double scoreToElo(double score) {
+        double clamped = Math.min(1 - 1e-9, Math.max(1e-9, score));
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+}
@@ -0,0 +1,68 @@
+package main.engine.nnue;
+
+import main.common.Square;
+import main.engine.Zobrist;
+import main.model.Board.Board;
+
+/**
+ * The first-layer activations of a {@link NnueNetwork} for one position, from both
+ * White's and Black's point of view. Once built, it is kept up to date by adding and
+ * removing single pieces instead of being recomputed.
+ */
+public final class Accumulator {
+
+    final short[] white;
+    final short[] black;
+
+    public Accumulator(int hiddenSize) {
+        this.white = new short[hiddenSize];
+        this.black = new short[hiddenSize];
+    }
+
+    public void copyFrom(Accumulator other) {
+        System.arraycopy(other.white, 0, white, 0, white.length);
+        System.arraycopy(other.black, 0, black, 0, black.length);
+    }
+
+    /**
+     * Rebuilds both perspectives from scratch.
+     */
+    public void refresh(NnueNetwork network, NnueKernels kernels, Board board) {
+        System.arraycopy(network.featureBiases, 0, white, 0, white.length);
+        System.arraycopy(network.featureBiases, 0, black, 0, black.length);
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                int piece = Zobrist.pieceIndex(board.getPiece(new Square(r, c)));
+                if (piece >= 0) {
+                    addPiece(network, kernels, piece, r * 8 + c);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param piece  A piece index as returned by {@link Zobrist#pieceIndex}.
+     * @param square A square index (rank * 8 + file).
+     */
+    public void addPiece(NnueNetwork network, NnueKernels kernels, int piece, int square) {
+        int hidden = network.hiddenSize;
+        kernels.add(white, network.featureWeights, whiteFeature(piece, square) * hidden);
+        kernels.add(black, network.featureWeights, blackFeature(piece, square) * hidden);
+    }
+
+    public void removePiece(NnueNetwork network, NnueKernels kernels, int piece, int square) {
+        int hidden = network.hiddenSize;
+        kernels.subtract(white, network.featureWeights, whiteFeature(piece, square) * hidden);
+        kernels.subtract(black, network.featureWeights, blackFeature(piece, square) * hidden);
+    }
+
+    private static int whiteFeature(int piece, int square) {
+        return piece * 64 + square;
+    }
+
+    private static int blackFeature(int piece, int square) {
+        // Swap colours and mirror the board vertically so Black sees itself as White.
+        int relative = piece < 6 ? piece + 6 : piece - 6;
+        return relative * 64 + (square ^ 56);
+    }
+}
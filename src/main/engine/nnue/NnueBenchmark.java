@@ -0,0 +1,96 @@
+package main.engine.nnue;
+
+import main.common.Square;
+import main.model.Board.Board;
+
+import java.util.Optional;
+
+/**
+ * Micro-benchmark comparing the scalar and Vector API kernels on full refreshes and on
+ * incremental updates. Run with {@code --add-modules jdk.incubator.vector} to include the
+ * SIMD kernels; without it only the scalar kernels are measured.
+ * <p>
+ * Usage: {@code NnueBenchmark [hiddenSize] [iterations]}
+ */
+public final class NnueBenchmark {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            "r3k2r/pp1n1ppp/2p1pn2/q2p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQkq - 0 9",
+            "8/5pk1/6p1/8/3R4/6P1/5PK1/3r4 b - - 0 40",
+    };
+
+    private NnueBenchmark() {}
+
+    public static void main(String[] args) {
+        int hidden = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        NnueNetwork network = NnueNetwork.random(hidden, 42);
+
+        NnueKernels scalar = new ScalarKernels();
+        NnueKernels best = NnueKernels.best();
+        System.out.println("Hidden size: " + hidden + ", iterations: " + iterations);
+        if (best instanceof ScalarKernels) {
+            System.out.println("Vector API not available; start the JVM with --add-modules jdk.incubator.vector.");
+        } else {
+            checkAgreement(network, scalar, best);
+        }
+
+        run(network, scalar, iterations);
+        if (!(best instanceof ScalarKernels)) {
+            run(network, best, iterations);
+        }
+    }
+
+    private static void checkAgreement(NnueNetwork network, NnueKernels a, NnueKernels b) {
+        NnueEvaluator first = new NnueEvaluator(network, a);
+        NnueEvaluator second = new NnueEvaluator(network, b);
+        Board board = new Board();
+        for (String fen : POSITIONS) {
+            board.updateFromFen(fen);
+            int x = first.evaluate(board);
+            int y = second.evaluate(board);
+            if (x != y) {
+                throw new IllegalStateException("Kernels disagree on " + fen + ": " + x + " vs " + y);
+            }
+        }
+        System.out.println("Kernels agree on all test positions.");
+    }
+
+    private static void run(NnueNetwork network, NnueKernels kernels, int iterations) {
+        NnueEvaluator evaluator = new NnueEvaluator(network, kernels);
+        Board board = new Board();
+        board.updateFromFen(POSITIONS[1]);
+        Square from = Square.fromAlgebraic("f3");
+        Square to = Square.fromAlgebraic("g5");
+        long sink = 0;
+
+        // Warm up both paths before timing them.
+        for (int i = 0; i < iterations / 10; i++) {
+            sink += evaluator.evaluate(board);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += evaluator.evaluate(board);
+        }
+        long refreshNanos = System.nanoTime() - start;
+
+        evaluator.reset(board);
+        for (int i = 0; i < iterations / 10; i++) {
+            evaluator.makeMove(board, from, to, Optional.empty());
+            sink += evaluator.evaluate(board);
+            evaluator.unmakeMove();
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            evaluator.makeMove(board, from, to, Optional.empty());
+            sink += evaluator.evaluate(board);
+            evaluator.unmakeMove();
+        }
+        long incrementalNanos = System.nanoTime() - start;
+
+        System.out.printf("%-22s refresh+eval: %8.1f ns   incremental+eval: %8.1f ns   (checksum %d)%n",
+                kernels.name(), (double) refreshNanos / iterations, (double) incrementalNanos / iterations, sink);
+    }
+}
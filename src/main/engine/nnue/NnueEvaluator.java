@@ -0,0 +1,138 @@
+package main.engine.nnue;
+
+import main.common.Colour;
+import main.common.Square;
+import main.engine.Evaluator;
+import main.engine.Zobrist;
+import main.model.Board.Board;
+import main.model.pieces.King;
+import main.model.pieces.Pawn;
+import main.model.pieces.Piece;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Evaluates positions with a {@link NnueNetwork}.
+ * <p>
+ * After {@link #reset(Board)} the evaluator keeps a stack of accumulators that a search
+ * updates through {@link #makeMove} and {@link #unmakeMove}, so each move only touches the
+ * two to four features that changed. Without a reset every call to {@link #evaluate}
+ * rebuilds the accumulator from the board. Not thread-safe; use one instance per thread.
+ */
+public class NnueEvaluator implements Evaluator {
+
+    private final NnueNetwork network;
+    private final NnueKernels kernels;
+    private final Accumulator scratch;
+    private Accumulator[] stack;
+    private int top = 0;
+    private boolean tracking = false;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, NnueKernels.best());
+    }
+
+    public NnueEvaluator(NnueNetwork network, NnueKernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+        this.scratch = new Accumulator(network.hiddenSize);
+        this.stack = new Accumulator[64];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = new Accumulator(network.hiddenSize);
+        }
+    }
+
+    /**
+     * Loads {@link NnueNetwork#DEFAULT_RESOURCE} if it is on the classpath.
+     */
+    public static Optional<NnueEvaluator> fromDefaultResource() {
+        try {
+            return Optional.of(new NnueEvaluator(NnueNetwork.fromResource(NnueNetwork.DEFAULT_RESOURCE)));
+        } catch (IOException e) {
+            System.err.println("NNUE evaluation unavailable: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Rebuilds the accumulator for a root position and starts incremental tracking.
+     */
+    @Override
+    public void reset(Board board) {
+        top = 0;
+        stack[0].refresh(network, kernels, board);
+        tracking = true;
+    }
+
+    @Override
+    public void makeMove(Board board, Square start, Square end, Optional<String> promotionPiece) {
+        if (!tracking) return;
+        if (top + 1 == stack.length) {
+            int oldLength = stack.length;
+            stack = Arrays.copyOf(stack, oldLength * 2);
+            for (int i = oldLength; i < stack.length; i++) {
+                stack[i] = new Accumulator(network.hiddenSize);
+            }
+        }
+        Accumulator next = stack[top + 1];
+        next.copyFrom(stack[top]);
+        top++;
+
+        Piece moving = board.getPiece(start);
+        int movingIndex = Zobrist.pieceIndex(moving);
+        int from = start.rank() * 8 + start.file();
+        int to = end.rank() * 8 + end.file();
+
+        Piece captured = board.getPiece(end);
+        if (captured != null) {
+            next.removePiece(network, kernels, Zobrist.pieceIndex(captured), to);
+        } else if (moving instanceof Pawn && start.file() != end.file()) {
+            // En passant: the captured pawn stands beside the moving one.
+            Square victim = new Square(start.rank(), end.file());
+            next.removePiece(network, kernels, Zobrist.pieceIndex(board.getPiece(victim)), victim.rank() * 8 + victim.file());
+        }
+
+        next.removePiece(network, kernels, movingIndex, from);
+        int placedIndex = movingIndex;
+        if (moving instanceof Pawn && (end.rank() == 0 || end.rank() == 7)) {
+            char promo = promotionPiece.orElse("Q").toUpperCase().charAt(0);
+            placedIndex = Zobrist.PIECE_ORDER.indexOf(promo) + (moving.getColor() == Colour.WHITE ? 0 : 6);
+        }
+        next.addPiece(network, kernels, placedIndex, to);
+
+        if (moving instanceof King && Math.abs(start.file() - end.file()) == 2) {
+            int rank = start.rank() * 8;
+            boolean kingside = end.file() > start.file();
+            int rookIndex = Zobrist.PIECE_ORDER.indexOf('R') + (moving.getColor() == Colour.WHITE ? 0 : 6);
+            next.removePiece(network, kernels, rookIndex, rank + (kingside ? 7 : 0));
+            next.addPiece(network, kernels, rookIndex, rank + (kingside ? 5 : 3));
+        }
+    }
+
+    @Override
+    public void unmakeMove() {
+        if (tracking && top > 0) {
+            top--;
+        }
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        Accumulator accumulator = stack[top];
+        if (!tracking) {
+            scratch.refresh(network, kernels, board);
+            accumulator = scratch;
+        }
+        boolean whiteToMove = board.getTurn() == Colour.WHITE;
+        short[] us = whiteToMove ? accumulator.white : accumulator.black;
+        short[] them = whiteToMove ? accumulator.black : accumulator.white;
+        long output = (long) kernels.forward(us, them, network.outputWeights) + network.outputBias;
+        return (int) (output * NnueNetwork.EVAL_SCALE / (NnueNetwork.QA * NnueNetwork.QB));
+    }
+
+    public NnueKernels getKernels() {
+        return kernels;
+    }
+}
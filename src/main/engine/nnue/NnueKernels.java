@@ -0,0 +1,37 @@
+package main.engine.nnue;
+
+/**
+ * The inner loops of the network: accumulator updates and the output layer.
+ * Implementations must produce bit-identical results.
+ */
+public interface NnueKernels {
+
+    /** {@code accumulator[i] += weights[offset + i]} for every hidden unit. */
+    void add(short[] accumulator, short[] weights, int offset);
+
+    /** {@code accumulator[i] -= weights[offset + i]} for every hidden unit. */
+    void subtract(short[] accumulator, short[] weights, int offset);
+
+    /**
+     * Computes {@code sum(clamp(us[i], 0, QA) * weights[i]) + sum(clamp(them[i], 0, QA) * weights[H + i])}.
+     */
+    int forward(short[] us, short[] them, short[] weights);
+
+    String name();
+
+    /**
+     * Returns the SIMD kernels if the {@code jdk.incubator.vector} module is available
+     * (start the JVM with {@code --add-modules jdk.incubator.vector}), else the scalar ones.
+     */
+    static NnueKernels best() {
+        try {
+            NnueKernels vector = (NnueKernels) Class.forName("main.engine.nnue.VectorKernels")
+                    .getDeclaredConstructor().newInstance();
+            // Touch the Vector API once so a missing module fails here rather than mid-search.
+            vector.forward(new short[16], new short[16], new short[32]);
+            return vector;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernels();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package main.engine.nnue;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+
+/**
+ * The quantised weights of an efficiently updatable network: one 768-input feature layer
+ * (12 piece types x 64 squares, seen from each side's perspective) feeding a clipped ReLU
+ * and a single linear output.
+ * <p>
+ * File layout (little-endian): magic {@code "NNUE"}, int input size, int hidden size,
+ * int16 feature weights [input][hidden], int16 feature biases [hidden],
+ * int16 output weights [2 * hidden], int32 output bias.
+ */
+public final class NnueNetwork {
+
+    public static final int INPUTS = 768;
+    public static final String DEFAULT_RESOURCE = "/nnue.bin";
+
+    /** Clipped ReLU ceiling of the quantised accumulator. */
+    static final int QA = 255;
+    /** Quantisation factor of the output weights. */
+    static final int QB = 64;
+    /** Converts the network's output to centipawns. */
+    static final int EVAL_SCALE = 400;
+
+    private static final int MAGIC = 0x45554E4E; // "NNUE" read little-endian
+
+    final int hiddenSize;
+    final short[] featureWeights;
+    final short[] featureBiases;
+    final short[] outputWeights;
+    final int outputBias;
+
+    private NnueNetwork(int hiddenSize, short[] featureWeights, short[] featureBiases, short[] outputWeights, int outputBias) {
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    /**
+     * Loads a network from a classpath resource, e.g. {@link #DEFAULT_RESOURCE}.
+     */
+    public static NnueNetwork fromResource(String path) throws IOException {
+        InputStream is = NnueNetwork.class.getResourceAsStream(path);
+        if (is == null) {
+            throw new IOException("Resource not found in classpath: " + path);
+        }
+        try (InputStream in = is) {
+            return load(in);
+        }
+    }
+
+    public static NnueNetwork load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        ByteBuffer header = ByteBuffer.wrap(data.readNBytes(12)).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.remaining() < 12 || header.getInt() != MAGIC) {
+            throw new IOException("Not an NNUE weights file.");
+        }
+        int inputs = header.getInt();
+        int hidden = header.getInt();
+        if (inputs != INPUTS || hidden <= 0 || hidden % 16 != 0) {
+            throw new IOException("Unsupported network shape " + inputs + "x" + hidden);
+        }
+        short[] featureWeights = readShorts(data, INPUTS * hidden);
+        short[] featureBiases = readShorts(data, hidden);
+        short[] outputWeights = readShorts(data, 2 * hidden);
+        byte[] bias = data.readNBytes(4);
+        if (bias.length < 4) {
+            throw new IOException("Truncated NNUE weights file.");
+        }
+        int outputBias = ByteBuffer.wrap(bias).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        return new NnueNetwork(hidden, featureWeights, featureBiases, outputWeights, outputBias);
+    }
+
+    /**
+     * Writes the network in the format read by {@link #load}.
+     */
+    public void write(OutputStream out) throws IOException {
+        int size = 12 + 2 * (featureWeights.length + featureBiases.length + outputWeights.length) + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(INPUTS).putInt(hiddenSize);
+        for (short w : featureWeights) buffer.putShort(w);
+        for (short b : featureBiases) buffer.putShort(b);
+        for (short w : outputWeights) buffer.putShort(w);
+        buffer.putInt(outputBias);
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(buffer.array());
+        data.flush();
+    }
+
+    /**
+     * Creates a network with small random weights. Useful for benchmarks and for checking
+     * the kernels against each other, not for playing.
+     */
+    public static NnueNetwork random(int hiddenSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        short[] featureWeights = new short[INPUTS * hiddenSize];
+        short[] featureBiases = new short[hiddenSize];
+        short[] outputWeights = new short[2 * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) featureWeights[i] = (short) random.nextInt(-64, 65);
+        for (int i = 0; i < featureBiases.length; i++) featureBiases[i] = (short) random.nextInt(0, 128);
+        for (int i = 0; i < outputWeights.length; i++) outputWeights[i] = (short) random.nextInt(-128, 129);
+        return new NnueNetwork(hiddenSize, featureWeights, featureBiases, outputWeights, 0);
+    }
+
+    private static short[] readShorts(DataInputStream data, int count) throws IOException {
+        byte[] bytes = data.readNBytes(count * 2);
+        if (bytes.length < count * 2) {
+            throw new IOException("Truncated NNUE weights file.");
+        }
+        short[] values = new short[count];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(values);
+        return values;
+    }
+}
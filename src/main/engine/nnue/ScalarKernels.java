@@ -0,0 +1,37 @@
+package main.engine.nnue;
+
+/**
+ * Plain Java kernels, used when the Vector API is unavailable.
+ */
+public final class ScalarKernels implements NnueKernels {
+
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int forward(short[] us, short[] them, short[] weights) {
+        int hidden = us.length;
+        int sum = 0;
+        for (int i = 0; i < hidden; i++) {
+            sum += Math.min(Math.max(us[i], 0), NnueNetwork.QA) * weights[i];
+            sum += Math.min(Math.max(them[i], 0), NnueNetwork.QA) * weights[hidden + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
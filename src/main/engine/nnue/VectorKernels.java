@@ -0,0 +1,84 @@
+package main.engine.nnue;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels on top of {@code jdk.incubator.vector}. Only loaded through
+ * {@link NnueKernels#best()}, so the rest of the engine does not depend on the module.
+ * <p>
+ * Hidden sizes are multiples of 16, which covers every preferred short species up to 256 bits;
+ * any remainder on wider machines is handled by a scalar tail.
+ */
+final class VectorKernels implements NnueKernels {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    // Same bit width as SHORTS, so widening one short vector yields two int vectors.
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, SHORTS.vectorShape());
+
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        int i = 0;
+        int bound = SHORTS.loopBound(accumulator.length);
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector a = ShortVector.fromArray(SHORTS, accumulator, i);
+            ShortVector w = ShortVector.fromArray(SHORTS, weights, offset + i);
+            a.add(w).intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        int i = 0;
+        int bound = SHORTS.loopBound(accumulator.length);
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector a = ShortVector.fromArray(SHORTS, accumulator, i);
+            ShortVector w = ShortVector.fromArray(SHORTS, weights, offset + i);
+            a.sub(w).intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int forward(short[] us, short[] them, short[] weights) {
+        int hidden = us.length;
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        int bound = SHORTS.loopBound(hidden);
+        for (; i < bound; i += SHORTS.length()) {
+            sum = sum.add(dot(us, weights, i, i));
+            sum = sum.add(dot(them, weights, i, hidden + i));
+        }
+        int total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < hidden; i++) {
+            total += Math.min(Math.max(us[i], 0), NnueNetwork.QA) * weights[i];
+            total += Math.min(Math.max(them[i], 0), NnueNetwork.QA) * weights[hidden + i];
+        }
+        return total;
+    }
+
+    private static IntVector dot(short[] accumulator, short[] weights, int index, int weightIndex) {
+        ShortVector clipped = ShortVector.fromArray(SHORTS, accumulator, index)
+                .max((short) 0)
+                .min((short) NnueNetwork.QA);
+        ShortVector w = ShortVector.fromArray(SHORTS, weights, weightIndex);
+        // The products need 32 bits, so widen each half before multiplying.
+        IntVector lowA = (IntVector) clipped.convertShape(VectorOperators.S2I, INTS, 0);
+        IntVector highA = (IntVector) clipped.convertShape(VectorOperators.S2I, INTS, 1);
+        IntVector lowW = (IntVector) w.convertShape(VectorOperators.S2I, INTS, 0);
+        IntVector highW = (IntVector) w.convertShape(VectorOperators.S2I, INTS, 1);
+        return lowA.mul(lowW).add(highA.mul(highW));
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SHORTS.length() + " x int16)";
+    }
+}
@@ -5,6 +5,7 @@ import main.common.Colour;
 import main.common.Square;
 import main.model.pieces.*;
 import main.model.PGNParser.Move;
+import main.model.PGNParser.SanParser;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +27,33 @@ public class Board {
         setupInitialPosition();
     }
 
+    /**
+     * Creates an independent copy of another board. Pieces are immutable, so they are shared.
+     */
+    public Board(Board other) {
+        grid = new Piece[8][8];
+        for (int r = 0; r < 8; r++) {
+            System.arraycopy(other.grid[r], 0, grid[r], 0, 8);
+        }
+        this.turn = other.turn;
+        this.enPassantTargetSquare = other.enPassantTargetSquare;
+        this.kingInCheckSquare = other.kingInCheckSquare;
+        this.whiteKingsideCastleRight = other.whiteKingsideCastleRight;
+        this.whiteQueensideCastleRight = other.whiteQueensideCastleRight;
+        this.blackKingsideCastleRight = other.blackKingsideCastleRight;
+        this.blackQueensideCastleRight = other.blackQueensideCastleRight;
+    }
+
+    /**
+     * Applies a move that is already known to be legal without generating its SAN.
+     * This is the fast path for engines and bulk replays.
+     *
+     * @return The captured piece, or null.
+     */
+    public Piece makeMove(Square start, Square end, Optional<String> promotionPiece) {
+        return internalApplyMove(start, end, promotionPiece);
+    }
+
     /**
      * Applies a move to the board and returns its Standard Algebraic Notation (SAN).
      * This method orchestrates the SAN generation and then applies the move.
@@ -178,10 +206,38 @@ public class Board {
     }
 
     public boolean applyMove(Move move) {
+        boolean isCastle = move.isKingsideCastle() || move.isQueensideCastle();
+        Square startSquare = findStartSquare(move);
+        if (startSquare == null) {
+            if (!isCastle) {
+                System.err.println("ILLEGAL PGN MOVE: No piece found that can legally perform " + move.getRaw() + " for " + turn);
+            }
+            return false;
+        }
+        internalApplyMove(startSquare, getTargetSquare(move), Optional.ofNullable(move.getPromotion()));
+        if (kingInCheckSquare != null) {
+            move.setCheck(true);
+            if (!hasAnyLegalMoves(turn)) {
+                move.setCheckmate(true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the square of the piece that would perform a parsed PGN move in the current
+     * position, without applying it. For castling this is the king's square.
+     *
+     * @return The start square, or null if no piece can legally make the move.
+     */
+    public Square findStartSquare(Move move) {
         if (move.isKingsideCastle() || move.isQueensideCastle()) {
-            return applyCastlingFromPGN(move);
+            Square kingStart = new Square((turn == Colour.WHITE) ? 7 : 0, 4);
+            List<Square> legalMoves = new ArrayList<>();
+            addLegalCastlingMoves(legalMoves, kingStart);
+            return legalMoves.contains(getTargetSquare(move)) ? kingStart : null;
         }
-        Square targetSquare = new Square(8 - move.getTargetRank(), move.getTargetFile() - 'a');
+        Square targetSquare = getTargetSquare(move);
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
                 Square startSquare = new Square(r, c);
@@ -191,20 +247,64 @@ public class Board {
                         continue;
                     }
                     if (isLegalMove(startSquare, targetSquare)) {
-                        internalApplyMove(startSquare, targetSquare, Optional.ofNullable(move.getPromotion()));
-                        if (kingInCheckSquare != null) {
-                            move.setCheck(true);
-                            if (!hasAnyLegalMoves(turn)) {
-                                move.setCheckmate(true);
-                            }
-                        }
-                        return true;
+                        return startSquare;
                     }
                 }
             }
         }
-        System.err.println("ILLEGAL PGN MOVE: No piece found that can legally perform " + move.getRaw() + " for " + turn);
-        return false;
+        return null;
+    }
+
+    /**
+     * Returns the destination square of a parsed PGN move. For castling this is the king's destination.
+     */
+    public Square getTargetSquare(Move move) {
+        if (move.isKingsideCastle() || move.isQueensideCastle()) {
+            return new Square((turn == Colour.WHITE) ? 7 : 0, move.isKingsideCastle() ? 6 : 2);
+        }
+        return new Square(8 - move.getTargetRank(), move.getTargetFile() - 'a');
+    }
+
+    /**
+     * Finds the start square of a move packed by {@link SanParser}, without creating a {@link Move}.
+     *
+     * @return The start square, or null if no piece of the side to move can make the move.
+     */
+    public Square findStartSquare(int san) {
+        Square targetSquare = getTargetSquare(san);
+        if (SanParser.isCastle(san)) {
+            Square kingStart = new Square((turn == Colour.WHITE) ? 7 : 0, 4);
+            List<Square> legalMoves = new ArrayList<>();
+            addLegalCastlingMoves(legalMoves, kingStart);
+            return legalMoves.contains(targetSquare) ? kingStart : null;
+        }
+        char symbol = SanParser.piece(san);
+        int disambiguationFile = SanParser.disambiguationFile(san);
+        int disambiguationRank = SanParser.disambiguationRank(san);
+        for (int r = 0; r < 8; r++) {
+            if (disambiguationRank > 0 && r != 8 - disambiguationRank) continue;
+            for (int c = 0; c < 8; c++) {
+                if (disambiguationFile >= 0 && c != disambiguationFile) continue;
+                Piece piece = grid[r][c];
+                if (piece != null && piece.getColor() == turn && piece.getSymbol() == symbol) {
+                    Square startSquare = new Square(r, c);
+                    if (isLegalMove(startSquare, targetSquare)) {
+                        return startSquare;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the destination square of a move packed by {@link SanParser}. For castling this is the king's destination.
+     */
+    public Square getTargetSquare(int san) {
+        if (SanParser.isCastle(san)) {
+            return new Square((turn == Colour.WHITE) ? 7 : 0, SanParser.targetFile(san));
+        }
+        return new Square(8 - SanParser.targetRank(san), SanParser.targetFile(san));
     }
 
     public void printBoard() {
@@ -364,6 +464,19 @@ public class Board {
         return false;
     }
 
+    /** Bare kings, or a single knight or bishop against a bare king: neither side can mate. */
+    public boolean hasInsufficientMaterial() {
+        int minors = 0;
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                Piece piece = grid[r][c];
+                if (piece == null || piece instanceof King) continue;
+                if (!(piece instanceof Knight || piece instanceof Bishop) || ++minors > 1) return false;
+            }
+        }
+        return true;
+    }
+
     public boolean isInCheck(Colour color) {
         Square kingSquare = findKing(color);
         if (kingSquare == null) {
@@ -377,6 +490,14 @@ public class Board {
         return grid[sq.rank()][sq.file()];
     }
 
+    /**
+     * The piece at a rank and file, counted as in {@link Square}; an allocation-free
+     * {@link #getPiece(Square)} for loops over the whole board.
+     */
+    public Piece getPiece(int rank, int file) {
+        return grid[rank][file];
+    }
+
     public void setPiece(Square sq, Piece piece) {
         if (sq != null && sq.isValid()) {
             grid[sq.rank()][sq.file()] = piece;
@@ -395,6 +516,14 @@ public class Board {
         return kingInCheckSquare;
     }
 
+    public boolean hasKingsideCastleRight(Colour colour) {
+        return colour == Colour.WHITE ? whiteKingsideCastleRight : blackKingsideCastleRight;
+    }
+
+    public boolean hasQueensideCastleRight(Colour colour) {
+        return colour == Colour.WHITE ? whiteQueensideCastleRight : blackQueensideCastleRight;
+    }
+
     public void setupInitialPosition() {
         for (int r = 0; r < 8; r++) for (int c = 0; c < 8; c++) grid[r][c] = null;
         this.turn = Colour.WHITE;
@@ -442,19 +571,6 @@ public class Board {
         }
     }
 
-    private boolean applyCastlingFromPGN(Move move) {
-        int rank = (turn == Colour.WHITE) ? 7 : 0;
-        Square kingStart = new Square(rank, 4);
-        Square kingEnd = new Square(rank, move.isKingsideCastle() ? 6 : 2);
-        List<Square> legalMoves = new ArrayList<>();
-        addLegalCastlingMoves(legalMoves, kingStart);
-        if (legalMoves.contains(kingEnd)) {
-            internalApplyMove(kingStart, kingEnd, Optional.empty());
-            return true;
-        }
-        return false;
-    }
-
     private void updateEnPassantTarget(Piece movingPiece, Square start, Square end) {
         // If a pawn just made a two-square jump...
         if (movingPiece instanceof Pawn && Math.abs(start.rank() - end.rank()) == 2) {
@@ -510,6 +626,11 @@ public class Board {
                         if (square.rank() == r + dir && Math.abs(square.file() - c) == 1) {
                             return true;
                         }
+                    } else if (attacker instanceof King) {
+                        // King.isValidMove also accepts the two-square castling step, which is not an attack.
+                        if (Math.max(Math.abs(square.rank() - r), Math.abs(square.file() - c)) == 1) {
+                            return true;
+                        }
                     } else if (attacker.isValidMove(attackerSquare, square, this)) {
                         return true;
                     }
@@ -570,7 +691,20 @@ public class Board {
         return false;
     }
 
+    /**
+     * Sets up the board from a FEN string. Only the first four fields (placement, side to move,
+     * castling, en passant) are read, so EPD positions are accepted as well.
+     *
+     * @throws IllegalArgumentException if the piece placement is malformed.
+     */
     public void updateFromFen(String fen) {
+        String[] parts = fen.trim().split("\\s+");
+        String piecePlacement = parts[0];
+        String[] ranks = piecePlacement.split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("Invalid FEN, expected 8 ranks: " + fen);
+        }
+
         // Clear the current grid
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
@@ -580,11 +714,6 @@ public class Board {
 
         // Reset state
         this.enPassantTargetSquare = null;
-        // A full implementation would reset castling rights here too
-
-        String[] parts = fen.split(" ");
-        String piecePlacement = parts[0];
-        String[] ranks = piecePlacement.split("/");
 
         // Part 1: Piece Placement
         for (int r = 0; r < ranks.length; r++) {
@@ -603,7 +732,7 @@ public class Board {
                         case 'q' -> new Queen(color);
                         case 'k' -> new King(color);
                         case 'p' -> new Pawn(color);
-                        default -> null;
+                        default -> throw new IllegalArgumentException("Invalid FEN piece '" + ch + "': " + fen);
                     };
                     this.grid[r][c] = piece;
                     c++;
@@ -612,17 +741,22 @@ public class Board {
         }
 
         // Part 2: Active Color
-        if (parts.length > 1) {
-            this.turn = parts[1].equals("w") ? Colour.WHITE : Colour.WHITE;
-        }
+        this.turn = parts.length > 1 && parts[1].equals("b") ? Colour.BLACK : Colour.WHITE;
 
-        // Part 3: Castling Rights (ignored for now)
+        // Part 3: Castling Rights
+        String castling = parts.length > 2 ? parts[2] : "-";
+        this.whiteKingsideCastleRight = castling.indexOf('K') >= 0;
+        this.whiteQueensideCastleRight = castling.indexOf('Q') >= 0;
+        this.blackKingsideCastleRight = castling.indexOf('k') >= 0;
+        this.blackQueensideCastleRight = castling.indexOf('q') >= 0;
 
         // Part 4: En Passant Target Square
         // --- THIS IS THE CRITICAL FIX ---
         if (parts.length > 3 && !parts[3].equals("-")) {
             this.enPassantTargetSquare = Square.fromAlgebraic(parts[3]);
         }
+
+        this.kingInCheckSquare = isInCheck(this.turn) ? findKing(this.turn) : null;
     }
 
     public void setTurn(Colour turn) {
@@ -1,69 +1,101 @@
 // main/model/Clock.java
 package main.model;
 
+/**
+ * A chess clock for one player.
+ * <p>
+ * The remaining time is kept in milliseconds. The server ticks the clock once per second
+ * through {@link #decrement()}; {@link #getRemainingMillis()} additionally accounts for the
+ * part of the current second that has already elapsed, so engines can budget their time
+ * precisely. All methods are synchronized because the ticking timer and the game thread
+ * access the clock concurrently.
+ */
 public class Clock {
-    private int hh;
-    private int mm;
-    private int ss;
+    private long remainingMillis;
+    private long incrementMillis = 0;
     private boolean running;
+    private long tickStartNanos;
 
     public Clock(int hh, int mm, int ss) {
-        this.hh = hh;
-        this.mm = mm;
-        this.ss = ss;
+        this.remainingMillis = toMillis(hh, mm, ss);
         this.running = false; // Start paused
     }
 
-    // --- ADD THIS NEW CONSTRUCTOR ---
     /**
      * Creates a clock from a total number of seconds.
      * @param totalSeconds The total time in seconds.
      */
     public Clock(int totalSeconds) {
         if (totalSeconds < 0) totalSeconds = 0;
-        this.hh = totalSeconds / 3600;
-        this.mm = (totalSeconds % 3600) / 60;
-        this.ss = totalSeconds % 60;
+        this.remainingMillis = totalSeconds * 1000L;
         this.running = false; // Start paused
     }
 
-    public boolean isRunning() { return running; }
-    public void start() { this.running = true; }
-    public void stop() { this.running = false; }
-    public boolean isOutOfTime() { return (hh <= 0 && mm <= 0 && ss <= 0); }
+    public synchronized boolean isRunning() { return running; }
 
-    public boolean decrement() {
+    public synchronized void start() {
+        if (!running) {
+            this.running = true;
+            this.tickStartNanos = System.nanoTime();
+        }
+    }
+
+    public synchronized void stop() { this.running = false; }
+    public synchronized boolean isOutOfTime() { return remainingMillis <= 0; }
+
+    /**
+     * Takes one second off a running clock.
+     *
+     * @return true if the clock has run out of time.
+     */
+    public synchronized boolean decrement() {
         if (!running || isOutOfTime()) {
             return isOutOfTime();
         }
-        if (ss > 0) {
-            ss--;
-        } else {
-            if (mm > 0) {
-                ss = 59;
-                mm--;
-            } else {
-                if (hh > 0) {
-                    ss = 59;
-                    mm = 59;
-                    hh--;
-                } else {
-                    running = false;
-                    return true;
-                }
-            }
-        }
+        remainingMillis = Math.max(0, remainingMillis - 1000);
+        tickStartNanos = System.nanoTime();
         return false;
     }
 
-    public String getTime() {
-        return String.format("%02d:%02d:%02d", Math.max(0, hh), Math.max(0, mm), Math.max(0, ss));
+    /**
+     * The time left in milliseconds, including the part of the current second that has
+     * elapsed since the last tick while the clock is running.
+     */
+    public synchronized long getRemainingMillis() {
+        if (!running) {
+            return remainingMillis;
+        }
+        long sinceTick = (System.nanoTime() - tickStartNanos) / 1_000_000;
+        return Math.max(0, remainingMillis - Math.min(sinceTick, 1000));
+    }
+
+    /** The time added after each completed move, in milliseconds. */
+    public synchronized long getIncrementMillis() { return incrementMillis; }
+
+    public synchronized void setIncrementMillis(long incrementMillis) {
+        this.incrementMillis = Math.max(0, incrementMillis);
     }
 
-    public void setTime(int hh, int mm, int ss) {
-        this.hh = hh;
-        this.mm = mm;
-        this.ss = ss;
+    /**
+     * Adds the increment to the clock; call once after the player completes a move.
+     */
+    public synchronized void addIncrement() {
+        if (!isOutOfTime()) {
+            remainingMillis += incrementMillis;
+        }
+    }
+
+    public synchronized String getTime() {
+        long totalSeconds = Math.max(0, remainingMillis) / 1000;
+        return String.format("%02d:%02d:%02d", totalSeconds / 3600, (totalSeconds % 3600) / 60, totalSeconds % 60);
+    }
+
+    public synchronized void setTime(int hh, int mm, int ss) {
+        this.remainingMillis = toMillis(hh, mm, ss);
         this.running = false;
     }
-}
\ No newline at end of file
+
+    private static long toMillis(int hh, int mm, int ss) {
+        return Math.max(0, (hh * 3600L + mm * 60L + ss) * 1000L);
+    }
+}
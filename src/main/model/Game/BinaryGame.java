@@ -0,0 +1,465 @@
+package main.model.Game;
+
+import main.PGNGenerator;
+import main.engine.Moves;
+import main.common.Colour;
+import main.common.Square;
+import main.model.Board.Board;
+import main.model.PGNParser.Parser;
+import main.model.pieces.Bishop;
+import main.model.pieces.King;
+import main.model.pieces.Knight;
+import main.model.pieces.Pawn;
+import main.model.pieces.Piece;
+import main.model.pieces.Queen;
+import main.model.pieces.Rook;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game of a compact binary archive, as read by {@link BinaryGameReader} and written by
+ * {@link BinaryGameWriter}.
+ * <p>
+ * Each ply names the piece that moves and where it goes, relative to the position before it. The
+ * high nibble of a byte is the piece's ordinal among the mover's pieces in board scan order (a8
+ * to h1; at most 16). The low nibble is the move's index in that piece's own list from
+ * {@link #pieceMoves}. An index of 15 or more stores 15 and adds a byte holding the rest. No list
+ * holds more than 27 moves, so nearly every ply fits one byte. Decoding a ply only looks at the
+ * moving piece's targets and never tests whether the king is left in check, which is what makes
+ * reading an archive cheaper than resolving SAN. SAN is only generated again when a game is
+ * converted back to PGN.
+ * <p>
+ * Archive layout: the magic number and a version byte, then one record per game holding its
+ * headers, its result code, its ply count, and the length and contents of its move bytes. Counts
+ * and lengths are unsigned varints. Header names and values are dictionary-encoded across the whole archive: a string is
+ * written in full the first time it appears and as its dictionary number afterwards, so repeated
+ * tag names, players, events and dates cost one or two bytes each.
+ *
+ * @param headers The tag pairs, in their original order. Includes FEN when the game does not start
+ *                from the initial position.
+ * @param result  "1-0", "0-1", "1/2-1/2" or "*".
+ * @param plies   The number of moves.
+ * @param moves   The encoded moves, one or two bytes per ply.
+ */
+public record BinaryGame(Map<String, String> headers, String result, int plies, byte[] moves) {
+
+    static final int MAGIC = 0x43474231; // "CGB1"
+    static final int VERSION = 2;
+    /** A low nibble of this value means the move index continues in the next byte. */
+    static final int LONG_INDEX = 15;
+    /** Strings added to the dictionary; later new strings are always written in full. */
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    /**
+     * Receives each ply of a decoded game.
+     */
+    @FunctionalInterface
+    public interface PositionVisitor {
+        /**
+         * @param ply   Zero-based ply number.
+         * @param board The position before the move; it must not be modified.
+         * @param move  The move, packed as by {@link Moves}.
+         * @return false to stop the replay early.
+         */
+        boolean visit(int ply, Board board, int move);
+    }
+
+    public int plyCount() {
+        return plies;
+    }
+
+    /**
+     * Sets up the game's start position on {@code board} and plays its moves, reporting each
+     * position to the visitor before the move is applied.
+     *
+     * @return The number of plies applied, or -(ply + 1) if the bytes stored for {@code ply} do
+     * not name a move, i.e. the archive is corrupt. Moves are not checked for legality; the writer
+     * only stores legal ones.
+     * @throws IllegalArgumentException if the FEN header is invalid.
+     */
+    public int replay(Board board, PositionVisitor visitor) {
+        String fen = headers.get("FEN");
+        if (fen != null) board.updateFromFen(fen);
+        else board.setupInitialPosition();
+
+        int[] pieceMoves = new int[MAX_PIECE_MOVES];
+        int[] position = new int[1];
+        for (int ply = 0; ply < plies; ply++) {
+            int move = nextMove(board, position, pieceMoves);
+            if (move == Moves.NONE) {
+                return -(ply + 1);
+            }
+            if (visitor != null && !visitor.visit(ply, board, move)) {
+                return ply;
+            }
+            board.makeMove(Moves.start(move), Moves.end(move), Moves.promotion(move));
+        }
+        return plies;
+    }
+
+    /**
+     * The game's moves packed as by {@link Moves}.
+     *
+     * @throws IllegalStateException if the stored bytes of a ply do not name a move.
+     */
+    public int[] decodeMoves() {
+        int[] decoded = new int[plies];
+        int applied = replay(new Board(), (ply, board, move) -> {
+            decoded[ply] = move;
+            return true;
+        });
+        if (applied < 0) {
+            throw new IllegalStateException("Invalid move at ply " + (-applied - 1));
+        }
+        return decoded;
+    }
+
+    /**
+     * Converts the game back to SAN, e.g. for display or PGN export.
+     *
+     * @throws IllegalStateException if the stored bytes of a ply do not name a move.
+     */
+    public Parser.PGNGame toPgnGame() {
+        Parser.PGNGame game = new Parser.PGNGame();
+        headers.forEach(game::addHeader);
+        game.setResult(result);
+        Board board = new Board();
+        String fen = headers.get("FEN");
+        if (fen != null) board.updateFromFen(fen);
+
+        int[] pieceMoves = new int[MAX_PIECE_MOVES];
+        int[] position = new int[1];
+        for (int ply = 0; ply < plies; ply++) {
+            int move = nextMove(board, position, pieceMoves);
+            if (move == Moves.NONE) {
+                throw new IllegalStateException("Invalid move at ply " + ply);
+            }
+            game.addMove(board.applyMove(Moves.start(move), Moves.end(move), Moves.promotion(move)));
+        }
+        return game;
+    }
+
+    /**
+     * Decodes the ply stored at {@code position[0]} and advances past it.
+     *
+     * @return The move, or {@link Moves#NONE} if the bytes do not name one.
+     */
+    private int nextMove(Board board, int[] position, int[] pieceMoves) {
+        if (position[0] >= moves.length) return Moves.NONE;
+        int code = moves[position[0]++] & 0xFF;
+        int index = code & 0x0F;
+        if (index == LONG_INDEX) {
+            if (position[0] >= moves.length) return Moves.NONE;
+            index += moves[position[0]++] & 0xFF;
+        }
+        Square start = pieceSquare(board, code >>> 4);
+        if (start == null) return Moves.NONE;
+        int count = pieceMoves(board, start, pieceMoves);
+        return index < count ? pieceMoves[index] : Moves.NONE;
+    }
+
+    // --- Move lists ---
+
+    /** No piece has more entries in its {@link #pieceMoves} list: a queen has at most 27 targets. */
+    static final int MAX_PIECE_MOVES = 32;
+
+    /**
+     * The square of the side to move's piece with the given ordinal, counting in board scan order
+     * from 0, or null if it has fewer pieces.
+     */
+    static Square pieceSquare(Board board, int ordinal) {
+        Colour turn = board.getTurn();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                Piece piece = board.getPiece(r, c);
+                if (piece != null && piece.getColor() == turn && ordinal-- == 0) {
+                    return new Square(r, c);
+                }
+            }
+        }
+        return null;
+    }
+
+    /** The ordinal {@link #pieceSquare} gives the side to move's piece on {@code start}. */
+    static int pieceOrdinal(Board board, Square start) {
+        Colour turn = board.getTurn();
+        int ordinal = 0;
+        for (int i = 0; i < start.rank() * 8 + start.file(); i++) {
+            Piece piece = board.getPiece(i / 8, i % 8);
+            if (piece != null && piece.getColor() == turn) ordinal++;
+        }
+        return ordinal;
+    }
+
+    /**
+     * Lists the moves of the piece on {@code start} by target in board scan order: every square
+     * its movement pattern reaches that does not hold a piece of its own colour, with sliding
+     * pieces stopping at the first piece in each direction. A king's two-square moves along its
+     * rank are listed whenever those squares exist, and a pawn move to the last rank appears once
+     * per promotion piece, queen first, as in {@link Moves#generate}. Neither castling rights nor
+     * whether a move leaves the king in check are tested, so the list may hold illegal moves; it
+     * only has to be the same when a game is written and read.
+     *
+     * @return The number of moves written into {@code moves}.
+     */
+    static int pieceMoves(Board board, Square start, int[] moves) {
+        Piece piece = board.getPiece(start);
+        boolean promotes = piece instanceof Pawn;
+        int count = 0;
+        for (long targets = targets(board, start.rank(), start.file(), piece); targets != 0; targets &= targets - 1) {
+            int index = Long.numberOfTrailingZeros(targets);
+            Square end = new Square(index / 8, index % 8);
+            if (promotes && (end.rank() == 0 || end.rank() == 7)) {
+                moves[count++] = Moves.encode(start, end, 'Q');
+                moves[count++] = Moves.encode(start, end, 'R');
+                moves[count++] = Moves.encode(start, end, 'B');
+                moves[count++] = Moves.encode(start, end, 'N');
+            } else {
+                moves[count++] = Moves.encode(start, end, ' ');
+            }
+        }
+        return count;
+    }
+
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] ROOK_RAYS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_RAYS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    /** The target squares of {@link #pieceMoves} as a mask with bit {@code rank * 8 + file} set. */
+    private static long targets(Board board, int rank, int file, Piece piece) {
+        Colour colour = piece.getColor();
+        if (piece instanceof Pawn) {
+            int forward = colour == Colour.WHITE ? -1 : 1;
+            int r = rank + forward;
+            if (r < 0 || r > 7) return 0;
+            long targets = 0;
+            if (board.getPiece(r, file) == null) {
+                targets |= 1L << (r * 8 + file);
+                int startRank = colour == Colour.WHITE ? 6 : 1;
+                if (rank == startRank && board.getPiece(r + forward, file) == null) {
+                    targets |= 1L << ((r + forward) * 8 + file);
+                }
+            }
+            Square enPassant = board.getEnPassantTargetSquare();
+            for (int f = file - 1; f <= file + 1; f += 2) {
+                if (f < 0 || f > 7) continue;
+                Piece target = board.getPiece(r, f);
+                if (target != null ? target.getColor() != colour : enPassant != null && enPassant.rank() == r && enPassant.file() == f) {
+                    targets |= 1L << (r * 8 + f);
+                }
+            }
+            return targets;
+        }
+        if (piece instanceof Knight) return steps(board, rank, file, colour, KNIGHT_STEPS);
+        if (piece instanceof King) {
+            long targets = steps(board, rank, file, colour, KING_STEPS);
+            for (int f = file - 2; f <= file + 2; f += 4) {
+                if (f >= 0 && f <= 7 && board.getPiece(rank, f) == null) targets |= 1L << (rank * 8 + f);
+            }
+            return targets;
+        }
+        long targets = 0;
+        if (piece instanceof Rook || piece instanceof Queen) targets |= rays(board, rank, file, colour, ROOK_RAYS);
+        if (piece instanceof Bishop || piece instanceof Queen) targets |= rays(board, rank, file, colour, BISHOP_RAYS);
+        return targets;
+    }
+
+    private static long steps(Board board, int rank, int file, Colour colour, int[][] steps) {
+        long targets = 0;
+        for (int[] step : steps) {
+            int r = rank + step[0], f = file + step[1];
+            if (r < 0 || r > 7 || f < 0 || f > 7) continue;
+            Piece target = board.getPiece(r, f);
+            if (target == null || target.getColor() != colour) targets |= 1L << (r * 8 + f);
+        }
+        return targets;
+    }
+
+    private static long rays(Board board, int rank, int file, Colour colour, int[][] rays) {
+        long targets = 0;
+        for (int[] ray : rays) {
+            for (int r = rank + ray[0], f = file + ray[1]; r >= 0 && r <= 7 && f >= 0 && f <= 7; r += ray[0], f += ray[1]) {
+                Piece target = board.getPiece(r, f);
+                if (target == null || target.getColor() != colour) targets |= 1L << (r * 8 + f);
+                if (target != null) break;
+            }
+        }
+        return targets;
+    }
+
+    /** The game as PGN text, keeping its original headers. */
+    public String toPgn() {
+        return PGNGenerator.generate(headers, toPgnGame().getMoves(), result);
+    }
+
+    // --- Conversion ---
+
+    /**
+     * Converts a PGN file to a binary archive. Games with an illegal or unreadable move are
+     * reported and skipped.
+     *
+     * @return The number of games written.
+     */
+    public static int convertToBinary(File pgnFile, Path archive) throws IOException {
+        int[] counts = new int[2];
+        try (BinaryGameWriter writer = new BinaryGameWriter(Files.newOutputStream(archive))) {
+            Parser.forEachGame(pgnFile, game -> {
+                counts[0]++;
+                try {
+                    writer.write(game);
+                    counts[1]++;
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error converting game " + counts[0] + ": " + e.getMessage());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return counts[1];
+    }
+
+    /**
+     * Converts a binary archive to a PGN file, one game at a time.
+     *
+     * @return The number of games written.
+     */
+    public static int convertToPgn(Path archive, Path pgnFile) throws IOException {
+        int written = 0;
+        try (BinaryGameReader reader = BinaryGameReader.open(archive);
+             Writer out = new BufferedWriter(Files.newBufferedWriter(pgnFile, StandardCharsets.UTF_8), 1 << 16)) {
+            BinaryGame game;
+            while ((game = reader.read()) != null) {
+                out.write(game.toPgn());
+                out.write(System.lineSeparator());
+                out.write(System.lineSeparator());
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Checks that every game of a PGN file survives PGN to binary to PGN unchanged: the same
+     * headers, including values with escaped quotes and backslashes, the same moves and the same
+     * result. Games the writer rejects are skipped, as in {@link #convertToBinary}.
+     *
+     * @return The number of games that came back different; each one is reported.
+     */
+    public static int verifyRoundTrip(File pgnFile) throws IOException {
+        int[] counts = new int[2];
+        Parser.forEachGame(pgnFile, game -> {
+            counts[0]++;
+            try {
+                ByteArrayOutputStream archive = new ByteArrayOutputStream();
+                try (BinaryGameWriter writer = new BinaryGameWriter(archive)) {
+                    writer.write(game);
+                }
+                BinaryGame binary;
+                try (BinaryGameReader reader = new BinaryGameReader(new ByteArrayInputStream(archive.toByteArray()))) {
+                    binary = reader.read();
+                }
+                List<Parser.PGNGame> reparsed = new ArrayList<>(1);
+                Parser.forEachGame(binary.toPgn().getBytes(StandardCharsets.UTF_8), reparsed::add);
+                String result = game.getResult() != null ? game.getResult() : game.getHeaders().getOrDefault("Result", "*");
+                if (reparsed.size() != 1 || !reparsed.get(0).getHeaders().equals(game.getHeaders())
+                        || !reparsed.get(0).getMoves().equals(game.getMoves()) || !result.equals(reparsed.get(0).getResult())) {
+                    System.err.println("Error: game " + counts[0] + " changed in the round trip: "
+                            + (reparsed.isEmpty() ? "no game" : reparsed.get(0).getHeaders()));
+                    counts[1]++;
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error converting game " + counts[0] + ": " + e.getMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return counts[1];
+    }
+
+    // --- Encoding helpers shared by the reader and writer ---
+
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static int resultCode(String result) {
+        for (int i = 1; i < RESULTS.length; i++) {
+            if (RESULTS[i].equals(result)) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * Converts between PGN and the binary format, times decoding an archive, or checks the round trip.
+     * Usage: java main.model.Game.BinaryGame &lt;in.pgn&gt; &lt;out.cgb&gt; | -pgn &lt;in.cgb&gt; &lt;out.pgn&gt; | -replay &lt;in.cgb&gt; | -verify &lt;in.pgn&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && !args[0].startsWith("-")) {
+            long start = System.nanoTime();
+            int games = convertToBinary(new File(args[0]), Path.of(args[1]));
+            long pgnBytes = Files.size(Path.of(args[0]));
+            long binaryBytes = Files.size(Path.of(args[1]));
+            System.out.printf("Wrote %d games in %d ms: %d bytes of PGN to %d bytes (%.1f%%)%n", games,
+                    (System.nanoTime() - start) / 1_000_000, pgnBytes, binaryBytes, 100.0 * binaryBytes / Math.max(1, pgnBytes));
+        } else if (args.length == 3 && args[0].equals("-pgn")) {
+            int games = convertToPgn(Path.of(args[1]), Path.of(args[2]));
+            System.out.println("Wrote " + games + " games to " + args[2]);
+        } else if (args.length == 2 && args[0].equals("-replay")) {
+            long start = System.nanoTime();
+            long games = 0;
+            long plies = 0;
+            Board board = new Board();
+            try (BinaryGameReader reader = BinaryGameReader.open(Path.of(args[1]))) {
+                BinaryGame game;
+                while ((game = reader.read()) != null) {
+                    int applied = game.replay(board, null);
+                    if (applied < 0) {
+                        System.err.println("Error replaying game " + (games + 1) + ": invalid move at ply " + (-applied - 1));
+                    }
+                    games++;
+                    plies += Math.abs(applied);
+                }
+            }
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.println("Replayed " + games + " games (" + plies + " plies) in " + millis + " ms, "
+                    + games * 1000 / millis + " games/second");
+        } else if (args.length == 2 && args[0].equals("-verify")) {
+            int changed = verifyRoundTrip(new File(args[1]));
+            System.out.println(changed == 0 ? "All games round-trip unchanged" : changed + " games changed in the round trip");
+        } else {
+            System.err.println("Usage: java main.model.Game.BinaryGame <in.pgn> <out.cgb> | -pgn <in.cgb> <out.pgn> | -replay <in.cgb> | -verify <in.pgn>");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package main.model.Game;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the games of a binary archive one at a time; see {@link BinaryGame} for the format.
+ * Only the header dictionary grows with the archive.
+ */
+public class BinaryGameReader implements Iterator<BinaryGame>, Closeable {
+
+    private final DataInputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+    private BinaryGame next;
+
+    /**
+     * @throws IOException if the input is not a binary game archive of a supported version.
+     */
+    public BinaryGameReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (this.in.readInt() != BinaryGame.MAGIC) {
+            throw new IOException("Not a binary game archive");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != BinaryGame.VERSION) {
+            throw new IOException("Unsupported binary game archive version " + version);
+        }
+    }
+
+    public static BinaryGameReader open(Path archive) throws IOException {
+        return new BinaryGameReader(Files.newInputStream(archive));
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return The game, or null at the end of the archive.
+     */
+    public BinaryGame read() throws IOException {
+        if (next != null) {
+            BinaryGame game = next;
+            next = null;
+            return game;
+        }
+        int headerCount;
+        try {
+            headerCount = BinaryGame.readVarint(in);
+        } catch (EOFException e) {
+            return null;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString();
+            headers.put(name, readString());
+        }
+        int resultCode = in.readUnsignedByte();
+        if (resultCode >= BinaryGame.RESULTS.length) {
+            throw new IOException("Invalid result code " + resultCode);
+        }
+        int plies = BinaryGame.readVarint(in);
+        byte[] moves = new byte[BinaryGame.readVarint(in)];
+        in.readFully(moves);
+        return new BinaryGame(headers, BinaryGame.RESULTS[resultCode], plies, moves);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public BinaryGame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BinaryGame game = next;
+        next = null;
+        return game;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString() throws IOException {
+        int code = BinaryGame.readVarint(in);
+        if (code > 0) {
+            if (code > dictionary.size()) {
+                throw new IOException("Invalid dictionary reference " + code);
+            }
+            return dictionary.get(code - 1);
+        }
+        byte[] bytes = new byte[BinaryGame.readVarint(in)];
+        in.readFully(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (dictionary.size() < BinaryGame.MAX_DICTIONARY_SIZE) {
+            dictionary.add(value);
+        }
+        return value;
+    }
+}
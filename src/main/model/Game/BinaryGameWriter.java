@@ -0,0 +1,130 @@
+package main.model.Game;
+
+import main.common.Square;
+import main.engine.Moves;
+import main.model.Board.Board;
+import main.model.PGNParser.Parser;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes games to a binary archive one at a time; see {@link BinaryGame} for the format.
+ * Only the header dictionary grows with the archive.
+ */
+public class BinaryGameWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final GameReplayer replayer = new GameReplayer();
+    private final Board board = new Board();
+    private final int[] pieceMoves = new int[BinaryGame.MAX_PIECE_MOVES];
+    private byte[] moveBuffer = new byte[512];
+
+    public BinaryGameWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(BinaryGame.MAGIC);
+        this.out.writeByte(BinaryGame.VERSION);
+    }
+
+    /**
+     * Encodes a parsed PGN game, resolving each SAN move against its position.
+     *
+     * @throws IllegalArgumentException if the FEN header is invalid or a move is illegal or
+     *                                  unreadable; nothing is written for the game.
+     */
+    public void write(Parser.PGNGame game) throws IOException {
+        Map<String, String> headers = game.getHeaders();
+        String fen = headers.get("FEN");
+        try {
+            if (fen != null) board.updateFromFen(fen);
+            else board.setupInitialPosition();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid FEN header: " + fen);
+        }
+
+        int plies = game.getMoves().size();
+        if (moveBuffer.length < plies * 2) {
+            moveBuffer = Arrays.copyOf(moveBuffer, Math.max(plies * 2, moveBuffer.length * 2));
+        }
+        int[] length = new int[1];
+        int applied = replayer.replay(board, game.getMoves(), plies, (ply, position, start, end, promotion) -> {
+            int index = indexOf(position, start, Moves.encode(start, end, promotion));
+            if (index < 0) {
+                return false;
+            }
+            int ordinal = BinaryGame.pieceOrdinal(position, start);
+            moveBuffer[length[0]++] = (byte) (ordinal << 4 | Math.min(index, BinaryGame.LONG_INDEX));
+            if (index >= BinaryGame.LONG_INDEX) {
+                moveBuffer[length[0]++] = (byte) (index - BinaryGame.LONG_INDEX);
+            }
+            return true;
+        });
+        if (applied != plies) {
+            int failedPly = applied < 0 ? -applied - 1 : applied;
+            throw new IllegalArgumentException("illegal move '" + game.getMoves().get(failedPly) + "' at ply " + failedPly);
+        }
+
+        String result = game.getResult() != null ? game.getResult() : headers.getOrDefault("Result", "*");
+        writeRecord(headers, result, plies, moveBuffer, length[0]);
+    }
+
+    /** Writes a game that is already encoded, e.g. one read from another archive. */
+    public void write(BinaryGame game) throws IOException {
+        writeRecord(game.headers(), game.result(), game.plies(), game.moves(), game.moves().length);
+    }
+
+    /** Writes any buffered games; the archive stays open for more. */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /** The move's index in the list {@link BinaryGame#pieceMoves} gives the piece on {@code start}. */
+    private int indexOf(Board position, Square start, int move) {
+        int count = BinaryGame.pieceMoves(position, start, pieceMoves);
+        for (int i = 0; i < count; i++) {
+            if (pieceMoves[i] == move) return i;
+        }
+        return -1;
+    }
+
+    private void writeRecord(Map<String, String> headers, String result, int plies, byte[] moves, int length) throws IOException {
+        BinaryGame.writeVarint(out, headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            writeString(header.getKey());
+            writeString(header.getValue());
+        }
+        out.writeByte(BinaryGame.resultCode(result));
+        BinaryGame.writeVarint(out, plies);
+        BinaryGame.writeVarint(out, length);
+        out.write(moves, 0, length);
+    }
+
+    /** Writes a dictionary number + 1, or 0 followed by the string for one not seen before. */
+    private void writeString(String value) throws IOException {
+        Integer id = dictionary.get(value);
+        if (id != null) {
+            BinaryGame.writeVarint(out, id + 1);
+            return;
+        }
+        if (dictionary.size() < BinaryGame.MAX_DICTIONARY_SIZE) {
+            dictionary.put(value, dictionary.size());
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        BinaryGame.writeVarint(out, 0);
+        BinaryGame.writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+}
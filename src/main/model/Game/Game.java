@@ -5,12 +5,44 @@ import main.model.Board.Board;
 import main.model.PGNParser.Interpreter;
 import main.model.PGNParser.Move;
 import main.model.PGNParser.Parser;
+import main.model.PGNParser.PgnGameReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 public class Game {
     private final Interpreter interpreter = new Interpreter();
 
+    /**
+     * The outcome of validating one game.
+     *
+     * @param gameNumber One-based position of the game in its file.
+     * @param plies      Plies replayed successfully.
+     * @param failedPly  Zero-based ply of the first bad move, or -1 if the whole game is valid.
+     * @param reason     Why the game failed, or null if it is valid.
+     */
+    public record ValidationResult(int gameNumber, int plies, int failedPly, String reason) {
+
+        public boolean isValid() {
+            return failedPly < 0;
+        }
+
+        @Override
+        public String toString() {
+            if (isValid()) return "Game #" + gameNumber + ": ok, " + plies + " plies";
+            return "Game #" + gameNumber + ": move " + (failedPly / 2 + 1) + (failedPly % 2 == 0 ? ". " : "... ") + reason;
+        }
+    }
+
     public boolean playGame(Parser.PGNGame game, int gameNumber) {
         Board board = new Board();
         List<String> moveTokens = game.getMoves();
@@ -66,17 +98,33 @@ public class Game {
     }
 
     public void playAllGames(Parser parser) {
+        playAllGames(parser.getGames().iterator());
+    }
+
+    /**
+     * Plays every game in a PGN file, reading one game at a time so the file may be of any size.
+     */
+    public void playAllGames(File pgnFile) throws IOException {
+        try (PgnGameReader games = Parser.openStream(pgnFile)) {
+            playAllGames(games);
+        }
+    }
+
+    /**
+     * Plays games as the iterator produces them; only the current game needs to be in memory.
+     */
+    public void playAllGames(Iterator<Parser.PGNGame> games) {
         int gameIndex = 1;
         int successfulGames = 0;
         int failedGames = 0;
 
-        if (parser.getGames().isEmpty()) {
+        if (!games.hasNext()) {
             System.out.println("No games found in the PGN data.");
             return;
         }
 
-        for (Parser.PGNGame game : parser.getGames()) {
-            boolean gamePlayedSuccessfully = playGame(game, gameIndex);
+        while (games.hasNext()) {
+            boolean gamePlayedSuccessfully = playGame(games.next(), gameIndex);
 
             if (!gamePlayedSuccessfully) {
                 System.err.println("--- Game #" + gameIndex + " aborted due to error. ---");
@@ -89,9 +137,163 @@ public class Game {
 
         System.out.println("\n=========================================");
         System.out.println("=== Finished processing all games ===");
-        System.out.println("Total Games Found: " + parser.getGames().size());
+        System.out.println("Total Games Found: " + (gameIndex - 1));
         System.out.println("Successfully Processed: " + successfulGames);
         System.out.println("Failed/Aborted: " + failedGames);
         System.out.println("=========================================");
     }
-}
\ No newline at end of file
+
+    /**
+     * Validates every game in a PGN file on {@code threads} workers, printing failed games and a
+     * summary instead of the boards. See {@link #validateAllGames(Iterator, int)}.
+     */
+    public List<ValidationResult> validateAllGames(File pgnFile, int threads) throws IOException, InterruptedException {
+        ParallelValidation validation = new ParallelValidation(threads);
+        try {
+            Parser.forEachGame(pgnFile, validation::submit);
+            return validation.finish();
+        } catch (UncheckedInterruptedException e) {
+            throw e.getCause();
+        } finally {
+            validation.shutdown();
+        }
+    }
+
+    /**
+     * Replays games in parallel to check that every move is legal. Games are read on the calling
+     * thread and replayed on a fixed pool, each worker reusing one {@link Board}; only a bounded
+     * window of games is in flight, so the input may be of any size.
+     *
+     * @return One result per game, in input order.
+     */
+    public List<ValidationResult> validateAllGames(Iterator<Parser.PGNGame> games, int threads) throws InterruptedException {
+        ParallelValidation validation = new ParallelValidation(threads);
+        try {
+            while (games.hasNext()) {
+                validation.submit(games.next());
+            }
+            return validation.finish();
+        } catch (UncheckedInterruptedException e) {
+            throw e.getCause();
+        } finally {
+            validation.shutdown();
+        }
+    }
+
+    /**
+     * Replays one game from its FEN header, or the initial position, on the given board.
+     */
+    public static ValidationResult validateGame(Parser.PGNGame game, int gameNumber, Board board, GameReplayer replayer) {
+        String fen = game.getHeaders().get("FEN");
+        try {
+            if (fen != null) board.updateFromFen(fen);
+            else board.setupInitialPosition();
+        } catch (RuntimeException e) {
+            return new ValidationResult(gameNumber, 0, 0, "invalid FEN header: " + fen);
+        }
+        List<String> moves = game.getMoves();
+        int applied = replayer.replay(board, moves, moves.size(), null);
+        if (applied >= 0) {
+            return new ValidationResult(gameNumber, applied, -1, null);
+        }
+        int failedPly = -applied - 1;
+        String token = moves.get(failedPly);
+        String reason;
+        try {
+            new Interpreter().parseMove(token);
+            reason = "illegal move '" + token + "'";
+        } catch (RuntimeException e) {
+            reason = "unparseable move '" + token + "'";
+        }
+        return new ValidationResult(gameNumber, failedPly, failedPly, reason);
+    }
+
+    /** Keeps a bounded, ordered window of games in flight and collects their results in order. */
+    private static final class ParallelValidation {
+        private final ExecutorService pool;
+        private final ArrayDeque<Future<ValidationResult>> inFlight = new ArrayDeque<>();
+        private final int window;
+        private final List<ValidationResult> results = new ArrayList<>();
+        private final ThreadLocal<Board> boards = ThreadLocal.withInitial(Board::new);
+        private final ThreadLocal<GameReplayer> replayers = ThreadLocal.withInitial(GameReplayer::new);
+        private final long startNanos = System.nanoTime();
+        private final int threads;
+        private int submitted;
+
+        ParallelValidation(int threads) {
+            this.threads = threads;
+            this.pool = Executors.newFixedThreadPool(threads);
+            this.window = threads * 64;
+        }
+
+        void submit(Parser.PGNGame game) {
+            int gameNumber = ++submitted;
+            inFlight.add(pool.submit(() -> validateGame(game, gameNumber, boards.get(), replayers.get())));
+            if (inFlight.size() >= window) {
+                collect();
+            }
+        }
+
+        List<ValidationResult> finish() {
+            while (!inFlight.isEmpty()) {
+                collect();
+            }
+            long millis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            long valid = results.stream().filter(ValidationResult::isValid).count();
+            System.out.println("\n=========================================");
+            System.out.println("=== Finished validating all games ===");
+            System.out.println("Total Games Found: " + results.size());
+            System.out.println("Valid: " + valid);
+            System.out.println("Invalid: " + (results.size() - valid));
+            System.out.println("Threads: " + threads);
+            System.out.println("Time (ms): " + millis);
+            System.out.println("Games/second: " + results.size() * 1000L / millis);
+            System.out.println("=========================================");
+            return results;
+        }
+
+        void shutdown() {
+            pool.shutdownNow();
+        }
+
+        private void collect() {
+            ValidationResult result;
+            try {
+                result = inFlight.poll().get();
+            } catch (InterruptedException e) {
+                throw new UncheckedInterruptedException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Validation failed unexpectedly", e.getCause());
+            }
+            if (!result.isValid()) {
+                System.err.println(result);
+            }
+            results.add(result);
+        }
+    }
+
+    // Lets an interrupt escape the PGN scanner's callback, which cannot throw checked exceptions.
+    private static final class UncheckedInterruptedException extends RuntimeException {
+        UncheckedInterruptedException(InterruptedException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized InterruptedException getCause() {
+            return (InterruptedException) super.getCause();
+        }
+    }
+
+    /**
+     * Validates a PGN archive.
+     * Usage: java main.model.Game.Game &lt;file.pgn&gt; [threads=cores]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: java main.model.Game.Game <file.pgn> [threads]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        new Game().validateAllGames(new File(args[0]), threads);
+    }
+}
@@ -0,0 +1,84 @@
+package main.model.Game;
+
+import main.common.Square;
+import main.model.Board.Board;
+import main.model.PGNParser.SanParser;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Replays SAN move lists on a {@link Board}, reporting each ply to a visitor before it
+ * is applied. Unlike {@link Game} it prints nothing, which makes it suitable for bulk
+ * jobs over the game archive.
+ */
+public class GameReplayer {
+
+    /**
+     * Receives each ply of a replayed game.
+     */
+    @FunctionalInterface
+    public interface PlyVisitor {
+        /**
+         * @param ply    Zero-based ply number.
+         * @param board  The position before the move; it must not be modified.
+         * @param promotion The piece a pawn reaching the last rank becomes. A queen when the SAN
+         *                  names none, e.g. "e8", as {@link Board} plays it.
+         * @return false to stop the replay early.
+         */
+        boolean visit(int ply, Board board, Square start, Square end, Optional<String> promotion);
+    }
+
+    private static final String PROMOTION_PIECES = "NBRQ";
+    private static final List<Optional<String>> PROMOTIONS =
+            List.of(Optional.of("N"), Optional.of("B"), Optional.of("R"), Optional.of("Q"));
+
+    /**
+     * Replays up to {@code maxPlies} moves from the initial position.
+     *
+     * @return The number of plies applied, or -(ply + 1) if the move at {@code ply} could not be parsed or played.
+     */
+    public int replay(List<String> sanMoves, int maxPlies, PlyVisitor visitor) {
+        return replay(new Board(), sanMoves, maxPlies, visitor);
+    }
+
+    /**
+     * Replays up to {@code maxPlies} moves from the position currently on {@code board}.
+     *
+     * @return The number of plies applied, or -(ply + 1) if the move at {@code ply} could not be parsed or played.
+     */
+    public int replay(Board board, List<String> sanMoves, int maxPlies, PlyVisitor visitor) {
+        int limit = Math.min(maxPlies, sanMoves.size());
+        for (int ply = 0; ply < limit; ply++) {
+            int san = SanParser.parse(sanMoves.get(ply));
+            if (SanParser.isError(san)) {
+                return -(ply + 1);
+            }
+            Square start;
+            Square end;
+            try {
+                start = board.findStartSquare(san);
+                end = board.getTargetSquare(san);
+            } catch (RuntimeException e) {
+                return -(ply + 1);
+            }
+            if (start == null) {
+                return -(ply + 1);
+            }
+            char promotionPiece = SanParser.promotion(san);
+            Optional<String> promotion;
+            if (promotionPiece != 0) {
+                promotion = PROMOTIONS.get(PROMOTION_PIECES.indexOf(promotionPiece));
+            } else if (SanParser.piece(san) == 'P' && (end.rank() == 0 || end.rank() == 7)) {
+                promotion = PROMOTIONS.get(PROMOTION_PIECES.indexOf('Q'));
+            } else {
+                promotion = Optional.empty();
+            }
+            if (visitor != null && !visitor.visit(ply, board, start, end, promotion)) {
+                return ply;
+            }
+            board.makeMove(start, end, promotion);
+        }
+        return limit;
+    }
+}
@@ -1,6 +1,12 @@
 package main.model.PGNParser;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class Parser {
 
@@ -27,139 +33,130 @@ public class Parser {
 
     private final List<PGNGame> games = new ArrayList<>();
 
+    /**
+     * Streams the games of a file one at a time instead of loading them all, for archives too
+     * large to hold in memory. Close the returned reader when done.
+     */
+    public static PgnGameReader openStream(File file) throws IOException {
+        return PgnGameReader.open(file);
+    }
+
     public void loadPGN(File file) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            loadFromReader(reader);
-        }
+        games.clear();
+        forEachGame(file, games::add);
     }
 
-    public void loadPGNFromString(String pgnContent) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new StringReader(pgnContent))) {
-            loadFromReader(reader);
-        }
+    /**
+     * Scans a file with {@link PgnTokenizer} and passes each game to {@code action} as soon as it
+     * ends. This is the fastest way to read an archive; only the current game is kept in memory.
+     */
+    public static void forEachGame(File file, Consumer<PGNGame> action) throws IOException {
+        PgnTokenizer.scan(file.toPath(), new GameBuilder(action));
     }
 
-    private void loadFromReader(BufferedReader reader) throws IOException {
-        games.clear();
-        String line;
-        PGNGame currentGame = null;
-        StringBuilder movesSection = new StringBuilder();
-        boolean readingHeaders = false;
-        boolean addedLastGame = false;
-
-        while ((line = reader.readLine()) != null) {
-            line = line.trim();
-
-            if (line.isEmpty()) {
-                if (readingHeaders && currentGame != null && movesSection.length() == 0) {
-                    readingHeaders = false;
+    /**
+     * Like {@link #forEachGame(File, Consumer)}, and also passes each game's text as written, from
+     * its first header to its result, so comments, NAGs and variations are kept. The text is read
+     * back from the file at the offsets the tokenizer reports, as {@link PgnIndex} does.
+     */
+    public static void forEachGameWithText(File file, BiConsumer<PGNGame, String> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            String[] text = new String[1];
+            GameBuilder builder = new GameBuilder(game -> action.accept(game, text[0]));
+            PgnTokenizer.scan(file.toPath(), new PgnTokenizer.Visitor() {
+                private long start;
+
+                @Override
+                public void startGame(long offset) {
+                    start = offset;
+                    builder.startGame(offset);
                 }
-                continue;
-            }
 
-            if (line.startsWith("[")) {
-                // Start of a header line
-                if (currentGame != null && movesSection.length() > 0) {
-                    parseMoves(movesSection.toString(), currentGame);
-                    if (!addedLastGame) games.add(currentGame);
-                    addedLastGame = true;
-                } else if (currentGame != null && !readingHeaders && !addedLastGame) {
-                    // Headers ended, but no moves/result found before next game's headers started
-                    if (!games.contains(currentGame)) {
-                        games.add(currentGame);
-                        addedLastGame = true;
-                    }
+                @Override
+                public void header(ByteBuffer source, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+                    builder.header(source, nameStart, nameEnd, valueStart, valueEnd);
                 }
-                // Reset
-                if (currentGame == null || movesSection.length() > 0 || !readingHeaders) {
-                    currentGame = new PGNGame();
-                    movesSection.setLength(0);
-                    readingHeaders = true;
-                    addedLastGame = false;
+
+                @Override
+                public void move(ByteBuffer source, int start, int end) {
+                    builder.move(source, start, end);
                 }
-                parseHeader(line, currentGame);
-
-            } else if (currentGame != null) {
-                readingHeaders = false;
-                movesSection.append(line).append(" ");
-                addedLastGame = false;
-            } else {
-                System.err.println("Warning: Ignoring text found before the first PGN game header: " + line);
-            }
+
+                @Override
+                public void endGame(ByteBuffer source, int resultStart, int resultEnd, long endOffset) {
+                    text[0] = readText(channel, start, endOffset);
+                    builder.endGame(source, resultStart, resultEnd, endOffset);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+    }
 
-        if (currentGame != null && !addedLastGame) {
-            if (movesSection.length() > 0) {
-                parseMoves(movesSection.toString(), currentGame);
+    /** The trimmed UTF-8 text between two file offsets. */
+    private static String readText(FileChannel channel, long start, long end) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("PGN file ended inside a game");
+                }
             }
-            games.add(currentGame);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return new String(buffer.array(), StandardCharsets.UTF_8).strip();
     }
 
-    private void parseHeader(String line, PGNGame game) {
-        int firstQuote = line.indexOf("\"");
-        int lastQuote = line.lastIndexOf("\"");
-        if (firstQuote < 0 || lastQuote < 0 || firstQuote == lastQuote) return;
+    /** Parses the games of PGN text held in memory, e.g. one game read through {@link PgnIndex}. */
+    public static void forEachGame(byte[] pgn, Consumer<PGNGame> action) {
+        PgnTokenizer.scan(pgn, new GameBuilder(action));
+    }
 
-        String key = line.substring(1, line.indexOf(" ", 1)).trim();
-        String value = line.substring(firstQuote + 1, lastQuote).trim();
-        game.addHeader(key, value);
+    public void loadPGNFromString(String pgnContent) throws IOException {
+        games.clear();
+        forEachGame(pgnContent.getBytes(StandardCharsets.UTF_8), games::add);
     }
 
-    private void parseMoves(String moveSection, PGNGame game) {
-        // Remove comments and NAGs
-        moveSection = moveSection.replaceAll("\\{[^}]*}", ""); // Remove comments {}
-        while (moveSection.contains("(")) {
-            int open = moveSection.indexOf('(');
-            int close = findMatchingParen(moveSection, open);
-            if (close != -1) {
-                moveSection = moveSection.substring(0, open).trim() + " " + moveSection.substring(close + 1).trim();
-            } else {
-                moveSection = moveSection.substring(0, open).trim(); // Remove potentially broken part
-                System.err.println("Warning: Malformed variation found in game, potential parsing issues.");
-                break;
-            }
-            moveSection = moveSection.replaceAll("\\s+", " ").trim();
-        }
-        moveSection = moveSection.replaceAll("\\$\\d+", ""); // remove NAGs
+    /** A tokenizer visitor that builds each game and hands it to {@code sink} when it ends. */
+    static PgnTokenizer.Visitor gameBuilder(Consumer<PGNGame> sink) {
+        return new GameBuilder(sink);
+    }
 
-        moveSection = moveSection.replaceAll("\\s+", " ").trim();
-        String[] tokens = moveSection.split(" ");
+    /**
+     * Builds {@link PGNGame}s from tokenizer callbacks and hands each one on when it ends.
+     */
+    private static final class GameBuilder implements PgnTokenizer.Visitor {
+        private final Consumer<PGNGame> sink;
+        private PGNGame game;
 
-        for (String token : tokens) {
-            if (token.isEmpty()) {
-                continue;
-            }
+        GameBuilder(Consumer<PGNGame> sink) {
+            this.sink = sink;
+        }
 
-            // Skip move numbers
-            if (token.matches("\\d+\\.+")) {
-                continue;
-            }
+        @Override
+        public void startGame(long offset) {
+            game = new PGNGame();
+        }
 
-            // Check for game termination
-            if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
-                game.setResult(token);
-                break;
-            } else {
-                if (!token.matches("\\d+\\.\\.\\.")) {
-                    game.addMove(token);
-                }
-            }
+        @Override
+        public void header(ByteBuffer source, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+            game.addHeader(PgnTokenizer.ascii(source, nameStart, nameEnd), PgnTokenizer.headerValue(source, valueStart, valueEnd).trim());
         }
-    }
 
-    // Helper to find matching parenthesis
-    private int findMatchingParen(String text, int openPos) {
-        int closePos = openPos;
-        int counter = 1;
-        while (counter > 0 && ++closePos < text.length()) {
-            if (text.charAt(closePos) == '(') {
-                counter++;
-            } else if (text.charAt(closePos) == ')') {
-                counter--;
+        @Override
+        public void move(ByteBuffer source, int start, int end) {
+            game.addMove(PgnTokenizer.ascii(source, start, end));
+        }
+
+        @Override
+        public void endGame(ByteBuffer source, int resultStart, int resultEnd, long endOffset) {
+            if (resultStart >= 0) {
+                game.setResult(PgnTokenizer.ascii(source, resultStart, resultEnd));
             }
+            sink.accept(game);
+            game = null;
         }
-        return (counter == 0) ? closePos : -1;
     }
 
     public List<PGNGame> getGames() {
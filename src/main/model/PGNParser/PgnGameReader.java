@@ -0,0 +1,102 @@
+package main.model.PGNParser;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads PGN games one at a time, so archives of any size can be processed in constant memory.
+ * <p>
+ * Lines are fed to {@link PgnTokenizer}, so games are split exactly as {@link Parser#forEachGame}
+ * splits them: a game is returned as soon as its movetext ends with a result marker, or otherwise
+ * when the next game's headers or the end of input is reached. Only the game being read is held
+ * in memory.
+ */
+public class PgnGameReader implements Iterator<Parser.PGNGame>, Closeable {
+
+    private final BufferedReader reader;
+    private final PgnTokenizer tokenizer;
+    private final ArrayDeque<Parser.PGNGame> finished = new ArrayDeque<>();
+    private Parser.PGNGame next;
+    private long offset;
+    private boolean exhausted;
+
+    public PgnGameReader(BufferedReader reader) {
+        this.reader = reader;
+        this.tokenizer = new PgnTokenizer(Parser.gameBuilder(finished::add));
+    }
+
+    /** Opens a file for streaming; close the reader (or the stream) when done. */
+    public static PgnGameReader open(File file) throws IOException {
+        return new PgnGameReader(new BufferedReader(new FileReader(file), 1 << 16));
+    }
+
+    /**
+     * The remaining games as a sequential stream. Closing the stream closes the reader.
+     * I/O errors are rethrown as {@link UncheckedIOException}.
+     */
+    public Stream<Parser.PGNGame> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readGame();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Parser.PGNGame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Parser.PGNGame game = next;
+        next = null;
+        return game;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Parser.PGNGame readGame() throws IOException {
+        while (finished.isEmpty() && !exhausted) {
+            String line = reader.readLine();
+            if (line == null) {
+                tokenizer.finish();
+                exhausted = true;
+                break;
+            }
+            byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+            tokenizer.scan(ByteBuffer.wrap(bytes), offset, 0, bytes.length);
+            offset += bytes.length;
+        }
+        return finished.poll();
+    }
+}
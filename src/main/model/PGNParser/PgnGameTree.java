@@ -0,0 +1,418 @@
+package main.model.PGNParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A PGN game with its whole move tree: the mainline, nested variations, comments and NAGs.
+ * <p>
+ * Nodes are numbered in input order and stored in parallel int arrays rather than as objects.
+ * Node 0 is the start position; every other node is a move. A node's first child continues its
+ * line and the following siblings are the variations to that child, in input order. SAN tokens
+ * and comments live in one shared text buffer, referenced by offset and length. Suffix glyphs such
+ * as "!?" are stored as their NAGs (1 to 6).
+ * <p>
+ * Trees are built in one linear pass by {@link PgnTokenizer}. Reading without annotations skips
+ * comments, NAGs and variations, leaving only the mainline, at close to the speed of {@link Parser}.
+ * {@code PGNGenerator.generate(PgnGameTree)} writes a tree back out.
+ */
+public final class PgnGameTree {
+
+    public static final int ROOT = 0;
+    public static final int NONE = -1;
+
+    private static final String[] GLYPHS = {"!", "?", "!!", "??", "!?", "?!"};
+
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private String result;
+    private int size = 1;
+    private int[] parent = new int[64];
+    private int[] firstChild = new int[64];
+    private int[] lastChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private int[] sanOffset = new int[64];
+    private int[] sanLength = new int[64];
+    private int[] commentOffset = new int[64]; // comment after the move, or the game comment for ROOT
+    private int[] commentLength = new int[64];
+    private int[] preCommentOffset = new int[64]; // comment before the first move of a variation
+    private int[] preCommentLength = new int[64];
+    private int[] nagOffset = new int[64];
+    private int[] nagCount = new int[64];
+    private int[] nags = new int[16];
+    private int nagsSize;
+    private final StringBuilder text = new StringBuilder(256);
+
+    public PgnGameTree() {
+        clearNode(ROOT, NONE);
+    }
+
+    // --- Reading ---
+
+    /**
+     * Scans a file and passes each game to {@code action} as soon as it ends.
+     *
+     * @param annotations false to skip comments, NAGs and variations.
+     */
+    public static void forEachGame(File file, boolean annotations, Consumer<PgnGameTree> action) throws IOException {
+        PgnTokenizer.scan(file.toPath(), new TreeBuilder(annotations, action));
+    }
+
+    /** Parses the games of PGN text held in memory. */
+    public static void forEachGame(byte[] pgn, boolean annotations, Consumer<PgnGameTree> action) {
+        PgnTokenizer.scan(pgn, new TreeBuilder(annotations, action));
+    }
+
+    /** Parses all games of a PGN text with their annotations. */
+    public static List<PgnGameTree> parse(String pgn) {
+        List<PgnGameTree> trees = new ArrayList<>();
+        forEachGame(pgn.getBytes(StandardCharsets.UTF_8), true, trees::add);
+        return trees;
+    }
+
+    // --- Navigation ---
+
+    /** The number of nodes, including {@link #ROOT}. */
+    public int size() {
+        return size;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /** "1-0", "0-1", "1/2-1/2", "*", or null if the movetext had no result. */
+    public String getResult() {
+        return result;
+    }
+
+    public int parent(int node) {
+        return parent[node];
+    }
+
+    /** The next move of the node's line, or {@link #NONE}. */
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    /** The next alternative to this move, or {@link #NONE}. */
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /** Number of moves from the start position to this node, e.g. 1 after White's first move. */
+    public int ply(int node) {
+        int ply = 0;
+        for (int n = node; n != ROOT; n = parent[n]) ply++;
+        return ply;
+    }
+
+    public String san(int node) {
+        return text.substring(sanOffset[node], sanOffset[node] + sanLength[node]);
+    }
+
+    /** The node's move packed by {@link SanParser}, decoded without allocating. */
+    public int sanDescriptor(int node) {
+        return SanParser.parse(text, sanOffset[node], sanOffset[node] + sanLength[node]);
+    }
+
+    /** The comment after the move (for {@link #ROOT}, before the first move), or null. */
+    public String comment(int node) {
+        return commentLength[node] == 0 ? null : text.substring(commentOffset[node], commentOffset[node] + commentLength[node]);
+    }
+
+    /** The comment written before the move at the start of a variation, or null. */
+    public String preComment(int node) {
+        return preCommentLength[node] == 0 ? null : text.substring(preCommentOffset[node], preCommentOffset[node] + preCommentLength[node]);
+    }
+
+    public int nagCount(int node) {
+        return nagCount[node];
+    }
+
+    public int nag(int node, int index) {
+        if (index < 0 || index >= nagCount[node]) {
+            throw new IndexOutOfBoundsException("NAG " + index + " of " + nagCount[node]);
+        }
+        return nags[nagOffset[node] + index];
+    }
+
+    /** The SAN moves of the main line. */
+    public List<String> mainline() {
+        List<String> moves = new ArrayList<>();
+        for (int n = firstChild[ROOT]; n != NONE; n = firstChild[n]) {
+            moves.add(san(n));
+        }
+        return moves;
+    }
+
+    /** The moves from the start position to {@code node}, e.g. to set up a variation. */
+    public List<String> lineTo(int node) {
+        List<String> moves = new ArrayList<>();
+        for (int n = node; n != ROOT; n = parent[n]) {
+            moves.add(san(n));
+        }
+        Collections.reverse(moves);
+        return moves;
+    }
+
+    /** The game as {@link Parser} would read it: headers, main line and result. */
+    public Parser.PGNGame toPGNGame() {
+        Parser.PGNGame game = new Parser.PGNGame();
+        headers.forEach(game::addHeader);
+        mainline().forEach(game::addMove);
+        game.setResult(result);
+        return game;
+    }
+
+    // --- Building ---
+
+    /**
+     * Adds a move after {@code node}: the continuation of its line if it has none yet, otherwise
+     * a variation to the existing continuation.
+     *
+     * @return The new node.
+     */
+    public int addMove(int node, CharSequence san) {
+        int child = newChild(node);
+        text.append(san);
+        sanLength[child] = san.length();
+        return child;
+    }
+
+    /** Adds a move whose SAN is the ASCII bytes {@code source[start, end)}. */
+    int addMove(int node, ByteBuffer source, int start, int end) {
+        int child = newChild(node);
+        for (int i = start; i < end; i++) {
+            text.append((char) (source.get(i) & 0xFF));
+        }
+        sanLength[child] = end - start;
+        return child;
+    }
+
+    private int newChild(int node) {
+        ensureCapacity(size + 1);
+        int child = size++;
+        clearNode(child, node);
+        sanOffset[child] = text.length();
+        if (firstChild[node] == NONE) {
+            firstChild[node] = child;
+        } else {
+            nextSibling[lastChild[node]] = child;
+        }
+        lastChild[node] = child;
+        return child;
+    }
+
+    /** Sets or extends (space-separated) the comment after a move, or the game comment for {@link #ROOT}. */
+    public void addComment(int node, CharSequence comment) {
+        int start = appendComment(commentOffset[node], commentLength[node], comment);
+        commentLength[node] = text.length() - start;
+        commentOffset[node] = start;
+    }
+
+    public void addPreComment(int node, CharSequence comment) {
+        int start = appendComment(preCommentOffset[node], preCommentLength[node], comment);
+        preCommentLength[node] = text.length() - start;
+        preCommentOffset[node] = start;
+    }
+
+    public void addNag(int node, int nag) {
+        if (nagCount[node] > 0 && nagOffset[node] + nagCount[node] != nagsSize) {
+            // Not the last NAGs written: move them to the end so they stay contiguous.
+            ensureNagCapacity(nagsSize + nagCount[node] + 1);
+            System.arraycopy(nags, nagOffset[node], nags, nagsSize, nagCount[node]);
+            nagOffset[node] = nagsSize;
+            nagsSize += nagCount[node];
+        } else if (nagCount[node] == 0) {
+            nagOffset[node] = nagsSize;
+        }
+        ensureNagCapacity(nagsSize + 1);
+        nags[nagsSize++] = nag;
+        nagCount[node]++;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    private int appendComment(int offset, int length, CharSequence comment) {
+        int start = text.length();
+        if (length > 0) {
+            // Comments are usually added while their node is the newest, so this copy is rare.
+            if (offset + length != start) {
+                text.append(text, offset, offset + length);
+            } else {
+                start = offset;
+            }
+            text.append(' ');
+        }
+        text.append(comment);
+        return start;
+    }
+
+    private void clearNode(int node, int parentNode) {
+        parent[node] = parentNode;
+        firstChild[node] = lastChild[node] = nextSibling[node] = NONE;
+        sanOffset[node] = sanLength[node] = 0;
+        commentOffset[node] = commentLength[node] = 0;
+        preCommentOffset[node] = preCommentLength[node] = 0;
+        nagOffset[node] = nagCount[node] = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= parent.length) return;
+        int newCapacity = Math.max(capacity, parent.length * 2);
+        parent = Arrays.copyOf(parent, newCapacity);
+        firstChild = Arrays.copyOf(firstChild, newCapacity);
+        lastChild = Arrays.copyOf(lastChild, newCapacity);
+        nextSibling = Arrays.copyOf(nextSibling, newCapacity);
+        sanOffset = Arrays.copyOf(sanOffset, newCapacity);
+        sanLength = Arrays.copyOf(sanLength, newCapacity);
+        commentOffset = Arrays.copyOf(commentOffset, newCapacity);
+        commentLength = Arrays.copyOf(commentLength, newCapacity);
+        preCommentOffset = Arrays.copyOf(preCommentOffset, newCapacity);
+        preCommentLength = Arrays.copyOf(preCommentLength, newCapacity);
+        nagOffset = Arrays.copyOf(nagOffset, newCapacity);
+        nagCount = Arrays.copyOf(nagCount, newCapacity);
+    }
+
+    private void ensureNagCapacity(int capacity) {
+        if (capacity > nags.length) {
+            nags = Arrays.copyOf(nags, Math.max(capacity, nags.length * 2));
+        }
+    }
+
+    /** The NAG for a suffix glyph such as "!?", or 0 if the text is not one. */
+    static int glyphNag(ByteBuffer source, int start, int end) {
+        for (int i = 0; i < GLYPHS.length; i++) {
+            if (PgnTokenizer.equalsAscii(source, start, end, GLYPHS[i])) return i + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Builds trees from tokenizer callbacks. The current line is tracked by the last node played
+     * in it; entering a variation saves it on a stack and continues from the parent of that move.
+     */
+    private static final class TreeBuilder implements PgnTokenizer.Visitor {
+        private final boolean annotations;
+        private final Consumer<PgnGameTree> sink;
+        private final StringBuilder pendingComment = new StringBuilder();
+        private PgnGameTree tree;
+        private int current;
+        private int[] stack = new int[8];
+        private int depth;
+        private boolean variationStarted; // no move played yet in the innermost variation
+        private StringBuilder commentParts; // a comment split across memory mappings
+
+        TreeBuilder(boolean annotations, Consumer<PgnGameTree> sink) {
+            this.annotations = annotations;
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean wantsAnnotations() {
+            return annotations;
+        }
+
+        @Override
+        public void startGame(long offset) {
+            tree = new PgnGameTree();
+            current = ROOT;
+            depth = 0;
+            variationStarted = false;
+            pendingComment.setLength(0);
+        }
+
+        @Override
+        public void header(ByteBuffer source, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+            tree.headers.put(PgnTokenizer.ascii(source, nameStart, nameEnd), PgnTokenizer.headerValue(source, valueStart, valueEnd).trim());
+        }
+
+        @Override
+        public void move(ByteBuffer source, int start, int end) {
+            // Split suffix glyphs ("e4!?") off the move; a glyph on its own annotates the last move.
+            int sanEnd = end;
+            while (sanEnd > start && (source.get(sanEnd - 1) == '!' || source.get(sanEnd - 1) == '?')) sanEnd--;
+            if (sanEnd > start) {
+                current = tree.addMove(current, source, start, sanEnd);
+                if (pendingComment.length() > 0) {
+                    tree.addPreComment(current, pendingComment);
+                    pendingComment.setLength(0);
+                }
+                variationStarted = false;
+            }
+            if (annotations && sanEnd < end && current != ROOT) {
+                int nag = glyphNag(source, sanEnd, end);
+                if (nag > 0) tree.addNag(current, nag);
+            }
+        }
+
+        @Override
+        public void comment(ByteBuffer source, int start, int end, boolean complete) {
+            if (!complete) {
+                if (commentParts == null) commentParts = new StringBuilder();
+                commentParts.append(PgnTokenizer.utf8(source, start, end));
+                return;
+            }
+            String comment = PgnTokenizer.utf8(source, start, end);
+            if (commentParts != null) {
+                comment = commentParts.append(comment).toString();
+                commentParts = null;
+            }
+            comment = comment.trim();
+            if (comment.isEmpty()) return;
+            if (variationStarted) {
+                if (pendingComment.length() > 0) pendingComment.append(' ');
+                pendingComment.append(comment);
+            } else {
+                tree.addComment(current, comment);
+            }
+        }
+
+        @Override
+        public void nag(int nag) {
+            if (current != ROOT && !variationStarted) tree.addNag(current, nag);
+        }
+
+        @Override
+        public void startVariation() {
+            stack = ensure(stack, depth + 1);
+            stack[depth++] = current;
+            if (current != ROOT) current = tree.parent(current); // else: alternatives to the first move
+            variationStarted = true;
+            pendingComment.setLength(0);
+        }
+
+        @Override
+        public void endVariation() {
+            if (depth == 0) return;
+            current = stack[--depth];
+            variationStarted = false;
+            pendingComment.setLength(0);
+        }
+
+        @Override
+        public void endGame(ByteBuffer source, int resultStart, int resultEnd, long endOffset) {
+            if (resultStart >= 0) {
+                tree.setResult(PgnTokenizer.ascii(source, resultStart, resultEnd));
+            }
+            commentParts = null;
+            sink.accept(tree);
+            tree = null;
+        }
+
+        private static int[] ensure(int[] array, int capacity) {
+            return capacity <= array.length ? array : Arrays.copyOf(array, array.length * 2);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package main.model.PGNParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A sidecar index of a PGN file ({@code games.pgn.idx} next to {@code games.pgn}) holding the byte
+ * offset and length of every game plus its White, Black, Result and Date headers, so any game can
+ * be listed or loaded without parsing the games before it.
+ * <p>
+ * {@link #open} reuses an up-to-date index, extends it when the file has only been appended to,
+ * and rebuilds it otherwise. Appends are recognized by the indexed length and a checksum of the
+ * bytes just before it; a trailing game that had no result yet is re-read in case it was completed.
+ */
+public final class PgnIndex {
+
+    private static final int MAGIC = 0x50474E58; // "PGNX"
+    private static final int VERSION = 1;
+    private static final int CHECKSUM_BYTES = 4096;
+
+    private final Path pgnFile;
+    private long indexedLength;
+    private long storedChecksum;
+    private long resumeOffset;
+    private int size;
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private String[] whites = new String[1024];
+    private String[] blacks = new String[1024];
+    private String[] results = new String[1024];
+    private String[] dates = new String[1024];
+
+    private PgnIndex(Path pgnFile) {
+        this.pgnFile = pgnFile;
+    }
+
+    public static Path sidecarPath(Path pgnFile) {
+        return pgnFile.resolveSibling(pgnFile.getFileName() + ".idx");
+    }
+
+    /**
+     * Loads the index of a PGN file, updating or rebuilding it (and its sidecar file) when the PGN
+     * file has changed since it was written.
+     */
+    public static PgnIndex open(Path pgnFile) throws IOException {
+        PgnIndex index = new PgnIndex(pgnFile);
+        long fileLength = Files.size(pgnFile);
+        boolean loaded = index.load();
+        boolean appendedOnly = loaded && fileLength >= index.indexedLength
+                && index.checksum(index.indexedLength) == index.storedChecksum;
+        if (appendedOnly && fileLength == index.indexedLength) {
+            return index;
+        }
+        if (!appendedOnly) {
+            index.clear();
+        }
+        index.scanFrom(index.resumeOffset);
+        index.save();
+        return index;
+    }
+
+    /** The number of games in the file. */
+    public int size() {
+        return size;
+    }
+
+    public long offset(int game) {
+        checkIndex(game);
+        return offsets[game];
+    }
+
+    public int length(int game) {
+        checkIndex(game);
+        return lengths[game];
+    }
+
+    public String white(int game) {
+        checkIndex(game);
+        return whites[game];
+    }
+
+    public String black(int game) {
+        checkIndex(game);
+        return blacks[game];
+    }
+
+    public String result(int game) {
+        checkIndex(game);
+        return results[game];
+    }
+
+    public String date(int game) {
+        checkIndex(game);
+        return dates[game];
+    }
+
+    /** The raw PGN text of one game, read with a single positioned read. */
+    public byte[] readBytes(int game) throws IOException {
+        checkIndex(game);
+        ByteBuffer buffer = ByteBuffer.allocate(lengths[game]);
+        try (FileChannel channel = FileChannel.open(pgnFile, StandardOpenOption.READ)) {
+            long position = offsets[game];
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("PGN file is shorter than its index; reopen the index");
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    /** Loads and parses one game, identified by its zero-based number. */
+    public Parser.PGNGame readGame(int game) throws IOException {
+        List<Parser.PGNGame> parsed = new ArrayList<>(1);
+        Parser.forEachGame(readBytes(game), parsed::add);
+        if (parsed.isEmpty()) {
+            throw new IOException("No game found at offset " + offsets[game] + "; reopen the index");
+        }
+        return parsed.get(0);
+    }
+
+    private void checkIndex(int game) {
+        if (game < 0 || game >= size) {
+            throw new IndexOutOfBoundsException("Game " + game + " of " + size);
+        }
+    }
+
+    private void clear() {
+        size = 0;
+        resumeOffset = 0;
+    }
+
+    // --- Building ---
+
+    private void scanFrom(long startOffset) throws IOException {
+        while (size > 0 && offsets[size - 1] >= startOffset) {
+            size--; // an unfinished trailing game is indexed again
+        }
+        // Taken first: bytes appended during the scan are covered by the next update.
+        long length = Files.size(pgnFile);
+        long[] lastEnd = {-1};
+        boolean[] lastComplete = {true};
+        PgnTokenizer.scan(pgnFile, startOffset, new PgnTokenizer.Visitor() {
+            @Override
+            public void startGame(long offset) {
+                ensureCapacity(size + 1);
+                offsets[size] = offset;
+                whites[size] = blacks[size] = results[size] = dates[size] = "?";
+            }
+
+            @Override
+            public void header(ByteBuffer source, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+                if (PgnTokenizer.equalsAscii(source, nameStart, nameEnd, "White")) {
+                    whites[size] = PgnTokenizer.headerValue(source, valueStart, valueEnd);
+                } else if (PgnTokenizer.equalsAscii(source, nameStart, nameEnd, "Black")) {
+                    blacks[size] = PgnTokenizer.headerValue(source, valueStart, valueEnd);
+                } else if (PgnTokenizer.equalsAscii(source, nameStart, nameEnd, "Result")) {
+                    results[size] = PgnTokenizer.ascii(source, valueStart, valueEnd);
+                } else if (PgnTokenizer.equalsAscii(source, nameStart, nameEnd, "Date")) {
+                    dates[size] = PgnTokenizer.ascii(source, valueStart, valueEnd);
+                }
+            }
+
+            @Override
+            public void move(ByteBuffer source, int start, int end) {
+            }
+
+            @Override
+            public void endGame(ByteBuffer source, int resultStart, int resultEnd, long endOffset) {
+                lengths[size] = Math.toIntExact(endOffset - offsets[size]);
+                lastEnd[0] = endOffset;
+                lastComplete[0] = resultStart >= 0;
+                size++;
+            }
+        });
+        indexedLength = length;
+        // Resume after the last complete game, at the start of a line; an unfinished game is re-read.
+        if (lastEnd[0] < 0) {
+            resumeOffset = startOffset; // nothing but stray text so far
+        } else {
+            resumeOffset = lastComplete[0] ? lineStartAfter(lastEnd[0]) : offsets[size - 1];
+        }
+    }
+
+    private long lineStartAfter(long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(pgnFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            long position = offset;
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) return position;
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') return position + i + 1;
+                }
+                position += read;
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= offsets.length) return;
+        int newCapacity = Math.max(capacity, offsets.length * 2);
+        offsets = Arrays.copyOf(offsets, newCapacity);
+        lengths = Arrays.copyOf(lengths, newCapacity);
+        whites = Arrays.copyOf(whites, newCapacity);
+        blacks = Arrays.copyOf(blacks, newCapacity);
+        results = Arrays.copyOf(results, newCapacity);
+        dates = Arrays.copyOf(dates, newCapacity);
+    }
+
+    // --- Sidecar file ---
+
+    private boolean load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecarPath(pgnFile)), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            indexedLength = in.readLong();
+            storedChecksum = in.readLong();
+            resumeOffset = in.readLong();
+            size = in.readInt();
+            ensureCapacity(size);
+            for (int i = 0; i < size; i++) {
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+                whites[i] = in.readUTF();
+                blacks[i] = in.readUTF();
+                results[i] = in.readUTF();
+                dates[i] = in.readUTF();
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            System.err.println("Error reading PGN index, rebuilding it: " + e.getMessage());
+            size = 0;
+            return false;
+        }
+    }
+
+    private void save() throws IOException {
+        Path sidecar = sidecarPath(pgnFile);
+        Path temporary = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(indexedLength);
+            out.writeLong(checksum(indexedLength));
+            out.writeLong(resumeOffset);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+                out.writeUTF(whites[i]);
+                out.writeUTF(blacks[i]);
+                out.writeUTF(results[i]);
+                out.writeUTF(dates[i]);
+            }
+        }
+        Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** CRC of the bytes just before {@code length}, which must not change when the file is appended to. */
+    private long checksum(long length) throws IOException {
+        int count = (int) Math.min(CHECKSUM_BYTES, length);
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        try (FileChannel channel = FileChannel.open(pgnFile, StandardOpenOption.READ)) {
+            long position = length - count;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) break;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        return crc.getValue();
+    }
+
+    /**
+     * Builds or updates the index of a PGN file and prints a few games.
+     * Usage: java main.model.PGNParser.PgnIndex &lt;file.pgn&gt; [gameNumber]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java main.model.PGNParser.PgnIndex <file.pgn> [gameNumber]");
+            return;
+        }
+        long start = System.nanoTime();
+        PgnIndex index = open(Path.of(args[0]));
+        System.out.println("Indexed " + index.size() + " games in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        if (args.length > 1) {
+            int game = Integer.parseInt(args[1]) - 1;
+            System.out.println(index.white(game) + " - " + index.black(game) + " " + index.result(game) + " (" + index.date(game) + ")");
+            System.out.println(index.readGame(game));
+        }
+    }
+}
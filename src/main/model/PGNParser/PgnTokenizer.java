@@ -0,0 +1,347 @@
+package main.model.PGNParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single-pass PGN scanner over raw bytes. It reports header tag pairs, SAN move tokens and
+ * game results as offsets into the buffer, without creating strings, and skips comments,
+ * variations, NAGs, move numbers and escape lines as it goes, so its cost is linear in the input.
+ * <p>
+ * Files are memory-mapped in windows that end on a line break. Tokens never span lines, and the
+ * scanner keeps its state (open comment, variation depth, current game) between windows, so
+ * archives larger than one mapping are scanned the same way as small ones.
+ * <p>
+ * A game starts with its first header and ends with its result token. A game without a result
+ * ends at the next game's headers or at the end of input, with no result reported. Movetext
+ * outside a game is ignored.
+ * <p>
+ * Visitors that {@linkplain Visitor#wantsAnnotations() ask for annotations} also receive the
+ * comments, NAGs and variations of each game, with the moves inside variations reported through
+ * {@link Visitor#move} between the matching start and end calls.
+ */
+public final class PgnTokenizer {
+
+    /**
+     * Receives the tokens of each game, in input order. Int offsets are into {@code source} and
+     * valid only during the call; long offsets are absolute positions in the input.
+     */
+    public interface Visitor {
+        /** @param offset Position of the game's first header. */
+        void startGame(long offset);
+
+        void header(ByteBuffer source, int nameStart, int nameEnd, int valueStart, int valueEnd);
+
+        void move(ByteBuffer source, int start, int end);
+
+        /**
+         * @param resultStart Start of the result token, or -1 if the game ended without one.
+         * @param endOffset   Position just past the result token, or where the next game or the
+         *                    input ends for a game without one.
+         */
+        void endGame(ByteBuffer source, int resultStart, int resultEnd, long endOffset);
+
+        /** Whether to report comments, NAGs and variations; read once, when the scan starts. */
+        default boolean wantsAnnotations() {
+            return false;
+        }
+
+        /**
+         * A comment's text, without its braces or semicolon. A brace comment that spans the end of a
+         * memory mapping arrives in several parts; {@code complete} is set on the last one.
+         */
+        default void comment(ByteBuffer source, int start, int end, boolean complete) {
+        }
+
+        /** A numeric annotation glyph, e.g. 1 for "$1". */
+        default void nag(int nag) {
+        }
+
+        default void startVariation() {
+        }
+
+        default void endVariation() {
+        }
+    }
+
+    private static final int WINDOW_BYTES = 1 << 28;
+
+    private final Visitor visitor;
+    private final boolean annotations;
+    private boolean inComment;
+    private int commentStart;
+    private int variationDepth;
+    private boolean gameOpen;
+    private boolean hasMovetext;
+    private int newlinesSinceToken;
+    private boolean atLineStart = true;
+    private long baseOffset;
+    private long endOffset;
+
+    PgnTokenizer(Visitor visitor) {
+        this.visitor = visitor;
+        this.annotations = visitor.wantsAnnotations();
+    }
+
+    /** Scans a whole file through memory mappings. */
+    public static void scan(Path file, Visitor visitor) throws IOException {
+        scan(file, 0, visitor);
+    }
+
+    /**
+     * Scans a file from {@code startOffset}, which must be the start of a line outside any game
+     * or comment, e.g. where an earlier scan ended.
+     */
+    public static void scan(Path file, long startOffset, Visitor visitor) throws IOException {
+        PgnTokenizer tokenizer = new PgnTokenizer(visitor);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = startOffset;
+            while (position < size) {
+                long length = Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    while (end > 0 && window.get(end - 1) != '\n') end--;
+                    if (end == 0) {
+                        throw new IOException("Line longer than " + WINDOW_BYTES + " bytes at offset " + position);
+                    }
+                }
+                tokenizer.scan(window, position, 0, end);
+                position += end;
+            }
+        }
+        tokenizer.finish();
+    }
+
+    /** Scans a complete PGN text held in memory. */
+    public static void scan(byte[] data, Visitor visitor) {
+        PgnTokenizer tokenizer = new PgnTokenizer(visitor);
+        tokenizer.scan(ByteBuffer.wrap(data), 0, 0, data.length);
+        tokenizer.finish();
+    }
+
+    /**
+     * Scans bytes {@code from} (inclusive) to {@code to} (exclusive). Consecutive calls continue
+     * the same input; {@code to} must fall at the end of a line unless it is the end of input.
+     *
+     * @param baseOffset Position in the input of {@code source}'s index 0.
+     */
+    void scan(ByteBuffer source, long baseOffset, int from, int to) {
+        this.baseOffset = baseOffset;
+        this.endOffset = baseOffset + to;
+        this.commentStart = from; // a comment carried over from the previous window resumes here
+        int i = from;
+        while (i < to) {
+            byte b = source.get(i);
+            if (inComment) {
+                if (b == '}') {
+                    inComment = false;
+                    if (annotations && gameOpen) visitor.comment(source, commentStart, i, true);
+                } else if (b == '\n') newlinesSinceToken++;
+                i++;
+                continue;
+            }
+            if (atLineStart && b == '%') {
+                i = skipLine(source, i, to); // escape mechanism: the rest of the line is ignored
+                continue;
+            }
+            atLineStart = false;
+            switch (b) {
+                case '\n' -> {
+                    newlinesSinceToken++;
+                    atLineStart = true;
+                    i++;
+                }
+                case ' ', '\t', '\r', '\f' -> i++;
+                case '{' -> {
+                    inComment = true;
+                    commentStart = ++i;
+                }
+                case ';' -> {
+                    int start = i + 1;
+                    i = skipLine(source, i, to);
+                    if (annotations && gameOpen) visitor.comment(source, start, i, true);
+                }
+                case '(' -> {
+                    variationDepth++;
+                    if (annotations && gameOpen) visitor.startVariation();
+                    i++;
+                }
+                case ')' -> {
+                    if (variationDepth > 0) {
+                        variationDepth--;
+                        if (annotations && gameOpen) visitor.endVariation();
+                    }
+                    i++;
+                }
+                case '$' -> {
+                    int nag = 0;
+                    i++;
+                    while (i < to && isDigit(source.get(i))) {
+                        nag = nag * 10 + source.get(i) - '0';
+                        i++;
+                    }
+                    if (annotations && gameOpen) visitor.nag(nag);
+                }
+                case '[' -> {
+                    i = variationDepth == 0 ? header(source, i, to) : i + 1;
+                    newlinesSinceToken = 0;
+                }
+                case ']', '}' -> i++;
+                default -> {
+                    int start = i;
+                    while (i < to && !isDelimiter(source.get(i))) i++;
+                    if (gameOpen && (variationDepth == 0 || annotations)) {
+                        token(source, start, i);
+                    }
+                    newlinesSinceToken = 0;
+                }
+            }
+        }
+        if (inComment && annotations && gameOpen && commentStart < to) {
+            visitor.comment(source, commentStart, to, false);
+        }
+    }
+
+    /** Ends the game in progress, if any; call once after the last {@link #scan} call. */
+    void finish() {
+        if (gameOpen) {
+            gameOpen = false;
+            visitor.endGame(null, -1, -1, endOffset);
+        }
+        inComment = false;
+        variationDepth = 0;
+    }
+
+    private int header(ByteBuffer source, int i, int to) {
+        // Headers after movetext, or after a blank line that ended a header section, start a new game.
+        if (gameOpen && (hasMovetext || newlinesSinceToken >= 2)) {
+            gameOpen = false;
+            visitor.endGame(source, -1, -1, baseOffset + i);
+        }
+        if (!gameOpen) {
+            gameOpen = true;
+            hasMovetext = false;
+            visitor.startGame(baseOffset + i);
+        }
+
+        i++; // '['
+        while (i < to && isBlank(source.get(i))) i++;
+        int nameStart = i;
+        while (i < to && !isBlank(source.get(i)) && source.get(i) != '"' && source.get(i) != ']' && source.get(i) != '\n') i++;
+        int nameEnd = i;
+        while (i < to && source.get(i) != '"' && source.get(i) != ']' && source.get(i) != '\n') i++;
+        if (i < to && source.get(i) == '"') {
+            int valueStart = ++i;
+            while (i < to && source.get(i) != '"' && source.get(i) != '\n') {
+                i += source.get(i) == '\\' ? 2 : 1;
+            }
+            int valueEnd = Math.min(i, to);
+            if (nameEnd > nameStart) {
+                visitor.header(source, nameStart, nameEnd, valueStart, valueEnd);
+            }
+        }
+        while (i < to && source.get(i) != ']' && source.get(i) != '\n') i++;
+        return i < to && source.get(i) == ']' ? i + 1 : i;
+    }
+
+    private void token(ByteBuffer source, int start, int end) {
+        int length = end - start;
+        byte first = source.get(start);
+        if (first == '*' && length == 1 || isResult(source, start, length)) {
+            if (variationDepth > 0) return; // only reached when reporting annotations
+            gameOpen = false;
+            visitor.endGame(source, start, end, baseOffset + end);
+            return;
+        }
+        if (isDigit(first) && !(first == '0' && length > 1 && source.get(start + 1) == '-')) {
+            // A move number such as "12." or "12...", possibly run together with the move ("12.e4").
+            int i = start;
+            while (i < end && isDigit(source.get(i))) i++;
+            int digitsEnd = i;
+            while (i < end && source.get(i) == '.') i++;
+            if (i == digitsEnd || i == end) return;
+            start = i;
+        }
+        hasMovetext = true;
+        visitor.move(source, start, end);
+    }
+
+    private static boolean isResult(ByteBuffer source, int start, int length) {
+        if (length == 3) {
+            return source.get(start + 1) == '-'
+                    && (source.get(start) == '1' && source.get(start + 2) == '0' || source.get(start) == '0' && source.get(start + 2) == '1');
+        }
+        return length == 7 && source.get(start) == '1' && source.get(start + 1) == '/' && source.get(start + 2) == '2'
+                && source.get(start + 3) == '-' && source.get(start + 4) == '1' && source.get(start + 5) == '/' && source.get(start + 6) == '2';
+    }
+
+    private int skipLine(ByteBuffer source, int i, int to) {
+        while (i < to && source.get(i) != '\n') i++;
+        return i; // the newline itself is handled by the main loop
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return switch (b) {
+            case ' ', '\t', '\r', '\n', '\f', '{', '}', '(', ')', '[', ']', ';', '$' -> true;
+            default -> false;
+        };
+    }
+
+    /** Whether a span holds exactly the given ASCII text, e.g. a header name. */
+    public static boolean equalsAscii(ByteBuffer source, int start, int end, String text) {
+        if (end - start != text.length()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (source.get(start + i) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Decodes an ASCII span such as a SAN token. */
+    public static String ascii(ByteBuffer source, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) (source.get(i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes a header value, undoing the escapes {@code \"} and {@code \\} that PGN requires
+     * inside tag strings.
+     */
+    public static String headerValue(ByteBuffer source, int start, int end) {
+        String value = utf8(source, start, end);
+        if (value.indexOf('\\') < 0) return value;
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '\\' && i + 1 < value.length() && (value.charAt(i + 1) == '"' || value.charAt(i + 1) == '\\')) {
+                ch = value.charAt(++i);
+            }
+            unescaped.append(ch);
+        }
+        return unescaped.toString();
+    }
+
+    /** Decodes a UTF-8 span such as a comment. */
+    public static String utf8(ByteBuffer source, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,239 @@
+package main.model.PGNParser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes SAN move tokens into packed ints in one left-to-right pass, without allocating. This is
+ * the inner loop of PGN import and replay; {@link Interpreter} builds its {@link Move} objects
+ * from the same descriptors.
+ * <p>
+ * Descriptor layout: bits 0-2 piece (1 P, 2 N, 3 B, 4 R, 5 Q, 6 K), bits 3-5 target file,
+ * bits 6-8 target rank - 1, bits 9-12 disambiguation file + 1 (0 none), bits 13-16
+ * disambiguation rank (0 none), bits 17-19 promotion (0 none, 1 N, 2 B, 3 R, 4 Q, as in
+ * {@code Moves}), then flags for capture, check, checkmate and the two castles. Castling
+ * descriptors have the king's target file and no target rank, which depends on the side to move.
+ * <p>
+ * Errors are returned rather than thrown: a negative value carrying the offset, relative to the
+ * token start, of the first character that could not be parsed and a reason code, read with
+ * {@link #errorPosition} and {@link #errorMessage}. Accepted besides strict SAN: "0-0" castling,
+ * a promotion piece without '=', and trailing '!' and '?' annotations.
+ */
+public final class SanParser {
+
+    private static final String PIECES = " PNBRQK";
+    private static final String PROMOTIONS = " NBRQ";
+
+    private static final int CAPTURE = 1 << 20;
+    private static final int CHECK = 1 << 21;
+    private static final int CHECKMATE = 1 << 22;
+    private static final int KINGSIDE_CASTLE = 1 << 23;
+    private static final int QUEENSIDE_CASTLE = 1 << 24;
+
+    private static final int ERROR = 1 << 31;
+    private static final String[] ERRORS = {
+            "empty move", "expected a square", "unexpected character", "expected a promotion piece", "invalid castling"
+    };
+    private static final int EMPTY = 0, NO_SQUARE = 1, UNEXPECTED = 2, NO_PROMOTION = 3, BAD_CASTLING = 4;
+
+    private SanParser() {}
+
+    /** Parses a whole token, e.g. "Nbxd7+". */
+    public static int parse(CharSequence token) {
+        return parse(token, 0, token.length());
+    }
+
+    /** Parses {@code token[start, end)}. */
+    public static int parse(CharSequence token, int start, int end) {
+        return parse(token, null, start, end);
+    }
+
+    /** Parses the bytes {@code source[start, end)}, e.g. a token reported by {@link PgnTokenizer}. */
+    public static int parse(ByteBuffer source, int start, int end) {
+        return parse(null, source, start, end);
+    }
+
+    /**
+     * The parser behind both public overloads. Exactly one of {@code chars} and {@code bytes} is
+     * set, and every read goes through {@link #at}, so neither overload allocates a view.
+     */
+    private static int parse(CharSequence chars, ByteBuffer bytes, int start, int end) {
+        if (start >= end) return error(EMPTY, 0);
+        int i = start;
+        char c = at(chars, bytes, i);
+        if (c == 'O' || c == '0') {
+            int castle = 0;
+            if (end - i >= 3 && at(chars, bytes, i + 1) == '-' && at(chars, bytes, i + 2) == c) {
+                i += 3;
+                castle = KINGSIDE_CASTLE | 6 << 3;
+                if (end - i >= 2 && at(chars, bytes, i) == '-' && at(chars, bytes, i + 1) == c) {
+                    i += 2;
+                    castle = QUEENSIDE_CASTLE | 2 << 3;
+                }
+            }
+            if (castle == 0) return error(BAD_CASTLING, i - start);
+            return suffix(chars, bytes, i, end, start, 6 | castle);
+        }
+
+        int piece = PIECES.indexOf(c);
+        if (piece > 0) i++; // an explicit "P" is accepted too
+        else piece = 1;
+
+        // Up to four coordinates, e.g. "b", "d", "7" in "Nbd7" or "e", "2", "e", "4" in "e2e4".
+        int files = 0, ranks = 0, count = 0, flags = 0;
+        int kinds = 0; // bit n set when coordinate n is a rank
+        while (i < end && count < 4) {
+            c = at(chars, bytes, i);
+            if (c >= 'a' && c <= 'h') {
+                files |= (c - 'a') << (3 * count);
+            } else if (c >= '1' && c <= '8') {
+                ranks |= (c - '1') << (3 * count);
+                kinds |= 1 << count;
+            } else if (c == 'x' && (flags & CAPTURE) == 0) {
+                flags |= CAPTURE;
+                i++;
+                continue;
+            } else {
+                break;
+            }
+            count++;
+            i++;
+        }
+        int descriptor = squares(files, ranks, kinds, count);
+        if (descriptor < 0) return error(NO_SQUARE, i - start);
+        descriptor |= piece | flags;
+
+        if (i < end && (at(chars, bytes, i) == '=' || PROMOTIONS.indexOf(at(chars, bytes, i)) > 0)) {
+            if (at(chars, bytes, i) == '=') i++;
+            int promotion = i < end ? PROMOTIONS.indexOf(at(chars, bytes, i)) : -1;
+            if (promotion <= 0) return error(NO_PROMOTION, i - start);
+            descriptor |= promotion << 17;
+            i++;
+        }
+        return suffix(chars, bytes, i, end, start, descriptor);
+    }
+
+    /** The character at {@code i}; bytes are read as Latin-1, so anything non-ASCII is simply unexpected. */
+    private static char at(CharSequence chars, ByteBuffer bytes, int i) {
+        return chars != null ? chars.charAt(i) : (char) (bytes.get(i) & 0xFF);
+    }
+
+    /**
+     * Parses a token and throws if it is not a move.
+     *
+     * @throws IllegalArgumentException naming the token, the offset and the reason.
+     */
+    public static int parseOrThrow(CharSequence token) {
+        int descriptor = parse(token);
+        if (isError(descriptor)) {
+            throw new IllegalArgumentException("Unrecognized move format: " + token + " (" + errorMessage(descriptor)
+                    + " at position " + errorPosition(descriptor) + ")");
+        }
+        return descriptor;
+    }
+
+    /**
+     * Combines the coordinates read so far into the target square and disambiguation: the last
+     * two must be a file and a rank; one or two before them are the disambiguation.
+     */
+    private static int squares(int files, int ranks, int kinds, int count) {
+        if (count < 2) return -1;
+        int target = count - 1;
+        if ((kinds >> target & 1) == 0 || (kinds >> (target - 1) & 1) != 0) return -1;
+        int descriptor = (files >> (3 * (target - 1)) & 7) << 3 | (ranks >> (3 * target) & 7) << 6;
+        if (count == 3) {
+            if ((kinds & 1) == 0) descriptor |= ((files & 7) + 1) << 9;
+            else descriptor |= ((ranks & 7) + 1) << 13;
+        } else if (count == 4) {
+            if ((kinds & 3) != 2) return -1; // a full disambiguation is a file and a rank
+            descriptor |= ((files & 7) + 1) << 9 | ((ranks >> 3 & 7) + 1) << 13;
+        }
+        return descriptor;
+    }
+
+    private static int suffix(CharSequence chars, ByteBuffer bytes, int i, int end, int start, int descriptor) {
+        if (i < end && at(chars, bytes, i) == '+') {
+            descriptor |= CHECK;
+            i++;
+        } else if (i < end && at(chars, bytes, i) == '#') {
+            descriptor |= CHECKMATE;
+            i++;
+        }
+        while (i < end && (at(chars, bytes, i) == '!' || at(chars, bytes, i) == '?')) i++;
+        return i == end ? descriptor : error(UNEXPECTED, i - start);
+    }
+
+    private static int error(int reason, int position) {
+        return ERROR | reason << 24 | Math.min(position, 0xFFFFFF);
+    }
+
+    // --- Accessors ---
+
+    public static boolean isError(int descriptor) {
+        return descriptor < 0;
+    }
+
+    /** Offset from the token start of the first character that could not be parsed. */
+    public static int errorPosition(int descriptor) {
+        return descriptor & 0xFFFFFF;
+    }
+
+    public static String errorMessage(int descriptor) {
+        return ERRORS[(descriptor >>> 24) & 0x7F];
+    }
+
+    /** The moving piece as an uppercase letter; 'P' for pawns. */
+    public static char piece(int descriptor) {
+        return PIECES.charAt(descriptor & 7);
+    }
+
+    /** Target file, 0 for a to 7 for h. */
+    public static int targetFile(int descriptor) {
+        return (descriptor >>> 3) & 7;
+    }
+
+    /** Target rank, 1 to 8, or -1 for castling. */
+    public static int targetRank(int descriptor) {
+        return isCastle(descriptor) ? -1 : ((descriptor >>> 6) & 7) + 1;
+    }
+
+    /** Disambiguation file, 0 to 7, or -1 if none. */
+    public static int disambiguationFile(int descriptor) {
+        return ((descriptor >>> 9) & 15) - 1;
+    }
+
+    /** Disambiguation rank, 1 to 8, or -1 if none. */
+    public static int disambiguationRank(int descriptor) {
+        int rank = (descriptor >>> 13) & 15;
+        return rank == 0 ? -1 : rank;
+    }
+
+    /** The promotion piece letter, or 0 if none. */
+    public static char promotion(int descriptor) {
+        int promotion = (descriptor >>> 17) & 7;
+        return promotion == 0 ? 0 : PROMOTIONS.charAt(promotion);
+    }
+
+    public static boolean isCapture(int descriptor) {
+        return (descriptor & CAPTURE) != 0;
+    }
+
+    public static boolean isCheck(int descriptor) {
+        return (descriptor & CHECK) != 0;
+    }
+
+    public static boolean isCheckmate(int descriptor) {
+        return (descriptor & CHECKMATE) != 0;
+    }
+
+    public static boolean isKingsideCastle(int descriptor) {
+        return (descriptor & KINGSIDE_CASTLE) != 0;
+    }
+
+    public static boolean isQueensideCastle(int descriptor) {
+        return (descriptor & QUEENSIDE_CASTLE) != 0;
+    }
+
+    public static boolean isCastle(int descriptor) {
+        return (descriptor & (KINGSIDE_CASTLE | QUEENSIDE_CASTLE)) != 0;
+    }
+}
@@ -0,0 +1,355 @@
+package main.server;
+
+import main.common.Colour;
+import main.common.Square;
+import main.engine.ClassicalEvaluator;
+import main.engine.Moves;
+import main.engine.Search;
+import main.engine.SearchResult;
+import main.engine.TimeManager;
+import main.engine.TranspositionTable;
+import main.model.Board.Board;
+import main.model.pieces.King;
+import main.model.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs position analysis for connected players on a fixed pool of worker threads, so analysis
+ * never runs on (or starves) the game handler threads.
+ * <p>
+ * Requests are queued by fair share: a request's round is one past the later of the round
+ * being served and the owner's previous request, so a player who submits many requests waits
+ * behind everyone else's first ones. Requests for a position that is already queued or being
+ * searched join that search instead of starting another. Each completed depth is sent to every
+ * subscriber as an {@code INFO} line, followed by {@code ANALYSIS_DONE <bestmove>} once the
+ * subscriber's own depth or time limit is reached. Time limits are enforced by a timer, so a
+ * subscriber sharing a deep search is answered on time with the best move found so far, without
+ * waiting for the current iteration to finish.
+ */
+public class AnalysisService {
+
+    /** Upper bound on a single analysis, whatever was requested. */
+    public static final long MAX_MILLIS = 60_000;
+
+    private static final AnalysisService SHARED = new AnalysisService(Runtime.getRuntime().availableProcessors());
+
+    private final TranspositionTable table = new TranspositionTable();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "analysis-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final PriorityQueue<Job> queue = new PriorityQueue<>(
+            Comparator.comparingLong((Job job) -> job.round).thenComparingLong(job -> job.sequence));
+    private final Map<String, Job> jobsByPosition = new HashMap<>();
+    private final Map<Object, Long> lastRoundByOwner = new HashMap<>();
+    private long currentRound;
+    private long sequence;
+    private boolean shutdown;
+
+    /**
+     * @param threads Number of worker threads; each searches one position at a time.
+     */
+    public AnalysisService(int threads) {
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workerLoop, "analysis-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /** The service shared by all games on this server, sized to the number of cores. */
+    public static AnalysisService shared() {
+        return SHARED;
+    }
+
+    /**
+     * Queues an analysis request, or joins an identical one that is already queued or running.
+     *
+     * @param owner  Identifies the requester for fairness and {@link #cancel}, e.g. its socket.
+     * @param fen    The position; move counters are ignored when matching identical requests.
+     * @param depth  Depth to search to, or 0 to search by time only.
+     * @param millis Time to search for, or 0 to search by depth only. Capped at {@link #MAX_MILLIS}.
+     * @param sink   Receives the {@code INFO} and {@code ANALYSIS_DONE} lines, from a worker thread.
+     * @throws IllegalArgumentException if the FEN is not a playable position.
+     */
+    public void submit(Object owner, String fen, int depth, long millis, Consumer<String> sink) {
+        String positionKey = positionKey(fen);
+        Board board = parsePosition(fen);
+        int maxDepth = depth > 0 ? Math.min(depth, Search.MAX_DEPTH) : Search.MAX_DEPTH;
+        long limitMillis = millis > 0 ? Math.min(millis, MAX_MILLIS) : MAX_MILLIS;
+        Subscriber subscriber = new Subscriber(owner, sink, maxDepth, limitMillis);
+
+        String replay = null;
+        String done = null;
+        synchronized (this) {
+            if (shutdown) {
+                throw new IllegalStateException("Analysis service is shut down");
+            }
+            Job job = jobsByPosition.get(positionKey);
+            if (job == null) {
+                long round = Math.max(currentRound, lastRoundByOwner.getOrDefault(owner, 0L)) + 1;
+                lastRoundByOwner.put(owner, round);
+                job = new Job(positionKey, board, round, sequence++);
+                jobsByPosition.put(positionKey, job);
+                queue.add(job);
+                notifyAll();
+            } else if (job.search != null) {
+                replay = job.lastInfo;
+                if (job.lastResult != null && job.lastResult.depth() >= maxDepth) {
+                    done = "ANALYSIS_DONE " + Moves.toUci(job.lastResult.bestMove());
+                } else {
+                    startClock(job, subscriber, System.nanoTime());
+                    extendTimeLimit(job, subscriber);
+                }
+            }
+            if (done == null) {
+                job.subscribers.add(subscriber);
+            }
+        }
+        if (replay != null) {
+            sink.accept(replay);
+        }
+        if (done != null) {
+            sink.accept(done);
+        }
+    }
+
+    /**
+     * Drops all of an owner's requests, e.g. when the player disconnects or moves on. Searches
+     * nobody else is waiting for are removed from the queue or stopped.
+     */
+    public synchronized void cancel(Object owner) {
+        lastRoundByOwner.remove(owner);
+        Iterator<Job> jobs = jobsByPosition.values().iterator();
+        while (jobs.hasNext()) {
+            Job job = jobs.next();
+            job.subscribers.removeIf(subscriber -> {
+                if (subscriber.owner != owner) return false;
+                subscriber.stopClock();
+                return true;
+            });
+            if (job.subscribers.isEmpty()) {
+                jobs.remove();
+                if (job.search != null) {
+                    job.search.stop();
+                } else {
+                    queue.remove(job);
+                }
+            }
+        }
+    }
+
+    /** Stops all workers; queued and running analyses end without a result. */
+    public synchronized void shutdown() {
+        shutdown = true;
+        for (Job job : jobsByPosition.values()) {
+            if (job.search != null) job.search.stop();
+        }
+        jobsByPosition.clear();
+        queue.clear();
+        timer.shutdownNow();
+        notifyAll();
+    }
+
+    private void workerLoop() {
+        Search search = new Search(table, new ClassicalEvaluator());
+        while (true) {
+            Job job;
+            TimeManager timeManager = new TimeManager();
+            synchronized (this) {
+                while (queue.isEmpty() && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (shutdown) {
+                    return;
+                }
+                job = queue.poll();
+                currentRound = job.round;
+                job.search = search;
+                long now = System.nanoTime();
+                long limitMillis = 0;
+                for (Subscriber subscriber : job.subscribers) {
+                    startClock(job, subscriber, now);
+                    limitMillis = Math.max(limitMillis, subscriber.limitMillis);
+                }
+                timeManager.startFixed(limitMillis);
+                job.timeManager = timeManager;
+            }
+
+            search.setListener(result -> onIteration(job, result));
+            SearchResult result = search.search(new Board(job.board), Search.MAX_DEPTH, timeManager);
+
+            List<Subscriber> finished;
+            synchronized (this) {
+                jobsByPosition.remove(job.positionKey, job);
+                finished = new ArrayList<>(job.subscribers);
+                finished.forEach(Subscriber::stopClock);
+                job.subscribers.clear();
+            }
+            String done = "ANALYSIS_DONE " + Moves.toUci(result.bestMove());
+            for (Subscriber subscriber : finished) {
+                subscriber.sink.accept(done);
+            }
+        }
+    }
+
+    private void onIteration(Job job, SearchResult result) {
+        String info = "INFO " + result.toInfoString();
+        String done = "ANALYSIS_DONE " + Moves.toUci(result.bestMove());
+        List<Subscriber> informed = new ArrayList<>();
+        List<Subscriber> finished = new ArrayList<>();
+        synchronized (this) {
+            job.lastInfo = info;
+            job.lastResult = result;
+            long now = System.nanoTime();
+            Iterator<Subscriber> subscribers = job.subscribers.iterator();
+            while (subscribers.hasNext()) {
+                Subscriber subscriber = subscribers.next();
+                informed.add(subscriber);
+                if (result.depth() >= subscriber.maxDepth || now >= subscriber.deadlineNanos) {
+                    subscriber.stopClock();
+                    finished.add(subscriber);
+                    subscribers.remove();
+                }
+            }
+            if (job.subscribers.isEmpty()) {
+                jobsByPosition.remove(job.positionKey, job);
+                job.search.stop();
+            }
+        }
+        // Sockets may block, so nothing is written while holding the lock.
+        for (Subscriber subscriber : informed) {
+            subscriber.sink.accept(info);
+        }
+        for (Subscriber subscriber : finished) {
+            subscriber.sink.accept(done);
+        }
+    }
+
+    /** Starts a subscriber's time limit and schedules its answer for when the limit runs out. */
+    private void startClock(Job job, Subscriber subscriber, long nowNanos) {
+        subscriber.deadlineNanos = nowNanos + subscriber.limitMillis * 1_000_000;
+        subscriber.expiry = timer.schedule(() -> expire(job, subscriber), subscriber.limitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Answers a subscriber whose time ran out in the middle of an iteration with the best move of
+     * the last completed one, and stops the search if nobody else is waiting for it.
+     */
+    private void expire(Job job, Subscriber subscriber) {
+        String done;
+        synchronized (this) {
+            if (!job.subscribers.remove(subscriber)) {
+                return; // already answered or cancelled
+            }
+            done = "ANALYSIS_DONE " + Moves.toUci(job.lastResult != null ? job.lastResult.bestMove() : Moves.NONE);
+            if (job.subscribers.isEmpty()) {
+                jobsByPosition.remove(job.positionKey, job);
+                job.search.stop();
+            }
+        }
+        subscriber.sink.accept(done);
+    }
+
+    // A subscriber joining a running search may need more time than the search was started with.
+    private void extendTimeLimit(Job job, Subscriber subscriber) {
+        long remainingMillis = job.timeManager.getHardMillis() - job.timeManager.elapsedMillis();
+        if (subscriber.limitMillis > remainingMillis) {
+            TimeManager extended = new TimeManager();
+            extended.startFixed(subscriber.limitMillis);
+            job.timeManager = extended;
+            job.search.setTimeManager(extended);
+        }
+    }
+
+    /**
+     * Piece placement, side to move, castling and en passant: the FEN fields that define the
+     * position, joined by single spaces whatever whitespace separated them.
+     */
+    private static String positionKey(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        return String.join(" ", Arrays.copyOf(fields, Math.min(fields.length, 4)));
+    }
+
+    private static Board parsePosition(String fen) {
+        Board board = new Board();
+        try {
+            board.updateFromFen(fen);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        int whiteKings = 0;
+        int blackKings = 0;
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                Piece piece = board.getPiece(new Square(r, c));
+                if (piece instanceof King) {
+                    if (piece.getColor() == Colour.WHITE) whiteKings++;
+                    else blackKings++;
+                }
+            }
+        }
+        if (whiteKings != 1 || blackKings != 1) {
+            throw new IllegalArgumentException("Position must have one king per side: " + fen);
+        }
+        return board;
+    }
+
+    private static final class Job {
+        final String positionKey;
+        final Board board;
+        final long round;
+        final long sequence;
+        final List<Subscriber> subscribers = new ArrayList<>();
+        Search search; // set once a worker picks the job up
+        TimeManager timeManager;
+        String lastInfo;
+        SearchResult lastResult;
+
+        Job(String positionKey, Board board, long round, long sequence) {
+            this.positionKey = positionKey;
+            this.board = board;
+            this.round = round;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Subscriber {
+        final Object owner;
+        final Consumer<String> sink;
+        final int maxDepth;
+        final long limitMillis;
+        long deadlineNanos = Long.MAX_VALUE;
+        ScheduledFuture<?> expiry;
+
+        Subscriber(Object owner, Consumer<String> sink, int maxDepth, long limitMillis) {
+            this.owner = owner;
+            this.sink = sink;
+            this.maxDepth = maxDepth;
+            this.limitMillis = limitMillis;
+        }
+
+        /** Cancels the pending time-limit answer, if any. */
+        void stopClock() {
+            if (expiry != null) expiry.cancel(false);
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package main.server;
 
+import main.common.Colour;
+
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 
 public class ChessServer {
+    /** Transposition table size of each hosted engine; many engine games may run at once. */
+    private static final int ENGINE_HASH_MB = 16;
+
+    /**
+     * Starts the server. With {@code --engine}, every connecting player gets a game against a
+     * server-hosted engine instead of waiting for a second player; colours alternate.
+     */
     public static void main(String[] args) {
         int port = 6789; // Port to listen on
+        boolean engineOpponents = args.length > 0 && args[0].equals("--engine");
 
         DatabaseManager.initializeDatabase();
         System.out.println("Chess Server is starting on port " + port);
 
         try (ServerSocket serverSocket = new ServerSocket(port)) {
+            Colour nextPlayerColour = Colour.WHITE;
+            while (engineOpponents) {
+                Socket playerSocket = serverSocket.accept();
+                System.out.println("Player (" + nextPlayerColour + ") connected: " + playerSocket.getInetAddress()
+                        + ". Starting a game against the engine...");
+                EnginePlayer engine = new EnginePlayer(ENGINE_HASH_MB, true);
+                new Thread(new GameHandler(playerSocket, nextPlayerColour, engine)).start();
+                nextPlayerColour = nextPlayerColour == Colour.WHITE ? Colour.BLACK : Colour.WHITE;
+            }
             while (true) {
                 System.out.println("Waiting for two players to connect...");
                 
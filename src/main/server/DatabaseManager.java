@@ -1,15 +1,31 @@
 // main/server/DatabaseManager.java
 package main.server;
 
+import main.model.PGNParser.Parser;
+
+import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
 
 public class DatabaseManager {
 
     private static final String DATABASE_URL = "jdbc:sqlite:chess_games.db";
+    /** Games inserted per transaction by {@link #importGames}. */
+    private static final int IMPORT_BATCH = 500;
+
+    /**
+     * Opens a new connection to the games database. Callers are responsible for closing it.
+     */
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(DATABASE_URL);
+    }
 
     /**
      * Initializes the database. If the games table does not exist, it creates it.
@@ -23,13 +39,21 @@ public class DatabaseManager {
                 + " black_player text NOT NULL,"
                 + " result text NOT NULL,"
                 + " pgn_data text NOT NULL,"
-                + " game_date text NOT NULL"
+                + " game_date text NOT NULL,"
+                + " fingerprint text"
                 + ");";
 
         try (Connection conn = DriverManager.getConnection(DATABASE_URL);
              Statement stmt = conn.createStatement()) {
             // Create a new table
             stmt.execute(sql);
+            if (!hasColumn(stmt, "games", "fingerprint")) {
+                // Databases created before duplicate detection; GameDeduplicator backfills old rows.
+                stmt.execute("ALTER TABLE games ADD COLUMN fingerprint text");
+            }
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS games_fingerprint ON games(fingerprint)");
+            PositionIndex.createTable(stmt);
+            OpeningExplorer.createTable(stmt);
             System.out.println("Database initialized. Table 'games' is ready.");
         } catch (SQLException e) {
             System.err.println("Database initialization error: " + e.getMessage());
@@ -37,31 +61,157 @@ public class DatabaseManager {
     }
 
     /**
-     * Inserts a completed game record into the database.
+     * Inserts a completed game record into the database and adds it to the {@link PositionIndex}
+     * and the {@link OpeningExplorer} statistics, in one transaction. A game whose
+     * {@link GameFingerprint} is already stored, e.g. one saved again after a reconnect, is skipped.
      *
      * @param whitePlayer The name of the white player.
      * @param blackPlayer The name of the black player.
      * @param result      The game result ("1-0", "0-1", "1/2-1/2", "*").
      * @param pgn         The full PGN text of the game.
      * @param date        The date the game was played (e.g., "YYYY.MM.DD").
+     * @return true if the game was stored; false if it was a duplicate or could not be saved.
      */
-    public static void saveGame(String whitePlayer, String blackPlayer, String result, String pgn, String date) {
-        String sql = "INSERT INTO games(white_player, black_player, result, pgn_data, game_date) VALUES(?,?,?,?,?)";
+    public static boolean saveGame(String whitePlayer, String blackPlayer, String result, String pgn, String date) {
+        try (Connection conn = DriverManager.getConnection(DATABASE_URL)) {
+            conn.setAutoCommit(false);
+            long[] explorerPositions;
+            try {
+                List<Parser.PGNGame> games = PositionIndex.parse(pgn);
+                List<String> moves = games.isEmpty() ? List.of() : games.get(0).getMoves();
+                explorerPositions = insertGame(conn, whitePlayer, blackPlayer, result, pgn, date, games,
+                        GameFingerprint.of(whitePlayer, blackPlayer, date, result, moves));
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
 
-        try (Connection conn = DriverManager.getConnection(DATABASE_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (explorerPositions == null) {
+                System.out.println("Skipped duplicate game between " + whitePlayer + " and " + blackPlayer + ".");
+                return false;
+            }
+            OpeningExplorer.shared().invalidate(explorerPositions);
+            System.out.println("Successfully saved game between " + whitePlayer + " and " + blackPlayer + " to the database.");
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error saving game to database: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Imports every game of a PGN file, skipping games that are already stored, including repeats
+     * within the file. Games are committed in batches and indexed like saved games.
+     *
+     * @return The number of games imported.
+     */
+    public static int importGames(File pgnFile) throws IOException, SQLException {
+        int[] counts = new int[2]; // imported, duplicates
+        try (Connection conn = DriverManager.getConnection(DATABASE_URL)) {
+            conn.setAutoCommit(false);
+            try {
+                Parser.forEachGameWithText(pgnFile, (game, pgn) -> {
+                    Map<String, String> headers = game.getHeaders();
+                    String result = game.getResult() != null ? game.getResult() : headers.getOrDefault("Result", "*");
+                    String white = headers.getOrDefault("White", "?");
+                    String black = headers.getOrDefault("Black", "?");
+                    String date = headers.getOrDefault("Date", "????.??.??");
+                    // Store the text as written, with its comments and variations; the game is
+                    // already parsed, so it is fingerprinted and indexed without parsing it again.
+                    try {
+                        long[] positions = insertGame(conn, white, black, result, pgn, date, List.of(game),
+                                GameFingerprint.of(white, black, date, result, game.getMoves()));
+                        counts[positions != null ? 0 : 1]++;
+                        if ((counts[0] + counts[1]) % IMPORT_BATCH == 0) {
+                            conn.commit();
+                        }
+                    } catch (SQLException e) {
+                        throw new ImportFailure(e);
+                    }
+                });
+                conn.commit();
+            } catch (ImportFailure e) {
+                conn.rollback();
+                throw e.getCause();
+            } finally {
+                OpeningExplorer.shared().invalidateAll();
+            }
+        }
+        System.out.println("Imported " + counts[0] + " games from " + pgnFile + ", skipped " + counts[1] + " duplicates.");
+        return counts[0];
+    }
+
+    /**
+     * Inserts one game unless its fingerprint is already stored, and indexes it. The caller owns
+     * the transaction.
+     *
+     * @param games       The parsed {@code pgn}.
+     * @param fingerprint The game's {@link GameFingerprint}.
+     * @return The explorer positions to invalidate once committed, or null for a duplicate.
+     */
+    private static long[] insertGame(Connection conn, String whitePlayer, String blackPlayer, String result, String pgn,
+                                     String date, List<Parser.PGNGame> games, String fingerprint) throws SQLException {
+        String sql = "INSERT INTO games(white_player, black_player, result, pgn_data, game_date, fingerprint) VALUES(?,?,?,?,?,?)"
+                + " ON CONFLICT(fingerprint) DO NOTHING";
 
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, whitePlayer);
             pstmt.setString(2, blackPlayer);
             pstmt.setString(3, result);
             pstmt.setString(4, pgn);
             pstmt.setString(5, date);
-            pstmt.executeUpdate();
+            pstmt.setString(6, fingerprint);
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
 
-            System.out.println("Successfully saved game between " + whitePlayer + " and " + blackPlayer + " to the database.");
+            long gameId;
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No ID returned for the new game");
+                gameId = keys.getLong(1);
+            }
+            PositionIndex.addGame(conn, gameId, games);
+            return OpeningExplorer.addGame(conn, games, result);
+        }
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Error saving game to database: " + e.getMessage());
+    /** Carries a database error out of the parser callback. */
+    private static final class ImportFailure extends RuntimeException {
+        ImportFailure(SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    private static boolean hasColumn(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Imports a PGN file into the games database.
+     * Usage: java main.server.DatabaseManager import &lt;file.pgn&gt;
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 || !args[0].equals("import")) {
+            System.err.println("Usage: java main.server.DatabaseManager import <file.pgn>");
+            return;
+        }
+        initializeDatabase();
+        try {
+            importGames(new File(args[1]));
+        } catch (IOException | SQLException e) {
+            System.err.println("Error importing games: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package main.server;
+
+import main.engine.ClassicalEvaluator;
+import main.engine.Moves;
+import main.engine.Ponderer;
+import main.engine.Search;
+import main.engine.SearchResult;
+import main.engine.TimeManager;
+import main.engine.TranspositionTable;
+import main.model.Board.Board;
+import main.model.Clock;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A server-hosted engine occupying one seat of a game.
+ * <p>
+ * The game thread calls {@link #chooseMove} on the engine's turn and {@link #startPondering}
+ * right after the engine's move is played, before it blocks waiting for the opponent. Searches
+ * for real moves run on a fixed pool shared by every engine on the server and sized to the
+ * number of cores, so many concurrent engine games queue for CPU instead of oversubscribing the
+ * host. Pondering runs on a separate, smaller pool of low-priority threads: it only uses spare
+ * capacity, a real search never waits behind it, and a ponder task that finds no free thread
+ * before the opponent moves is dropped.
+ */
+public class EnginePlayer {
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService SEARCH_POOL = newPool(CORES, "engine-search", Thread.NORM_PRIORITY);
+    private static final ExecutorService PONDER_POOL = newPool(Math.max(1, CORES / 2), "engine-ponder", Thread.MIN_PRIORITY);
+
+    private final Search search;
+    private final Ponderer ponderer;
+    private final boolean ponderEnabled;
+    private int lastPonderMove = Moves.NONE;
+
+    public EnginePlayer(int hashMb, boolean ponderEnabled) {
+        this.search = new Search(new TranspositionTable(hashMb), new ClassicalEvaluator());
+        this.ponderer = new Ponderer(search, PONDER_POOL);
+        this.ponderEnabled = ponderEnabled;
+    }
+
+    /**
+     * Picks the engine's move.
+     *
+     * @param board            The current position, with the engine to move.
+     * @param clock            The engine's clock.
+     * @param lastOpponentMove The opponent's previous move, or {@link Moves#NONE} at the start of the game.
+     * @return The chosen move packed as in {@link Moves}, or {@link Moves#NONE} if there are no legal moves.
+     */
+    public int chooseMove(Board board, Clock clock, int lastOpponentMove) throws InterruptedException {
+        int[] moves = new int[256];
+        int legalMoves = Moves.generate(board, moves);
+        if (legalMoves == 0) {
+            ponderer.cancel();
+            return Moves.NONE;
+        }
+        TimeManager timeManager = new TimeManager();
+        timeManager.start(clock, 0, legalMoves);
+
+        SearchResult result = ponderer.resolve(lastOpponentMove, timeManager);
+        if (result == null || result.bestMove() == Moves.NONE) {
+            Board root = new Board(board);
+            Future<SearchResult> task = SEARCH_POOL.submit(() -> search.search(root, Search.MAX_DEPTH, timeManager));
+            try {
+                result = task.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Engine search failed", e.getCause());
+            }
+        }
+        lastPonderMove = result.ponderMove();
+        return result.bestMove() != Moves.NONE ? result.bestMove() : moves[0];
+    }
+
+    /**
+     * Starts thinking on the opponent's time.
+     *
+     * @param board The position after the engine's move, with the opponent to move.
+     */
+    public void startPondering(Board board) {
+        if (ponderEnabled) {
+            ponderer.start(board, lastPonderMove);
+        }
+    }
+
+    /**
+     * Sets the {@link main.engine.Zobrist} hashes of the game's earlier positions so the engine
+     * scores repetitions of them as draws.
+     */
+    public void setGameHistory(long[] hashes) {
+        search.setGameHistory(hashes);
+    }
+
+    /**
+     * Stops pondering; call when the game ends or the opponent disconnects.
+     */
+    public void close() {
+        ponderer.cancel();
+    }
+
+    private static ExecutorService newPool(int threads, String name, int priority) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,278 @@
+package main.server;
+
+import main.model.PGNParser.Parser;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Offline duplicate checks over the whole {@code games} table.
+ * <p>
+ * {@code backfill} stores a {@link GameFingerprint} for rows saved before fingerprints existed and
+ * reports the rows that repeat an earlier game; with {@code --delete} it removes them and rebuilds
+ * the position index and explorer statistics. {@code near} finds games with the same moves whose
+ * headers are spelled differently ("Carlsen, M." and "Magnus Carlsen", "2023.05.??" and
+ * "2023.05.14"), which fingerprints cannot catch. It parses the games on all cores and only
+ * reports; which spelling to keep is left to the user.
+ * Usage: {@code GameDeduplicator backfill [--delete] | GameDeduplicator near [threads]}
+ */
+public final class GameDeduplicator {
+
+    /** Shorter games are skipped by {@code near}: equal short lines are common and mean little. */
+    static final int MIN_PLIES = 20;
+
+    private GameDeduplicator() {}
+
+    // --- Exact duplicates ---
+
+    /**
+     * Fingerprints every row that has none yet.
+     *
+     * @param delete Whether to delete rows that repeat an already fingerprinted game.
+     * @return The IDs of those duplicate rows.
+     */
+    public static List<Long> backfill(boolean delete) throws SQLException {
+        List<Long> duplicates = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect()) {
+            conn.setAutoCommit(false);
+            try (Statement select = conn.createStatement();
+                 PreparedStatement update = conn.prepareStatement(
+                         "UPDATE OR IGNORE games SET fingerprint = ? WHERE id = ?")) {
+                select.setFetchSize(1000);
+                try (ResultSet rs = select.executeQuery("SELECT id, white_player, black_player, game_date, result, pgn_data"
+                        + " FROM games WHERE fingerprint IS NULL ORDER BY id")) {
+                    while (rs.next()) {
+                        List<Parser.PGNGame> games = PositionIndex.parse(rs.getString(6));
+                        List<String> moves = games.isEmpty() ? List.of() : games.get(0).getMoves();
+                        update.setString(1, GameFingerprint.of(rs.getString(2), rs.getString(3), rs.getString(4),
+                                rs.getString(5), moves));
+                        update.setLong(2, rs.getLong(1));
+                        // A fingerprint already taken belongs to an earlier row, or to a game saved
+                        // since the upgrade; either way this row repeats a stored game.
+                        if (update.executeUpdate() == 0) duplicates.add(rs.getLong(1));
+                    }
+                }
+            }
+            if (delete && !duplicates.isEmpty()) {
+                try (PreparedStatement remove = conn.prepareStatement("DELETE FROM games WHERE id = ?")) {
+                    for (long id : duplicates) {
+                        remove.setLong(1, id);
+                        remove.addBatch();
+                    }
+                    remove.executeBatch();
+                }
+            }
+            conn.commit();
+        }
+        if (delete && !duplicates.isEmpty()) {
+            // The deleted games were indexed and counted like any other.
+            PositionIndex.rebuild();
+            OpeningExplorer.rebuild();
+        }
+        return duplicates;
+    }
+
+    // --- Near duplicates ---
+
+    /**
+     * Groups games that have the same main line of at least {@value #MIN_PLIES} plies and players,
+     * result and date that can be the same under different spellings.
+     *
+     * @return Each group's game IDs in ascending order; the first is the earliest stored copy.
+     */
+    public static List<long[]> findNearDuplicates(int threads) throws SQLException, InterruptedException {
+        Lines lines = new Lines();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (Connection conn = DatabaseManager.connect()) {
+            // Rows are read on this thread and parsed on the pool, with a bounded window in flight.
+            ArrayDeque<Future<Long>> inFlight = new ArrayDeque<>();
+            ArrayDeque<Long> inFlightIds = new ArrayDeque<>();
+            int window = threads * 64;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(1000);
+                try (ResultSet rs = stmt.executeQuery("SELECT id, pgn_data FROM games ORDER BY id")) {
+                    while (rs.next()) {
+                        String pgn = rs.getString(2);
+                        inFlightIds.add(rs.getLong(1));
+                        inFlight.add(pool.submit(() -> movesHash(pgn)));
+                        if (inFlight.size() >= window) {
+                            lines.add(inFlightIds.poll(), collect(inFlight.poll()));
+                        }
+                    }
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                lines.add(inFlightIds.poll(), collect(inFlight.poll()));
+            }
+            long[] ids = lines.ids;
+            long[] hashes = lines.hashes;
+            int count = lines.count;
+
+            // Only lines shared by several games need their headers compared.
+            long[] sorted = Arrays.copyOf(hashes, count);
+            Arrays.parallelSort(sorted);
+            Set<Long> shared = new HashSet<>();
+            for (int i = 1; i < count; i++) {
+                if (sorted[i] == sorted[i - 1]) shared.add(sorted[i]);
+            }
+            Map<Long, List<Long>> candidates = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                if (shared.contains(hashes[i])) candidates.computeIfAbsent(hashes[i], h -> new ArrayList<>()).add(ids[i]);
+            }
+
+            List<long[]> groups = new ArrayList<>();
+            try (PreparedStatement headers = conn.prepareStatement(
+                    "SELECT white_player, black_player, game_date, result FROM games WHERE id = ?")) {
+                for (List<Long> candidate : candidates.values()) {
+                    groupByHeaders(headers, candidate, groups);
+                }
+            }
+            groups.sort((a, b) -> Long.compare(a[0], b[0]));
+            return groups;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Game IDs and the hashes of their main lines, in ID order. */
+    private static final class Lines {
+        long[] ids = new long[1024];
+        long[] hashes = new long[1024];
+        int count;
+
+        void add(long id, Long hash) {
+            if (hash == null) return;
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                hashes = Arrays.copyOf(hashes, count * 2);
+            }
+            ids[count] = id;
+            hashes[count++] = hash;
+        }
+    }
+
+    /** The hash of a stored game's main line, or null if it is too short to compare. */
+    private static Long movesHash(String pgn) {
+        List<Parser.PGNGame> games = PositionIndex.parse(pgn);
+        if (games.isEmpty() || games.get(0).getMoves().size() < MIN_PLIES) return null;
+        return GameFingerprint.movesHash(games.get(0).getMoves());
+    }
+
+    private static Long collect(Future<Long> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parsing a stored game failed unexpectedly", e.getCause());
+        }
+    }
+
+    /** Splits games with the same moves into groups whose headers match, keeping groups of two or more. */
+    private static void groupByHeaders(PreparedStatement headers, List<Long> ids, List<long[]> groups) throws SQLException {
+        List<String[]> rows = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            headers.setLong(1, id);
+            try (ResultSet rs = headers.executeQuery()) {
+                rows.add(rs.next() ? new String[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4)} : null);
+            }
+        }
+        boolean[] grouped = new boolean[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            if (grouped[i] || rows.get(i) == null) continue;
+            List<Long> group = new ArrayList<>();
+            group.add(ids.get(i));
+            for (int j = i + 1; j < ids.size(); j++) {
+                if (!grouped[j] && rows.get(j) != null && sameHeaders(rows.get(i), rows.get(j))) {
+                    grouped[j] = true;
+                    group.add(ids.get(j));
+                }
+            }
+            if (group.size() > 1) groups.add(group.stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+    }
+
+    /** Compares white, black, date and result. */
+    static boolean sameHeaders(String[] a, String[] b) {
+        return sameName(a[0], b[0]) && sameName(a[1], b[1]) && sameDate(a[2], b[2]) && a[3].equals(b[3]);
+    }
+
+    /**
+     * Whether two spellings can name the same player: case, punctuation and word order are
+     * ignored, and a word may be abbreviated to its initial, so "Carlsen, M." matches
+     * "Magnus Carlsen". At least one full word must be shared.
+     */
+    static boolean sameName(String a, String b) {
+        Set<String> wordsA = new HashSet<>(), wordsB = new HashSet<>();
+        Set<Character> initialsA = new HashSet<>(), initialsB = new HashSet<>();
+        split(a, wordsA, initialsA);
+        split(b, wordsB, initialsB);
+        boolean shared = false;
+        for (String word : wordsA) {
+            if (wordsB.contains(word)) shared = true;
+            else if (!initialsB.contains(word.charAt(0))) return false;
+        }
+        for (String word : wordsB) {
+            if (!wordsA.contains(word) && !initialsA.contains(word.charAt(0))) return false;
+        }
+        return shared;
+    }
+
+    private static void split(String name, Set<String> words, Set<Character> initials) {
+        for (String word : name.toLowerCase(Locale.ROOT).split("[^\\p{L}]+")) {
+            if (word.length() > 1) words.add(word);
+            else if (word.length() == 1) initials.add(word.charAt(0));
+        }
+    }
+
+    /** Dates match where both are known: "2023.05.??" matches "2023.05.14". */
+    static boolean sameDate(String a, String b) {
+        if (a.length() != b.length()) return a.startsWith("?") || b.startsWith("?");
+        for (int i = 0; i < a.length(); i++) {
+            char x = a.charAt(i), y = b.charAt(i);
+            if (x != y && x != '?' && y != '?') return false;
+        }
+        return true;
+    }
+
+    public static void main(String[] args) {
+        try {
+            if (args.length >= 1 && args[0].equals("backfill") && (args.length == 1 || args[1].equals("--delete"))) {
+                boolean delete = args.length == 2;
+                List<Long> duplicates = backfill(delete);
+                System.out.println(duplicates.size() + " duplicate games" + (delete ? " deleted" : "") + ": " + duplicates);
+            } else if (args.length >= 1 && args[0].equals("near")) {
+                int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+                long start = System.nanoTime();
+                List<long[]> groups = findNearDuplicates(threads);
+                for (long[] group : groups) {
+                    System.out.println("Game " + group[0] + " is also stored as " + Arrays.toString(Arrays.copyOfRange(group, 1, group.length)));
+                }
+                System.out.println(groups.size() + " groups of near-duplicate games found in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms.");
+            } else {
+                System.err.println("Usage: GameDeduplicator backfill [--delete] | GameDeduplicator near [threads]");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error checking for duplicate games: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package main.server;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes stored games back out as one PGN file.
+ * <p>
+ * Rows are read in ID order through a forward-only, read-only cursor {@value #FETCH_SIZE} at a
+ * time, and each game's stored PGN text is copied as is into a {@value #BUFFER_CHARS}-character
+ * buffer, so memory use does not grow with the archive and nothing is parsed or regenerated.
+ * Usage: {@code GameExporter [--player name] [--from date] [--to date] [--result result] [out.pgn]}
+ * writes to standard output when no file is given.
+ */
+public final class GameExporter {
+
+    static final int FETCH_SIZE = 1000;
+    static final int BUFFER_CHARS = 1 << 20;
+
+    /**
+     * Which games to export; a null field matches every game.
+     *
+     * @param player   A player name, matched exactly against White and Black.
+     * @param fromDate The first game date to include, as "YYYY.MM.DD".
+     * @param toDate   The last game date to include, as "YYYY.MM.DD". Dates are compared as text,
+     *                 so a partly unknown date such as "2023.??.??" sorts after every known date of
+     *                 that year.
+     * @param result   "1-0", "0-1", "1/2-1/2" or "*".
+     */
+    public record Filter(String player, String fromDate, String toDate, String result) {}
+
+    private GameExporter() {}
+
+    /**
+     * Writes every game matching the filter to {@code out}, separated by blank lines. The writer is
+     * flushed, not closed.
+     *
+     * @return The number of games written.
+     */
+    public static long export(Filter filter, Writer out) throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder("SELECT pgn_data FROM games");
+        List<String> parameters = new ArrayList<>();
+        String clause = " WHERE ";
+        if (filter.player() != null) {
+            sql.append(clause).append("(white_player = ? OR black_player = ?)");
+            parameters.add(filter.player());
+            parameters.add(filter.player());
+            clause = " AND ";
+        }
+        if (filter.fromDate() != null) {
+            sql.append(clause).append("game_date >= ?");
+            parameters.add(filter.fromDate());
+            clause = " AND ";
+        }
+        if (filter.toDate() != null) {
+            sql.append(clause).append("game_date <= ?");
+            parameters.add(filter.toDate());
+            clause = " AND ";
+        }
+        if (filter.result() != null) {
+            sql.append(clause).append("result = ?");
+            parameters.add(filter.result());
+        }
+        sql.append(" ORDER BY id");
+
+        String separator = System.lineSeparator() + System.lineSeparator();
+        long games = 0;
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < parameters.size(); i++) {
+                pstmt.setString(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String pgn = rs.getString(1);
+                    int end = pgn.length();
+                    while (end > 0 && Character.isWhitespace(pgn.charAt(end - 1))) end--;
+                    out.write(pgn, 0, end);
+                    out.write(separator);
+                    games++;
+                }
+            }
+        }
+        out.flush();
+        return games;
+    }
+
+    /** A UTF-8 writer to the file, or to standard output if {@code file} is null. */
+    static Writer open(Path file) throws IOException {
+        // Bypasses System.out's PrintStream, which locks and flushes per call.
+        OutputStream stream = file == null
+                ? new FileOutputStream(FileDescriptor.out)
+                : Channels.newOutputStream(FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_CHARS);
+    }
+
+    public static void main(String[] args) {
+        String player = null, fromDate = null, toDate = null, result = null;
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            boolean option = args[i].startsWith("--");
+            if ((option && i + 1 == args.length) || (!option && file != null)) {
+                System.err.println("Usage: GameExporter [--player name] [--from YYYY.MM.DD] [--to YYYY.MM.DD]"
+                        + " [--result 1-0|0-1|1/2-1/2|*] [out.pgn]");
+                return;
+            }
+            switch (args[i]) {
+                case "--player" -> player = args[++i];
+                case "--from" -> fromDate = args[++i];
+                case "--to" -> toDate = args[++i];
+                case "--result" -> result = args[++i];
+                default -> {
+                    if (option) {
+                        System.err.println("Error: unknown option " + args[i]);
+                        return;
+                    }
+                    file = Path.of(args[i]);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        try (Writer out = open(file)) {
+            long games = export(new Filter(player, fromDate, toDate, result), out);
+            // Standard output may be the PGN itself, so report on standard error.
+            System.err.println("Exported " + games + " games in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (SQLException e) {
+            System.err.println("Error reading games from database: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error writing PGN: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package main.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Content fingerprints that identify a stored game, so the same game is not saved twice.
+ * <p>
+ * A fingerprint covers the player names, the date, the result and the main line. Move text is
+ * compared without check, mate and annotation marks, so "Qxf7#" and "Qxf7" match. Header spellings
+ * must match exactly; games that differ only there are found by {@link GameDeduplicator}.
+ */
+public final class GameFingerprint {
+
+    private GameFingerprint() {}
+
+    /** A 32-character hex digest, stored in the unique {@code games.fingerprint} column. */
+    public static String of(String white, String black, String date, String result, List<String> sanMoves) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // required of every JVM
+        }
+        StringBuilder text = new StringBuilder(64 + sanMoves.size() * 6);
+        text.append(white.trim()).append('\n').append(black.trim()).append('\n')
+                .append(date.trim()).append('\n').append(result.trim()).append('\n');
+        for (String move : sanMoves) {
+            appendMove(text, move).append(' ');
+        }
+        byte[] hash = digest.digest(text.toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash, 0, 16);
+    }
+
+    /**
+     * A 64-bit hash of the main line alone (FNV-1a over the normalized moves), used to group games
+     * that may be the same under different headers.
+     */
+    public static long movesHash(List<String> sanMoves) {
+        long hash = 0xcbf29ce484222325L;
+        for (String move : sanMoves) {
+            int end = normalizedEnd(move);
+            for (int i = 0; i < end; i++) {
+                hash = (hash ^ move.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ ' ') * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static StringBuilder appendMove(StringBuilder text, String move) {
+        return text.append(move, 0, normalizedEnd(move));
+    }
+
+    /** The length of a SAN move without trailing '+', '#', '!' and '?'. */
+    private static int normalizedEnd(String move) {
+        int end = move.length();
+        while (end > 0) {
+            char c = move.charAt(end - 1);
+            if (c != '+' && c != '#' && c != '!' && c != '?') break;
+            end--;
+        }
+        return end;
+    }
+}
@@ -3,17 +3,25 @@ package main.server;
 import main.common.FenUtility;
 import main.common.Square;
 import main.model.Board.Board;
+import main.model.pieces.Pawn;
 import main.common.Colour;
+import main.engine.Moves;
+import main.engine.Zobrist;
 import main.model.Clock;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.net.Socket;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -21,10 +29,19 @@ import java.util.TimerTask;
 import main.PGNGenerator;
 
 /**
- * Manages the logic for a single chess game between two connected players.
+ * Manages the logic for a single chess game between two connected players, or between a
+ * connected player and a server-hosted {@link EnginePlayer}.
+ * <p>
+ * Once the game starts, each connected player's socket has its own reader thread. It answers
+ * {@code ANALYZE} and {@code EXPLORE} as soon as they arrive, whoever is to move, and queues
+ * everything else for the game loop, which takes moves from the player to move.
  */
 public class GameHandler implements Runnable {
 
+    private static final String ENGINE_NAME = "Engine";
+    /** Queued when a player's input ends; readLine never returns a line break, so no message equals it. */
+    private static final String DISCONNECTED = "\n";
+
     private final Socket whitePlayerSocket;
     private final Socket blackPlayerSocket;
     private final Board board;
@@ -42,24 +59,48 @@ public class GameHandler implements Runnable {
 
     private PrintWriter whiteOut, blackOut;
     private BufferedReader whiteIn, blackIn;
+    private final BlockingQueue<String> whiteCommands = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> blackCommands = new LinkedBlockingQueue<>();
+
+    private final EnginePlayer engine;
+    private final Colour engineColour;
+    private final List<Long> positionHashes = new ArrayList<>();
+    private int lastMove = Moves.NONE;
 
 
     public GameHandler(Socket whitePlayerSocket, Socket blackPlayerSocket) {
         this.whitePlayerSocket = whitePlayerSocket;
         this.blackPlayerSocket = blackPlayerSocket;
         this.board = new Board();
+        this.engine = null;
+        this.engineColour = null;
+    }
+
+    /**
+     * Creates a game between a connected player and a server-hosted engine.
+     *
+     * @param playerColour The colour the connected player plays; the engine takes the other.
+     */
+    public GameHandler(Socket playerSocket, Colour playerColour, EnginePlayer engine) {
+        this.whitePlayerSocket = playerColour == Colour.WHITE ? playerSocket : null;
+        this.blackPlayerSocket = playerColour == Colour.BLACK ? playerSocket : null;
+        this.board = new Board();
+        this.engine = engine;
+        this.engineColour = playerColour == Colour.WHITE ? Colour.BLACK : Colour.WHITE;
     }
 
     @Override
     public void run() {
         try {
             setupLobby();
+            startReaders();
             startGameSequence();
             mainGameLoop();
         } catch (IOException | InterruptedException e) {
             System.out.println("Game handler error: " + e.getMessage());
             endGame("Game terminated unexpectedly.", "*");
         } finally {
+            if (engine != null) engine.close();
             closeConnections();
         }
     }
@@ -68,6 +109,25 @@ public class GameHandler implements Runnable {
      * Sets up IO streams and handles the pre-game lobby phase for both players.
      */
     private void setupLobby() throws IOException, InterruptedException {
+        if (engineColour == Colour.WHITE) {
+            // The engine's seat takes no input, and messages to it are discarded.
+            whiteOut = new PrintWriter(Writer.nullWriter());
+            blackOut = new PrintWriter(blackPlayerSocket.getOutputStream(), true);
+            blackIn = new BufferedReader(new InputStreamReader(blackPlayerSocket.getInputStream()));
+            whitePlayerName = ENGINE_NAME;
+            handleLobbyPhase(blackIn, false);
+            whiteTimePreference = blackTimePreference;
+            return;
+        }
+        if (engineColour == Colour.BLACK) {
+            whiteOut = new PrintWriter(whitePlayerSocket.getOutputStream(), true);
+            whiteIn = new BufferedReader(new InputStreamReader(whitePlayerSocket.getInputStream()));
+            blackOut = new PrintWriter(Writer.nullWriter());
+            blackPlayerName = ENGINE_NAME;
+            handleLobbyPhase(whiteIn, true);
+            blackTimePreference = whiteTimePreference;
+            return;
+        }
         whiteOut = new PrintWriter(whitePlayerSocket.getOutputStream(), true);
         whiteIn = new BufferedReader(new InputStreamReader(whitePlayerSocket.getInputStream()));
         blackOut = new PrintWriter(blackPlayerSocket.getOutputStream(), true);
@@ -106,15 +166,17 @@ public class GameHandler implements Runnable {
     /**
      * Contains the main loop that alternates turns until the game is over.
      */
-    private void mainGameLoop() throws IOException {
+    private void mainGameLoop() throws IOException, InterruptedException {
         while (!isGameOver) {
             broadcastState();
 
             if (board.hasAnyLegalMoves(board.getTurn())) {
-                if (board.getTurn() == Colour.WHITE) {
-                    handlePlayerTurn(whiteOut, whiteIn, blackOut);
+                if (board.getTurn() == engineColour) {
+                    handleEngineTurn();
+                } else if (board.getTurn() == Colour.WHITE) {
+                    handlePlayerTurn(whiteOut, whiteCommands, blackOut);
                 } else {
-                    handlePlayerTurn(blackOut, blackIn, whiteOut);
+                    handlePlayerTurn(blackOut, blackCommands, whiteOut);
                 }
             } else {
                 // Handle checkmate or stalemate
@@ -176,7 +238,7 @@ public class GameHandler implements Runnable {
     }
 
 
-    private void handlePlayerTurn(PrintWriter activePlayerOut, BufferedReader activePlayerIn, PrintWriter opponentOut) throws IOException {
+    private void startClockOfSideToMove() {
         if (board.getTurn() == Colour.WHITE) {
             whiteClock.start();
             blackClock.stop();
@@ -184,11 +246,72 @@ public class GameHandler implements Runnable {
             blackClock.start();
             whiteClock.stop();
         }
+    }
+
+    /**
+     * Lets the engine pick and play its move, then has it ponder on the player's time.
+     */
+    private void handleEngineTurn() throws InterruptedException {
+        startClockOfSideToMove();
+        Clock engineClock = engineColour == Colour.WHITE ? whiteClock : blackClock;
+        (engineColour == Colour.WHITE ? blackOut : whiteOut).println("OPPONENT_TURN");
+
+        engine.setGameHistory(positionHashes.stream().mapToLong(Long::longValue).toArray());
+        int move = engine.chooseMove(new Board(board), engineClock, lastMove);
+        if (isGameOver || move == Moves.NONE) {
+            return; // flagged while thinking
+        }
+        positionHashes.add(Zobrist.hash(board));
+        String san = board.applyMove(Moves.start(move), Moves.end(move), Moves.promotion(move));
+        engineClock.addIncrement();
+        moveHistory.add(san);
+        lastMove = move;
+        broadcastMessage("VALID_MOVE " + san);
+        engine.startPondering(board);
+    }
+
+    /**
+     * Starts the reader thread of each connected player. The reader takes over the player's input
+     * after the lobby and ends when the socket closes.
+     */
+    private void startReaders() {
+        if (whiteIn != null) startReader(whiteIn, whiteOut, whiteCommands, "white");
+        if (blackIn != null) startReader(blackIn, blackOut, blackCommands, "black");
+    }
+
+    private void startReader(BufferedReader in, PrintWriter out, BlockingQueue<String> commands, String side) {
+        Thread reader = new Thread(() -> {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    if ("ANALYZE".equals(parts[0])) {
+                        requestAnalysis(out, parts);
+                    } else if ("EXPLORE".equals(parts[0])) {
+                        sendExplorerMoves(out, parts);
+                    } else {
+                        commands.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                // The socket was closed.
+            }
+            // Either player leaving ends the game, even while the other is to move.
+            whiteCommands.add(DISCONNECTED);
+            blackCommands.add(DISCONNECTED);
+        }, "game-" + side + "-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void handlePlayerTurn(PrintWriter activePlayerOut, BlockingQueue<String> activePlayerCommands, PrintWriter opponentOut)
+            throws IOException, InterruptedException {
+        startClockOfSideToMove();
         activePlayerOut.println("YOUR_TURN");
         opponentOut.println("OPPONENT_TURN");
         while (true) {
-            String clientMessage = activePlayerIn.readLine();
-            if (clientMessage == null) {
+            String clientMessage = activePlayerCommands.take();
+            if (clientMessage.equals(DISCONNECTED)) {
                 throw new IOException("Player disconnected.");
             }
             String[] parts = clientMessage.split(" ");
@@ -198,7 +321,16 @@ public class GameHandler implements Runnable {
                 Square end = Square.fromAlgebraic(parts[2]);
                 Optional<String> promo = parts.length > 3 ? Optional.of(parts[3]) : Optional.empty();
                 if (board.isLegalMove(start, end)) {
+                    // Encode the move as the engine does, so a pawn reaching the last rank without
+                    // a named piece matches the engine's expected queen promotion.
+                    boolean promotes = board.getPiece(start) instanceof Pawn && (end.rank() == 0 || end.rank() == 7);
+                    promo = promotes ? Optional.of(promo.orElse("Q")) : Optional.empty();
+                    // The player has moved on; analysis of earlier positions is no longer wanted.
+                    AnalysisService.shared().cancel(activePlayerOut);
+                    positionHashes.add(Zobrist.hash(board));
+                    lastMove = Moves.encode(start, end, promo);
                     String san = board.applyMove(start, end, promo);
+                    (board.getTurn() == Colour.WHITE ? blackClock : whiteClock).addIncrement();
                     moveHistory.add(san);
                     broadcastMessage("VALID_MOVE " + san);
                     break;
@@ -214,6 +346,52 @@ public class GameHandler implements Runnable {
         }
     }
 
+    /**
+     * Handles {@code EXPLORE <fen>} with an {@code EXPLORER_MOVES} line listing the archive's moves
+     * from the position, most played first, as {@code uci:games:white%/draw%/black%}.
+     */
+    private void sendExplorerMoves(PrintWriter out, String[] parts) {
+        if (parts.length < 2) {
+            out.println("EXPLORER_ERROR Usage: EXPLORE <fen>");
+            return;
+        }
+        String fen = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length));
+        try {
+            List<OpeningExplorer.MoveStats> moves = OpeningExplorer.shared().lookup(fen);
+            out.println("EXPLORER_MOVES " + moves.stream().map(Object::toString).collect(Collectors.joining(" ")));
+        } catch (SQLException e) {
+            System.err.println("Error reading opening explorer: " + e.getMessage());
+            out.println("EXPLORER_ERROR Explorer data is unavailable.");
+        } catch (IllegalArgumentException e) {
+            out.println("EXPLORER_ERROR " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles {@code ANALYZE <fen> <depth|ms>}, e.g. {@code ANALYZE <fen> 12} or {@code ANALYZE <fen> 500ms}.
+     * The search runs on the shared {@link AnalysisService}; results arrive as {@code INFO} lines.
+     */
+    private void requestAnalysis(PrintWriter out, String[] parts) {
+        if (parts.length < 3) {
+            out.println("ANALYSIS_ERROR Usage: ANALYZE <fen> <depth|ms>");
+            return;
+        }
+        String limit = parts[parts.length - 1];
+        String fen = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length - 1));
+        try {
+            boolean byTime = limit.endsWith("ms");
+            int value = Integer.parseInt(byTime ? limit.substring(0, limit.length() - 2) : limit);
+            if (value <= 0) {
+                throw new NumberFormatException(limit);
+            }
+            AnalysisService.shared().submit(out, fen, byTime ? 0 : value, byTime ? value : 0, out::println);
+        } catch (NumberFormatException e) {
+            out.println("ANALYSIS_ERROR Invalid depth or time: " + limit);
+        } catch (IllegalArgumentException e) {
+            out.println("ANALYSIS_ERROR " + e.getMessage());
+        }
+    }
+
     /**
      * Generates the PGN string using the PgnGenerator and sends it to the clients.
      */
@@ -279,6 +457,8 @@ public class GameHandler implements Runnable {
     }
 
     private void closeConnections() {
+        AnalysisService.shared().cancel(whiteOut);
+        AnalysisService.shared().cancel(blackOut);
         try {
             if (whitePlayerSocket != null) whitePlayerSocket.close();
             if (blackPlayerSocket != null) blackPlayerSocket.close();
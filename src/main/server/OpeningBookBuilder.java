@@ -0,0 +1,143 @@
+package main.server;
+
+import main.common.Colour;
+import main.engine.Moves;
+import main.engine.OpeningBook;
+import main.engine.Zobrist;
+import main.model.Game.GameReplayer;
+import main.model.PGNParser.Parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from the finished games stored in the {@code games} table.
+ * <p>
+ * Usage: {@code OpeningBookBuilder [output=book.bin] [maxPly=24] [minGames=2]}
+ */
+public class OpeningBookBuilder {
+
+    private final int maxPly;
+    private final int minGames;
+    private final GameReplayer replayer = new GameReplayer();
+    // position hash -> packed move -> {white wins, draws, black wins, score for the side that played it}
+    private final Map<Long, Map<Integer, int[]>> positions = new HashMap<>();
+
+    public OpeningBookBuilder(int maxPly, int minGames) {
+        this.maxPly = maxPly;
+        this.minGames = minGames;
+    }
+
+    public static void main(String[] args) {
+        Path output = Paths.get(args.length > 0 ? args[0] : "book.bin");
+        int maxPly = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int minGames = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly, minGames);
+        try {
+            int games = builder.addGamesFromDatabase();
+            int entries = builder.write(output);
+            System.out.println("Built opening book " + output + " from " + games + " games: " + entries + " entries.");
+        } catch (SQLException | IOException e) {
+            System.err.println("Error building opening book: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads every stored game and adds its opening moves.
+     *
+     * @return The number of games that were replayed.
+     */
+    public int addGamesFromDatabase() throws SQLException, IOException {
+        int games = 0;
+        try (Connection conn = DatabaseManager.connect();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT pgn_data, result FROM games")) {
+            Parser parser = new Parser();
+            while (rs.next()) {
+                parser.loadPGNFromString(rs.getString("pgn_data"));
+                for (Parser.PGNGame game : parser.getGames()) {
+                    String result = game.getResult() != null ? game.getResult() : rs.getString("result");
+                    addGame(game.getMoves(), result);
+                    games++;
+                }
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Adds the opening of one game. Games without a decisive or drawn result are ignored.
+     */
+    public void addGame(List<String> sanMoves, String result) {
+        int outcome = switch (result == null ? "*" : result) {
+            case "1-0" -> 0;
+            case "1/2-1/2" -> 1;
+            case "0-1" -> 2;
+            default -> -1;
+        };
+        if (outcome < 0) return;
+        replayer.replay(sanMoves, maxPly, (ply, board, start, end, promotion) -> {
+            int move = Moves.encode(start, end, promotion);
+            int[] counts = positions.computeIfAbsent(Zobrist.hash(board), k -> new HashMap<>())
+                    .computeIfAbsent(move, m -> new int[4]);
+            counts[outcome]++;
+            // Polyglot-style weight: two points per win and one per draw for the mover.
+            int moverWins = board.getTurn() == Colour.WHITE ? 0 : 2;
+            counts[3] += outcome == moverWins ? 2 : (outcome == 1 ? 1 : 0);
+            return true;
+        });
+    }
+
+    /**
+     * Writes the collected moves as a sorted book file, replacing any existing file.
+     *
+     * @return The number of entries written.
+     */
+    public int write(Path output) throws IOException {
+        List<long[]> entries = new ArrayList<>(); // {key, move, weight, white, draws, black}
+        for (Map.Entry<Long, Map<Integer, int[]>> position : positions.entrySet()) {
+            long key = position.getKey();
+            for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                int[] counts = move.getValue();
+                if (counts[0] + counts[1] + counts[2] < minGames) continue;
+                entries.add(new long[]{key, move.getKey(), Math.min(0xFFFF, counts[3]), counts[0], counts[1], counts[2]});
+            }
+        }
+        entries.sort(Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> -e[2]));
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(OpeningBook.HEADER_SIZE);
+            header.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(entries.size()).flip();
+            channel.write(header);
+
+            ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.ENTRY_SIZE * 4096);
+            for (long[] e : entries) {
+                if (buffer.remaining() < OpeningBook.ENTRY_SIZE) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putLong(e[0]).putShort((short) e[1]).putShort((short) e[2])
+                        .putInt((int) e[3]).putInt((int) e[4]).putInt((int) e[5]);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        return entries.size();
+    }
+}
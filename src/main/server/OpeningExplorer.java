@@ -0,0 +1,316 @@
+package main.server;
+
+import main.engine.Moves;
+import main.engine.Zobrist;
+import main.model.Board.Board;
+import main.model.Game.GameReplayer;
+import main.model.PGNParser.Parser;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Move statistics for any position of the archive: which moves were played from it, how often,
+ * and how those games ended.
+ * <p>
+ * Counts are aggregated per position hash and move in the {@code explorer_moves} table.
+ * {@link DatabaseManager#saveGame} adds each finished game to them in the same transaction as its
+ * insert, by incrementing rows in place, so the table never needs a periodic rebuild;
+ * {@link #rebuild} only exists to fill it from games saved before it existed. Lookups are served
+ * from an in-memory LRU set of recently used positions, which saving a game evicts from.
+ * Usage: {@code OpeningExplorer rebuild | OpeningExplorer query <fen>}
+ */
+public class OpeningExplorer {
+
+    /** Rows held in memory during a rebuild before they are written out. */
+    private static final int FLUSH_ROWS = 1_000_000;
+
+    private static final OpeningExplorer SHARED = new OpeningExplorer(4096);
+
+    /**
+     * How often a move was played from a position, and the results of those games.
+     *
+     * @param move Packed as by {@link Moves}.
+     */
+    public record MoveStats(int move, long whiteWins, long draws, long blackWins) {
+        public long games() {
+            return whiteWins + draws + blackWins;
+        }
+
+        public double whitePercent() {
+            return percent(whiteWins);
+        }
+
+        public double drawPercent() {
+            return percent(draws);
+        }
+
+        public double blackPercent() {
+            return percent(blackWins);
+        }
+
+        private double percent(long count) {
+            return games() == 0 ? 0 : 100.0 * count / games();
+        }
+
+        /** e.g. "e2e4:1520:38.2/31.0/30.8" - move, games, and white/draw/black percentages. */
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s:%d:%.1f/%.1f/%.1f", Moves.toUci(move), games(),
+                    whitePercent(), drawPercent(), blackPercent());
+        }
+    }
+
+    private final Map<Long, List<MoveStats>> cache;
+    private long generation; // bumped by every invalidation; guarded by cache
+
+    /**
+     * @param cachedPositions How many positions to keep in memory.
+     */
+    public OpeningExplorer(int cachedPositions) {
+        this.cache = new LinkedHashMap<>(cachedPositions * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<MoveStats>> eldest) {
+                return size() > cachedPositions;
+            }
+        };
+    }
+
+    /** The explorer shared by all games on this server. */
+    public static OpeningExplorer shared() {
+        return SHARED;
+    }
+
+    /** Creates the statistics table if it does not exist. */
+    static void createTable(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS explorer_moves ("
+                + " hash integer NOT NULL,"
+                + " move integer NOT NULL,"
+                + " white_wins integer NOT NULL,"
+                + " draws integer NOT NULL,"
+                + " black_wins integer NOT NULL,"
+                + " PRIMARY KEY (hash, move)"
+                + ") WITHOUT ROWID;");
+    }
+
+    /**
+     * The moves played from a position, most played first.
+     *
+     * @throws IllegalArgumentException if the FEN is invalid.
+     */
+    public List<MoveStats> lookup(String fen) throws SQLException {
+        Board board = new Board();
+        board.updateFromFen(fen);
+        return lookup(board);
+    }
+
+    public List<MoveStats> lookup(Board position) throws SQLException {
+        long hash = Zobrist.hash(position);
+        long readGeneration;
+        synchronized (cache) {
+            List<MoveStats> cached = cache.get(hash);
+            if (cached != null) return cached;
+            readGeneration = generation;
+        }
+        List<MoveStats> moves = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT move, white_wins, draws, black_wins FROM explorer_moves WHERE hash = ?"
+                             + " ORDER BY white_wins + draws + black_wins DESC")) {
+            pstmt.setLong(1, hash);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(new MoveStats(rs.getInt(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+                }
+            }
+        }
+        moves = Collections.unmodifiableList(moves);
+        synchronized (cache) {
+            // A game saved while reading may have changed the rows; keep only results known to be current.
+            if (generation == readGeneration) cache.put(hash, moves);
+        }
+        return moves;
+    }
+
+    /** Drops every cached position, e.g. after a bulk import. */
+    void invalidateAll() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    /** Drops positions whose statistics changed; call after the change is committed. */
+    void invalidate(long[] hashes) {
+        synchronized (cache) {
+            generation++;
+            for (long hash : hashes) {
+                cache.remove(hash);
+            }
+        }
+    }
+
+    // --- Updates ---
+
+    /**
+     * Adds a game's moves to the statistics. The caller owns the transaction and should
+     * {@link #invalidate} the returned positions once it commits. Unfinished games are ignored.
+     *
+     * @param result The result column, used when a game has no result of its own.
+     * @return The hashes of the positions whose statistics changed.
+     */
+    static long[] addGame(Connection conn, List<Parser.PGNGame> games, String result) throws SQLException {
+        Map<Long, Map<Integer, long[]>> counts = new HashMap<>();
+        forEachGame(games, result, new GameReplayer(), new Board(), counts);
+        write(conn, counts);
+        long[] hashes = new long[counts.size()];
+        int i = 0;
+        for (long hash : counts.keySet()) hashes[i++] = hash;
+        return hashes;
+    }
+
+    /**
+     * Deletes the statistics and counts every stored game again, e.g. to fill the table for
+     * games saved before it existed. Clears the shared cache.
+     *
+     * @return The number of games counted.
+     */
+    public static int rebuild() throws SQLException {
+        int games = 0;
+        try (Connection conn = DatabaseManager.connect()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                createTable(stmt);
+                stmt.execute("DELETE FROM explorer_moves");
+            }
+            Map<Long, Map<Integer, long[]>> counts = new HashMap<>();
+            GameReplayer replayer = new GameReplayer();
+            Board board = new Board();
+            int rows = 0;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(1000);
+                try (ResultSet rs = stmt.executeQuery("SELECT pgn_data, result FROM games")) {
+                    while (rs.next()) {
+                        rows += forEachGame(PositionIndex.parse(rs.getString(1)), rs.getString(2), replayer, board, counts);
+                        games++;
+                        if (rows >= FLUSH_ROWS) {
+                            // Rows are incremented, never replaced, so partial sums can be written as they fill up.
+                            write(conn, counts);
+                            counts.clear();
+                            rows = 0;
+                        }
+                    }
+                }
+            }
+            write(conn, counts);
+            conn.commit();
+        }
+        SHARED.invalidateAll();
+        return games;
+    }
+
+    /**
+     * Replays games and counts each (position, move) once per game.
+     *
+     * @return The number of new (position, move) entries added to {@code counts}.
+     */
+    private static int forEachGame(List<Parser.PGNGame> games, String fallbackResult, GameReplayer replayer, Board board,
+                                   Map<Long, Map<Integer, long[]>> counts) {
+        int added = 0;
+        for (Parser.PGNGame game : games) {
+            String result = game.getResult() != null ? game.getResult() : fallbackResult;
+            int outcome = switch (result == null ? "*" : result) {
+                case "1-0" -> 0;
+                case "1/2-1/2" -> 1;
+                case "0-1" -> 2;
+                default -> -1;
+            };
+            if (outcome < 0) continue;
+            String fen = game.getHeaders().get("FEN");
+            try {
+                if (fen != null) board.updateFromFen(fen);
+                else board.setupInitialPosition();
+            } catch (RuntimeException e) {
+                continue;
+            }
+            long[] seenHashes = new long[game.getMoves().size()];
+            int[] seenMoves = new int[game.getMoves().size()];
+            int[] newEntries = {0};
+            replayer.replay(board, game.getMoves(), game.getMoves().size(), (ply, position, start, end, promotion) -> {
+                long hash = Zobrist.hash(position);
+                int move = Moves.encode(start, end, promotion);
+                for (int i = 0; i < ply; i++) {
+                    if (seenHashes[i] == hash && seenMoves[i] == move) return true; // a repetition
+                }
+                seenHashes[ply] = hash;
+                seenMoves[ply] = move;
+                long[] moveCounts = counts.computeIfAbsent(hash, h -> new HashMap<>()).get(move);
+                if (moveCounts == null) {
+                    moveCounts = new long[3];
+                    counts.get(hash).put(move, moveCounts);
+                    newEntries[0]++;
+                }
+                moveCounts[outcome]++;
+                return true;
+            });
+            added += newEntries[0];
+        }
+        return added;
+    }
+
+    /** Adds the counts to the stored rows, creating the rows that do not exist yet. */
+    private static void write(Connection conn, Map<Long, Map<Integer, long[]>> counts) throws SQLException {
+        try (PreparedStatement upsert = conn.prepareStatement(
+                "INSERT INTO explorer_moves(hash, move, white_wins, draws, black_wins) VALUES(?,?,?,?,?)"
+                        + " ON CONFLICT(hash, move) DO UPDATE SET white_wins = white_wins + excluded.white_wins,"
+                        + " draws = draws + excluded.draws, black_wins = black_wins + excluded.black_wins")) {
+            for (Map.Entry<Long, Map<Integer, long[]>> position : counts.entrySet()) {
+                for (Map.Entry<Integer, long[]> move : position.getValue().entrySet()) {
+                    long[] c = move.getValue();
+                    upsert.setLong(1, position.getKey());
+                    upsert.setInt(2, move.getKey());
+                    upsert.setLong(3, c[0]);
+                    upsert.setLong(4, c[1]);
+                    upsert.setLong(5, c[2]);
+                    upsert.addBatch();
+                }
+            }
+            upsert.executeBatch();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            if (args.length == 1 && args[0].equals("rebuild")) {
+                long start = System.nanoTime();
+                int games = rebuild();
+                System.out.println("Counted " + games + " games in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+            } else if (args.length == 2 && args[0].equals("query")) {
+                OpeningExplorer explorer = shared();
+                for (int i = 0; i < 2; i++) {
+                    long start = System.nanoTime();
+                    List<MoveStats> moves = explorer.lookup(args[1]);
+                    System.out.println(moves.size() + " moves in " + (System.nanoTime() - start) / 1000 + " us"
+                            + (i == 0 ? "" : " (cached)") + ": " + Arrays.toString(moves.toArray()));
+                }
+            } else {
+                System.err.println("Usage: OpeningExplorer rebuild | OpeningExplorer query <fen>");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error using opening explorer: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+}
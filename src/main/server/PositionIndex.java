@@ -0,0 +1,356 @@
+package main.server;
+
+import main.engine.Zobrist;
+import main.model.Board.Board;
+import main.model.Game.GameReplayer;
+import main.model.PGNParser.Parser;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps every position reached in a stored game to the IDs of the games that reach it, so games
+ * can be found by position without replaying anything at query time.
+ * <p>
+ * Positions are keyed by their {@link Zobrist} hash. Each key has a posting list of game IDs in
+ * ascending order, written as varint deltas and split into segments of about
+ * {@value #SEGMENT_BYTES} bytes, so adding a game rewrites at most the last segment instead of a
+ * long list. A query reads the segments of one key through the primary key.
+ * <p>
+ * {@link DatabaseManager#saveGame} indexes each new game in the same transaction as its insert;
+ * {@link #rebuild} indexes the whole {@code games} table, e.g. after an upgrade.
+ * Usage: {@code PositionIndex rebuild | PositionIndex query <fen>}
+ */
+public final class PositionIndex {
+
+    static final int SEGMENT_BYTES = 4096;
+    /** Postings held in memory during a rebuild before they are written out. */
+    private static final int FLUSH_POSTINGS = 4_000_000;
+
+    private PositionIndex() {}
+
+    /** Creates the index table if it does not exist. */
+    static void createTable(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS position_postings ("
+                + " hash integer NOT NULL,"
+                + " segment integer NOT NULL,"
+                + " last_game_id integer NOT NULL,"
+                + " game_count integer NOT NULL,"
+                + " postings blob NOT NULL,"
+                + " PRIMARY KEY (hash, segment)"
+                + ") WITHOUT ROWID;");
+    }
+
+    /**
+     * Indexes one game. The caller owns the transaction; game IDs must be added in ascending order,
+     * as the {@code games} table assigns them.
+     */
+    static void addGame(Connection conn, long gameId, List<Parser.PGNGame> games) throws SQLException {
+        Map<Long, Postings> postings = new HashMap<>();
+        forEachGame(games, new GameReplayer(), new Board(), hashes -> {
+            for (long hash : hashes) {
+                postings.computeIfAbsent(hash, h -> new Postings()).add(gameId);
+            }
+        });
+        write(conn, postings);
+    }
+
+    /**
+     * Deletes the index and rebuilds it from every stored game.
+     *
+     * @return The number of games indexed.
+     */
+    public static int rebuild() throws SQLException {
+        try (Connection conn = DatabaseManager.connect()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                createTable(stmt);
+                stmt.execute("DELETE FROM position_postings");
+            }
+            conn.commit();
+
+            Map<Long, Postings> postings = new HashMap<>();
+            GameReplayer replayer = new GameReplayer();
+            Board board = new Board();
+            int games = 0;
+            long[] pending = {0};
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(1000);
+                try (ResultSet rs = stmt.executeQuery("SELECT id, pgn_data FROM games ORDER BY id")) {
+                    while (rs.next()) {
+                        long gameId = rs.getLong(1);
+                        forEachGame(parse(rs.getString(2)), replayer, board, hashes -> {
+                            for (long hash : hashes) {
+                                postings.computeIfAbsent(hash, h -> new Postings()).add(gameId);
+                            }
+                            pending[0] += hashes.length;
+                        });
+                        games++;
+                        if (pending[0] >= FLUSH_POSTINGS) {
+                            write(conn, postings);
+                            conn.commit();
+                            postings.clear();
+                            pending[0] = 0;
+                        }
+                    }
+                }
+            }
+            write(conn, postings);
+            conn.commit();
+            return games;
+        }
+    }
+
+    /**
+     * The IDs of all games that reach the position, in ascending order.
+     *
+     * @throws IllegalArgumentException if the FEN is invalid.
+     */
+    public static long[] findGames(String fen) throws SQLException {
+        Board board = new Board();
+        board.updateFromFen(fen);
+        return findGames(board);
+    }
+
+    public static long[] findGames(Board position) throws SQLException {
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT game_count, postings FROM position_postings WHERE hash = ? ORDER BY segment")) {
+            pstmt.setLong(1, Zobrist.hash(position));
+            long[] ids = new long[0];
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long[] segment = decode(rs.getBytes(2), rs.getInt(1));
+                    int count = ids.length;
+                    ids = Arrays.copyOf(ids, count + segment.length);
+                    System.arraycopy(segment, 0, ids, count, segment.length);
+                }
+            }
+            return ids;
+        }
+    }
+
+    // --- Postings ---
+
+    /** Game IDs of one position collected in memory as varint deltas, the first relative to 0. */
+    static final class Postings {
+        byte[] bytes = new byte[8];
+        int length;
+        long last;
+        int count;
+
+        void add(long gameId) {
+            if (count > 0 && gameId == last) return; // the position occurred again in the same game
+            if (length + 10 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            length = writeVarint(bytes, length, gameId - last);
+            last = gameId;
+            count++;
+        }
+    }
+
+    /** The segment of one key that is being filled while postings are written. */
+    private static final class Segment {
+        final byte[] bytes = new byte[SEGMENT_BYTES + 10];
+        int length;
+        int number;
+        long last;
+        int count;
+        boolean stored; // whether the row exists and is updated rather than inserted
+    }
+
+    /**
+     * Appends collected postings to the stored lists. The last stored segment is filled up to about
+     * {@value #SEGMENT_BYTES} bytes, and the rest go into new segments of that size.
+     */
+    private static void write(Connection conn, Map<Long, Postings> postings) throws SQLException {
+        try (PreparedStatement last = conn.prepareStatement(
+                "SELECT segment, last_game_id, game_count, postings FROM position_postings WHERE hash = ? ORDER BY segment DESC LIMIT 1");
+             PreparedStatement update = conn.prepareStatement(
+                     "UPDATE position_postings SET postings = ?, last_game_id = ?, game_count = ? WHERE hash = ? AND segment = ?");
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO position_postings(hash, segment, last_game_id, game_count, postings) VALUES(?,?,?,?,?)")) {
+            Segment segment = new Segment();
+            for (Map.Entry<Long, Postings> entry : postings.entrySet()) {
+                long hash = entry.getKey();
+                Postings p = entry.getValue();
+                segment.length = 0;
+                segment.number = 0;
+                segment.last = 0;
+                segment.count = 0;
+                segment.stored = false;
+                last.setLong(1, hash);
+                try (ResultSet rs = last.executeQuery()) {
+                    if (rs.next()) {
+                        // The blob is read and rewritten whole: SQLite's || would turn it into text.
+                        byte[] bytes = rs.getBytes(4);
+                        if (bytes.length < SEGMENT_BYTES) {
+                            System.arraycopy(bytes, 0, segment.bytes, 0, bytes.length);
+                            segment.length = bytes.length;
+                            segment.number = rs.getInt(1);
+                            segment.last = rs.getLong(2);
+                            segment.count = rs.getInt(3);
+                            segment.stored = true;
+                        } else {
+                            segment.number = rs.getInt(1) + 1;
+                        }
+                    }
+                }
+
+                long id = 0;
+                int i = 0;
+                while (i < p.length) {
+                    long delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = p.bytes[i++];
+                        delta |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    id += delta;
+                    if (segment.length >= SEGMENT_BYTES) {
+                        flush(hash, segment, update, insert);
+                        segment.number++;
+                        segment.length = 0;
+                        segment.last = 0; // a new segment starts with a full ID
+                        segment.count = 0;
+                        segment.stored = false;
+                    }
+                    segment.length = writeVarint(segment.bytes, segment.length, id - segment.last);
+                    segment.last = id;
+                    segment.count++;
+                }
+                flush(hash, segment, update, insert);
+            }
+            update.executeBatch();
+            insert.executeBatch();
+        }
+    }
+
+    private static void flush(long hash, Segment segment, PreparedStatement update, PreparedStatement insert) throws SQLException {
+        byte[] bytes = Arrays.copyOf(segment.bytes, segment.length);
+        if (segment.stored) {
+            update.setBytes(1, bytes);
+            update.setLong(2, segment.last);
+            update.setInt(3, segment.count);
+            update.setLong(4, hash);
+            update.setInt(5, segment.number);
+            update.addBatch();
+        } else {
+            insert.setLong(1, hash);
+            insert.setInt(2, segment.number);
+            insert.setLong(3, segment.last);
+            insert.setInt(4, segment.count);
+            insert.setBytes(5, bytes);
+            insert.addBatch();
+        }
+    }
+
+    static int writeVarint(byte[] bytes, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    /** Decodes one segment holding {@code expected} IDs. */
+    static long[] decode(byte[] bytes, int expected) {
+        long[] ids = new long[expected];
+        int count = 0;
+        long id = 0;
+        int i = 0;
+        while (i < bytes.length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[i++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += delta;
+            if (count == ids.length) ids = Arrays.copyOf(ids, count * 2 + 1);
+            ids[count++] = id;
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    // --- Replay ---
+
+    @FunctionalInterface
+    private interface HashConsumer {
+        void accept(long[] hashes) throws SQLException;
+    }
+
+    /**
+     * Replays each game and passes the distinct hashes of its positions, including the start and
+     * final positions. A game with an illegal move contributes the positions before it.
+     */
+    private static void forEachGame(List<Parser.PGNGame> games, GameReplayer replayer, Board board, HashConsumer consumer) throws SQLException {
+        for (Parser.PGNGame game : games) {
+            String fen = game.getHeaders().get("FEN");
+            try {
+                if (fen != null) board.updateFromFen(fen);
+                else board.setupInitialPosition();
+            } catch (RuntimeException e) {
+                continue;
+            }
+            long[] hashes = new long[game.getMoves().size() + 1];
+            int[] count = {0};
+            replayer.replay(board, game.getMoves(), game.getMoves().size(), (ply, position, start, end, promotion) -> {
+                hashes[count[0]++] = Zobrist.hash(position);
+                return true;
+            });
+            hashes[count[0]++] = Zobrist.hash(board);
+            consumer.accept(distinct(hashes, count[0]));
+        }
+    }
+
+    /** Parses the stored PGN text of one row, which normally holds a single game. */
+    static List<Parser.PGNGame> parse(String pgn) {
+        List<Parser.PGNGame> games = new ArrayList<>(1);
+        Parser.forEachGame(pgn.getBytes(StandardCharsets.UTF_8), games::add);
+        return games;
+    }
+
+    private static long[] distinct(long[] hashes, int count) {
+        Arrays.sort(hashes, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || hashes[i] != hashes[unique - 1]) hashes[unique++] = hashes[i];
+        }
+        return Arrays.copyOf(hashes, unique);
+    }
+
+    public static void main(String[] args) {
+        try {
+            if (args.length == 1 && args[0].equals("rebuild")) {
+                long start = System.nanoTime();
+                int games = rebuild();
+                System.out.println("Indexed " + games + " games in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+            } else if (args.length == 2 && args[0].equals("query")) {
+                long start = System.nanoTime();
+                long[] ids = findGames(args[1]);
+                System.out.println(ids.length + " games in " + (System.nanoTime() - start) / 1_000_000 + " ms: "
+                        + Arrays.toString(Arrays.copyOf(ids, Math.min(ids.length, 50))) + (ids.length > 50 ? " ..." : ""));
+            } else {
+                System.err.println("Usage: PositionIndex rebuild | PositionIndex query <fen>");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error using position index: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+}
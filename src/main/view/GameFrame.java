@@ -22,6 +22,8 @@ public class GameFrame extends JFrame {
     private final JMenuItem newGameMenuItem;
     private final JMenuItem loadPgnMenuItem;
     private final JMenuItem savePgnMenuItem;
+    private final JMenuItem takeBackMenuItem;
+    private final JMenuItem explorerMenuItem;
     private final JButton readyButton;
 
     // --- MOVE LOG: Add a JTextArea for the move log ---
@@ -44,6 +46,14 @@ public class GameFrame extends JFrame {
         fileMenu.add(loadPgnMenuItem);
         fileMenu.add(savePgnMenuItem);
         menuBar.add(fileMenu);
+        JMenu gameMenu = new JMenu("Game");
+        takeBackMenuItem = new JMenuItem("Take Back Move");
+        takeBackMenuItem.setEnabled(false);
+        gameMenu.add(takeBackMenuItem);
+        explorerMenuItem = new JMenuItem("Opening Explorer");
+        explorerMenuItem.setEnabled(false);
+        gameMenu.add(explorerMenuItem);
+        menuBar.add(gameMenu);
         setJMenuBar(menuBar);
 
         chessBoardPanel = new ChessBoardPanel();
@@ -115,17 +125,35 @@ public class GameFrame extends JFrame {
         }
     }
 
+    public void clearMoveLog() {
+        moveLogArea.setText("");
+    }
+
     public JButton getReadyButton() { return readyButton; }
     public void addReadyListener(ActionListener listener) { readyButton.addActionListener(listener); }
     public JMenuItem getNewGameMenuItem() { return newGameMenuItem; }
     public ChessBoardPanel getChessBoardPanel() { return chessBoardPanel; }
     public JMenuItem getLoadPgnMenuItem() { return loadPgnMenuItem; }
     public JMenuItem getSavePgnMenuItem() { return savePgnMenuItem; }
+    public JMenuItem getTakeBackMenuItem() { return takeBackMenuItem; }
+    public JMenuItem getExplorerMenuItem() { return explorerMenuItem; }
+    public void addExplorerListener(ActionListener listener) { explorerMenuItem.addActionListener(listener); }
     public void addSavePgnListener(ActionListener listener) { savePgnMenuItem.addActionListener(listener); }
     public void setStatus(String text) { statusLabel.setText(text); }
     public void updatePlayerInfo(Map<String, String> headers) { whitePlayerLabel.setText("White: " + headers.getOrDefault("White", "Unknown")); blackPlayerLabel.setText("Black: " + headers.getOrDefault("Black", "Unknown")); }
     public void updateClock(Colour colour, String time) { if (colour == Colour.WHITE) { whiteClockLabel.setText("Time: " + time); } else { blackClockLabel.setText("Time: " + time); } }
     public void addQuitListener(ActionListener listener) { quitButton.addActionListener(listener); }
     public void showGameOverDialog(String message, String title) { JOptionPane.showMessageDialog(this, message, title, JOptionPane.INFORMATION_MESSAGE); }
+
+    /**
+     * Shows the archive's moves from the current position, one per line as given, in a
+     * scrollable dialog.
+     */
+    public void showExplorerMoves(java.util.List<String> lines) {
+        JTextArea text = new JTextArea(String.join("\n", lines), Math.min(Math.max(lines.size(), 1), 15), 40);
+        text.setEditable(false);
+        text.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        JOptionPane.showMessageDialog(this, new JScrollPane(text), "Opening Explorer", JOptionPane.PLAIN_MESSAGE);
+    }
     public String askPromotionChoice() { Piece[] promotionPieces = { new Queen(Colour.WHITE), new Rook(Colour.WHITE), new Bishop(Colour.WHITE), new Knight(Colour.WHITE) }; ImageIcon[] icons = new ImageIcon[promotionPieces.length]; for (int i = 0; i < promotionPieces.length; i++) { Image img = PieceImageLoader.getImage(promotionPieces[i]); if (img != null) { icons[i] = new ImageIcon(img.getScaledInstance(40, 40, Image.SCALE_SMOOTH)); } } int choice = JOptionPane.showOptionDialog(this, "Choose piece for promotion:", "Pawn Promotion", JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, icons, icons[0]); if (choice >= 0 && choice < promotionPieces.length) { return String.valueOf(promotionPieces[choice].getSymbol()).toUpperCase(); } return "Q"; }
 }
\ No newline at end of file
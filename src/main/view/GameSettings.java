@@ -1,20 +1,31 @@
 package main.view;
 
+import main.common.Colour;
+
 public class GameSettings {
     // --- SIMPLIFIED: Only needs to know this player's name ---
     public final String playerName;
     public final int initialHours;
     public final int initialMinutes;
     public final int initialSeconds;
+    // Offline games are played against the built-in engine instead of through the server.
+    public final boolean vsComputer;
+    public final Colour playerColour;
 
     public GameSettings(String playerName, int hours, int minutes, int seconds) {
+        this(playerName, hours, minutes, seconds, false, Colour.WHITE);
+    }
+
+    public GameSettings(String playerName, int hours, int minutes, int seconds, boolean vsComputer, Colour playerColour) {
         this.playerName = playerName;
         this.initialHours = hours;
         this.initialMinutes = minutes;
         this.initialSeconds = seconds;
+        this.vsComputer = vsComputer;
+        this.playerColour = playerColour;
     }
 
     public int getTotalSeconds() {
         return (initialHours * 3600) + (initialMinutes * 60) + initialSeconds;
     }
-}
\ No newline at end of file
+}
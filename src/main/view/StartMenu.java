@@ -1,6 +1,8 @@
 // main/view/StartMenu.java
 package main.view;
 
+import main.common.Colour;
+
 import javax.swing.*;
 import java.awt.*;
 import java.util.Objects;
@@ -32,6 +34,8 @@ public class StartMenu {
         // Simplified UI: Only asks for one player's name
         gbc.gridy = 0; gbc.gridx = 0; fieldsPanel.add(new JLabel("Your Name:"), gbc);
         gbc.gridy = 1; fieldsPanel.add(new JLabel("Time Control:"), gbc);
+        gbc.gridy = 2; fieldsPanel.add(new JLabel("Opponent:"), gbc);
+        gbc.gridy = 3; fieldsPanel.add(new JLabel("Play As:"), gbc);
 
         gbc.gridx = 1; gbc.gridy = 0; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
         JTextField nameInput = new JTextField("Player", 15);
@@ -56,6 +60,18 @@ public class StartMenu {
         timerPanel.add(seconds);
         fieldsPanel.add(timerPanel, gbc);
 
+        // Opponent: another player through the server, or the built-in engine
+        gbc.gridy = 2;
+        JComboBox<String> opponent = new JComboBox<>(new String[]{"Online Player", "Computer"});
+        fieldsPanel.add(opponent, gbc);
+
+        // Colour only applies to games against the computer; the server assigns it otherwise
+        gbc.gridy = 3;
+        JComboBox<String> colour = new JComboBox<>(new String[]{"White", "Black"});
+        colour.setEnabled(false);
+        opponent.addActionListener(e -> colour.setEnabled(opponent.getSelectedIndex() == 1));
+        fieldsPanel.add(colour, gbc);
+
         startWindow.add(fieldsPanel, BorderLayout.CENTER);
 
         // --- Buttons ---
@@ -76,8 +92,9 @@ public class StartMenu {
             int mm = Integer.parseInt((String) Objects.requireNonNull(minutes.getSelectedItem()));
             int ss = Integer.parseInt((String) Objects.requireNonNull(seconds.getSelectedItem()));
 
-            // Use the new, simpler GameSettings constructor
-            GameSettings settings = new GameSettings(playerName, hh, mm, ss);
+            boolean vsComputer = opponent.getSelectedIndex() == 1;
+            Colour playerColour = colour.getSelectedIndex() == 0 ? Colour.WHITE : Colour.BLACK;
+            GameSettings settings = new GameSettings(playerName, hh, mm, ss, vsComputer, playerColour);
 
             // Close the start menu
             startWindow.dispose();